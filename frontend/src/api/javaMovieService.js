@@ -45,6 +45,11 @@ const javaMovieService = {
         return javaAxiosClient.get(url);
     },
 
+    getSuggestions: (params) => {
+        const url = "movie/suggest";
+        return javaAxiosClient.get(url, params);
+    },
+
     getMoviesBySearchTerm: (params) => {
         console.log("getMoviesBySearchTerm with params : " + JSON.stringify(params));
         const url = "movie/search";
@@ -57,6 +62,12 @@ const javaMovieService = {
         return javaAxiosClient.post(url, filterProps, { params: params });
     },
 
+    getMoviesByAdvancedSearchWithFacets: ({ filterProps, params }) => {
+        console.log("getMoviesByAdvancedSearchWithFacets: filter criteria: " + JSON.stringify(filterProps) + " & Params : " + JSON.stringify(params));
+        const url = "movie/advanced/search/facets";
+        return javaAxiosClient.post(url, filterProps, { params: params });
+    },
+
     getMoviesByGenres: (params) => {
         console.log("getMoviesByGenres with Genres : " + JSON.stringify(params));
         const url = "movie/genre";
@@ -0,0 +1,52 @@
+#!/usr/bin/env bash
+# Load comparison of the servlet (default) & reactive deployment modes
+# Requires: hey (https://github.com/rakyll/hey), a running Redis Stack with the movies loaded & the packaged jar
+#
+# Usage: ./loadtest/compare-stacks.sh [requests per run] [concurrency levels...]
+#   ./loadtest/compare-stacks.sh 20000 50 200 800
+set -euo pipefail
+
+JAR=${JAR:-target/spring-redis-search-om-api-1.0.0-SNAPSHOT.jar}
+PORT=${PORT:-8080}
+REQUESTS=${1:-20000}
+shift || true
+CONCURRENCY=${*:-50 200 800}
+BASE="http://localhost:${PORT}"
+
+run() {
+  local profile=$1 name=$2 method=$3 url=$4 body=${5:-}
+  for c in ${CONCURRENCY}; do
+    if [ -n "${body}" ]; then
+      out=$(hey -n "${REQUESTS}" -c "${c}" -m "${method}" -T "application/json" -d "${body}" "${url}")
+    else
+      out=$(hey -n "${REQUESTS}" -c "${c}" -m "${method}" "${url}")
+    fi
+    rps=$(echo "${out}" | awk '/Requests\/sec/ {print $2}')
+    p99=$(echo "${out}" | awk '/99% in/ {print $3}')
+    errors=$(echo "${out}" | awk '/\[200\]/ {ok=$2} END {print '"${REQUESTS}"' - ok}')
+    printf "%-9s %-16s %6s %10s %10s %8s\n" "${profile}" "${name}" "${c}" "${rps}" "${p99}" "${errors}"
+  done
+}
+
+printf "%-9s %-16s %6s %10s %10s %8s\n" "profile" "endpoint" "conc" "req/sec" "p99 (s)" "non-200"
+for profile in default reactive; do
+  # The servlet path's search cache & request coalescing have no reactive counterpart, both are disabled so
+  # the runs compare the stacks rather than the caching in front of them
+  MOVIE_INSERT_ON_STARTUP=false java -jar "${JAR}" --server.port="${PORT}" --spring.profiles.active="${profile}" \
+    --spring.redis.movie.search.cache.enabled=false --spring.redis.movie.search.coalescing.enabled=false \
+    > "loadtest/${profile}.log" 2>&1 &
+  pid=$!
+  trap 'kill ${pid} 2>/dev/null || true' EXIT
+  until curl -sf "${BASE}/movie/id/278" > /dev/null; do sleep 1; done
+
+  # Warm up the JIT & the near cache before measuring
+  hey -n 5000 -c 50 "${BASE}/movie/search?query=Avengers" > /dev/null
+
+  run "${profile}" "id" GET "${BASE}/movie/id/278"
+  run "${profile}" "search" GET "${BASE}/movie/search?query=Avengers&size=20"
+  run "${profile}" "advanced-search" POST "${BASE}/movie/advanced/search?size=20" \
+    '{"genres":"Action","voteAverageGTE":7.0,"voteCountGTE":1000}'
+
+  kill "${pid}"
+  wait "${pid}" 2>/dev/null || true
+done
@@ -3,11 +3,13 @@ package io.redis;
 import com.redis.om.spring.annotations.EnableRedisDocumentRepositories;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 
 @SpringBootApplication
 @EnableRedisDocumentRepositories(basePackages = "io.redis.*")
+@EnableScheduling
 public class SpringRedisMovieSearch {
 
     public static void main(String[] args) {
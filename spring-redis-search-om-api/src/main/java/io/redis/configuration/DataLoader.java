@@ -1,12 +1,19 @@
 package io.redis.configuration;
 
 import com.google.gson.Gson;
+import com.redis.om.spring.ops.RedisModulesOperations;
+import io.redis.event.MovieDataReloadedEvent;
 import io.redis.model.Movie;
-import io.redis.repository.MovieRepository;
+import io.redis.model.MovieCredits;
+import io.redis.repository.MovieCreditsRepository;
+import io.redis.service.MovieIndexService;
+import io.redis.util.NameInterner;
+import io.redis.util.SuggestionDictionary;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.stereotype.Component;
@@ -23,7 +30,22 @@ import java.util.List;
 public class DataLoader implements ApplicationListener<ContextRefreshedEvent> {
 
     @Autowired
-    MovieRepository movieRepository;
+    RedisModulesOperations<String> modulesOperations;
+
+    @Autowired
+    MovieBulkLoader movieBulkLoader;
+
+    @Autowired
+    MovieIndexService movieIndexService;
+
+    @Autowired
+    SuggestionDictionary suggestionDictionary;
+
+    @Autowired
+    MovieCreditsRepository movieCreditsRepository;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
 
     @Value("${spring.redis.movie.data.insert-on-startup}")
     private boolean load;
@@ -34,22 +56,55 @@ public class DataLoader implements ApplicationListener<ContextRefreshedEvent> {
     @Value("${spring.redis.movie.data.file}")
     private String SAMPLE_FILE;
 
+    @Value("${spring.redis.movie.data.loader.mode:pipeline}")
+    private String loaderMode;
+
+    @Value("${spring.redis.movie.data.loader.delta:false}")
+    private boolean delta;
+
+    @Value("${spring.redis.movie.data.credits.migrate-on-startup:false}")
+    private boolean migrateCredits;
+
     @Value("${spring.redis.movie.data.delete-on-shutdown}")
     private boolean deleteOnShutdown;
 
+    private static final String PIPELINE_MODE = "pipeline";
+
     private static FileWriter file;
 
     /**
      * Seed Database with JSON file in resources folder.
+     * Loader modes (spring.redis.movie.data.loader.mode):
+     * - pipeline: stream the file and write batches of JSON.SET as Redis pipelines (default)
+     * - repository: parse the whole file and write each movie on its own (JSON.SET), the MovieRepository isn't used as
+     * it always saves into "io.redis.model.Movie:" whatever the active generation
+     * With spring.redis.movie.data.loader.delta=true the pipeline loader only writes new or changed movies
+     * and deletes movies which are no longer in the file.
+     * Movies are written into the keyspace of the active index generation (see MovieIndexService).
+     * Both modes (re)build the title, actor & director autocomplete dictionaries (see SuggestionDictionary).
+     * With spring.redis.movie.data.credits.migrate-on-startup=true movies already in Redis are first moved into the
+     * configured credits layout (spring.redis.movie.data.credits.split, see MovieCreditsRepository) without reloading.
      *
      * @param event
      */
     @SneakyThrows
     @Override
     public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (migrateCredits && movieCreditsRepository.migrate(movieIndexService.keyPrefix()) > 0) {
+            eventPublisher.publishEvent(new MovieDataReloadedEvent(this, movieIndexService.keyPrefix()));
+        }
+
         if (load) {
 
             log.info("Loading sample data movies file from dir : '{}' with the provided path : {}", FILE_DIR, FILE_DIR + SAMPLE_FILE);
+
+            // Stream the file and write pipelined batches straight into Redis
+            if (PIPELINE_MODE.equalsIgnoreCase(loaderMode)) {
+                movieBulkLoader.load(FILE_DIR + SAMPLE_FILE, movieIndexService.keyPrefix(), delta);
+                eventPublisher.publishEvent(new MovieDataReloadedEvent(this, movieIndexService.keyPrefix()));
+                return;
+            }
+
             BufferedReader bufferedReader = new BufferedReader(new FileReader(FILE_DIR + SAMPLE_FILE));
 
             // Serialise to Movie Array from disk
@@ -58,10 +113,21 @@ public class DataLoader implements ApplicationListener<ContextRefreshedEvent> {
 
             // Batch load into Redis
             // NOTE: About 3x Quicker than movieRepository.saveAll(movies);
+            String keyPrefix = movieIndexService.keyPrefix();
             movies.parallelStream().forEach(m -> {
-                movieRepository.save(m);
+                if (movieCreditsRepository.isSplit()) {
+                    MovieCredits credits = MovieCreditsRepository.detach(m);
+                    movieCreditsRepository.save(keyPrefix + m.getId(), credits);
+                }
+                modulesOperations.opsForJSON().set(keyPrefix + m.getId(), m);
+                movieBulkLoader.recordWritten(keyPrefix, List.of(m.getId()));
             });
-            log.info("Finished loading data into Redis");
+
+            SuggestionDictionary.Builder suggestions = suggestionDictionary.builder(keyPrefix);
+            movies.forEach(suggestions::add);
+            suggestions.publish();
+            log.info("Finished loading data into Redis, names interned: {}", NameInterner.getMetrics());
+            eventPublisher.publishEvent(new MovieDataReloadedEvent(this, keyPrefix));
         }
     }
 
@@ -72,7 +138,7 @@ public class DataLoader implements ApplicationListener<ContextRefreshedEvent> {
     public void destroy() {
         if (deleteOnShutdown) {
             log.info("Deleting json data from Redis");
-            movieRepository.deleteAll();
+            movieIndexService.deleteAll();
         }
     }
 }
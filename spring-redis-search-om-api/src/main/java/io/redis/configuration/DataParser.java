@@ -2,6 +2,7 @@ package io.redis.configuration;
 
 import com.google.gson.*;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import io.redis.service.MovieScraperService;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -11,13 +12,17 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.IOException;
+import java.io.*;
+import java.nio.file.Files;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
 @Component
@@ -34,6 +39,7 @@ public class DataParser implements ApplicationListener<ContextRefreshedEvent> {
     // JSON Directory
     private static final String FILE_DIR = "src/main/resources/json/";
     private static final String MOVIE_DIR = "src/main/resources/movies/";
+    private static final String CHECKPOINT_FILE = "parsed-movies.ndjson";
 
     // JSON Fields
     private static final String RANK = "Rank";
@@ -54,6 +60,9 @@ public class DataParser implements ApplicationListener<ContextRefreshedEvent> {
     @Value("${spring.redis.movie.data.parse.raw-json:false}")
     private boolean parse;
 
+    @Value("${spring.redis.movie.data.parse.concurrency:8}")
+    private int concurrency;
+
     /**
      * Iterate over existing file and convert
      *
@@ -122,49 +131,214 @@ public class DataParser implements ApplicationListener<ContextRefreshedEvent> {
     }
 
 
+    /**
+     * Enrich every movie in new-movies.json with its TMDB details (budget, revenue, genres, credits etc.)
+     * The input is streamed one movie at a time & details are fetched with bounded concurrency. Each enriched movie
+     * is appended to an NDJSON checkpoint file (one movie per line) which doubles as the output, so a restarted run
+     * skips the ids already in the checkpoint & carries on. Once every movie is enriched the checkpoint is converted
+     * into parsed-movies.json & removed, movies which failed are left out of the checkpoint so a re-run retries them.
+     * A line left partly written by a crash is cut off before resuming, so that movie is retried.
+     *
+     * @throws IOException
+     */
     private void readTMDBData() throws IOException {
+        File checkpoint = new File(MOVIE_DIR + CHECKPOINT_FILE);
+        this.truncatePartialLine(checkpoint);
+        Set<String> genres = ConcurrentHashMap.newKeySet();
+        Set<Long> processed = this.readCheckpoint(checkpoint, genres);
+        if (!processed.isEmpty()) {
+            log.info("Resuming TMDB enrichment, {} movies already processed", processed.size());
+        }
 
-        // Get all JSON Files
-        JsonReader reader = new JsonReader(new FileReader(MOVIE_DIR + "new-movies.json"));
-        JsonArray moviesJSON = JsonParser.parseReader(reader).getAsJsonArray();
+        AtomicLong enriched = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(checkpoint, true))) {
+            this.readMovies(MOVIE_DIR + "new-movies.json")
+                    .filter(movie -> !processed.contains(movie.get("id").getAsLong()))
+                    .flatMapSequential(movie -> this.enrichMovie(movie, genres)
+                            .onErrorResume(e -> {
+                                log.error("Failed to enrich movie with id: {}, {}", movie.get("id"), e.getMessage());
+                                failed.incrementAndGet();
+                                return Mono.empty();
+                            }), concurrency)
+                    .publishOn(Schedulers.boundedElastic())
+                    .doOnNext(movie -> {
+                        this.appendLine(writer, gson.toJson(movie));
+                        log.info("Enriched movie with id: {}, total: {}", movie.get("id"), processed.size() + enriched.incrementAndGet());
+                    })
+                    .blockLast();
+        }
 
-        JsonArray restructuredJSON = new JsonArray();
-        Set<String> genres = new HashSet<>();
-        Iterator<JsonElement> movieIT = moviesJSON.iterator();
-        while (movieIT.hasNext()) {
-            JsonObject movie = movieIT.next().getAsJsonObject();
-            long id = movie.get("id").getAsLong();
-
-            log.info("Getting Movie with id: {}", id);
-            String movieDetails = movieScraperService.getMovieById(id);
-
-            if (StringUtils.isNotBlank(movieDetails)) {
-                JsonObject md = JsonParser.parseString(movieDetails).getAsJsonObject();
-                movie.add("budget", md.get("budget"));
-                movie.add("imdb_id", md.get("imdb_id"));
-                movie.add("revenue", md.get("revenue"));
-                movie.add("runtime", md.get("runtime"));
-                movie.add("status", md.get("status"));
-                movie.add("tagline", md.get("tagline"));
-                movie.add("genres", this.getGenres(genres, md.getAsJsonArray("genres")));
-
-                JsonObject credits = md.getAsJsonObject("credits");
-                movie.add("cast", this.getCast(credits.getAsJsonArray("cast"), "actor"));
-                movie.add("director", this.getCast(credits.getAsJsonArray("crew"), "director"));
-                movie.add("writer", this.getCast(credits.getAsJsonArray("crew"), "writer"));
-
-                movie.remove("genre_ids");
-                movie.remove("backdrop_path");
-                movie.remove("original_title");
-                movie.remove("adult");
-                movie.remove("video");
+        if (failed.get() > 0) {
+            log.warn("{} movies failed enrichment, re-run to retry them (checkpoint: {})", failed.get(), checkpoint.getPath());
+            return;
+        }
+
+        this.writeToFileString(gson.toJson(genres), "movies/genres.json");
+        this.convertCheckpoint(checkpoint, "src/main/resources/parsed-movies.json");
+        Files.delete(checkpoint.toPath());
+    }
+
+    private Mono<JsonObject> enrichMovie(JsonObject movie, Set<String> genres) {
+        long id = movie.get("id").getAsLong();
+        log.debug("Getting Movie with id: {}", id);
+
+        return movieScraperService.getMovieByIdAsync(id)
+                .map(movieDetails -> {
+                    if (StringUtils.isNotBlank(movieDetails)) {
+                        JsonObject md = JsonParser.parseString(movieDetails).getAsJsonObject();
+                        movie.add("budget", md.get("budget"));
+                        movie.add("imdb_id", md.get("imdb_id"));
+                        movie.add("revenue", md.get("revenue"));
+                        movie.add("runtime", md.get("runtime"));
+                        movie.add("status", md.get("status"));
+                        movie.add("tagline", md.get("tagline"));
+                        movie.add("genres", this.getGenres(genres, md.getAsJsonArray("genres")));
+
+                        JsonObject credits = md.getAsJsonObject("credits");
+                        movie.add("cast", this.getCast(credits.getAsJsonArray("cast"), "actor"));
+                        movie.add("director", this.getCast(credits.getAsJsonArray("crew"), "director"));
+                        movie.add("writer", this.getCast(credits.getAsJsonArray("crew"), "writer"));
+
+                        movie.remove("genre_ids");
+                        movie.remove("backdrop_path");
+                        movie.remove("original_title");
+                        movie.remove("adult");
+                        movie.remove("video");
+                    }
+                    return movie;
+                })
+                .defaultIfEmpty(movie);
+    }
+
+    /**
+     * Stream the movies of a JSON array file one at a time
+     *
+     * @param path
+     * @return
+     */
+    private Flux<JsonObject> readMovies(String path) {
+        return Flux.using(() -> {
+                    JsonReader reader = new JsonReader(new BufferedReader(new FileReader(path)));
+                    reader.beginArray();
+                    return reader;
+                },
+                reader -> Flux.generate(sink -> {
+                    try {
+                        if (reader.hasNext()) {
+                            sink.next(JsonParser.parseReader(reader).getAsJsonObject());
+                        } else {
+                            sink.complete();
+                        }
+                    } catch (IOException e) {
+                        sink.error(e);
+                    }
+                }),
+                reader -> {
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        log.warn("Failed to close {}: {}", path, e.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Read the ids (and genres) of movies already enriched by a previous run
+     * A partially written last line (i.e. from a crash mid-write) is ignored & that movie is enriched again
+     *
+     * @param checkpoint
+     * @param genres
+     * @return
+     * @throws IOException
+     */
+    private Set<Long> readCheckpoint(File checkpoint, Set<String> genres) throws IOException {
+        Set<Long> processed = new HashSet<>();
+        if (!checkpoint.exists()) {
+            return processed;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(checkpoint))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (StringUtils.isBlank(line)) {
+                    continue;
+                }
+                try {
+                    JsonObject movie = JsonParser.parseString(line).getAsJsonObject();
+                    processed.add(movie.get("id").getAsLong());
+                    if (movie.has("genres") && movie.get("genres").isJsonArray()) {
+                        movie.getAsJsonArray("genres").forEach(g -> genres.add(g.getAsString()));
+                    }
+                } catch (JsonParseException | IllegalStateException e) {
+                    log.warn("Ignoring malformed checkpoint line: {}", e.getMessage());
+                }
             }
+        }
+        return processed;
+    }
 
-            restructuredJSON.add(movie);
+    /**
+     * Cut the checkpoint back to its last complete line, appending after a partial line would merge the next movie
+     * into it & both would be dropped
+     *
+     * @param checkpoint
+     * @throws IOException
+     */
+    private void truncatePartialLine(File checkpoint) throws IOException {
+        if (!checkpoint.exists()) {
+            return;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(checkpoint, "rw")) {
+            long end = file.length();
+            while (end > 0) {
+                file.seek(end - 1);
+                if (file.read() == '\n') {
+                    break;
+                }
+                end--;
+            }
+            if (end < file.length()) {
+                log.warn("Removing a partly written line from the end of checkpoint {} ({} bytes)", checkpoint.getPath(),
+                        file.length() - end);
+                file.setLength(end);
+            }
         }
+    }
 
-        this.writeToFileString(gson.toJson(genres), "movies/genres.json");
-        this.writeToFile(restructuredJSON, "parsed-movies.json");
+    /**
+     * Rewrite the NDJSON checkpoint as a JSON array, one movie at a time
+     *
+     * @param checkpoint
+     * @param path
+     * @throws IOException
+     */
+    private void convertCheckpoint(File checkpoint, String path) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(checkpoint));
+             JsonWriter writer = new JsonWriter(new BufferedWriter(new FileWriter(path)))) {
+            writer.beginArray();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (StringUtils.isBlank(line)) {
+                    continue;
+                }
+                try {
+                    gson.toJson(JsonParser.parseString(line), writer);
+                } catch (JsonParseException e) {
+                    log.warn("Ignoring malformed checkpoint line: {}", e.getMessage());
+                }
+            }
+            writer.endArray();
+        }
+        log.info("finished writing {} to disk", path);
+    }
+
+    @SneakyThrows
+    private void appendLine(BufferedWriter writer, String json) {
+        writer.write(json);
+        writer.newLine();
+        writer.flush();
     }
 
     private JsonArray getGenres(Set<String> genreSet, JsonArray genres) {
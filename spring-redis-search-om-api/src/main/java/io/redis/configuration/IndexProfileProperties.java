@@ -0,0 +1,52 @@
+package io.redis.configuration;
+
+import io.redis.model.IndexProfile;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index profiles, applied when an index generation is created (see MovieIndexService)
+ * "full" is built from the Redis OM annotations on Movie & is always available, further profiles are declared as i.e.
+ * spring.redis.movie.index.profiles.lean.filterable=title,overview,genres,...
+ * spring.redis.movie.index.profiles.lean.sortable=popularity,voteAverage,...
+ */
+@Configuration
+@Data
+@ConfigurationProperties(prefix = "spring.redis.movie.index")
+public class IndexProfileProperties {
+
+    public static final String FULL = "full";
+
+    // Profile used for new index generations
+    private String profile = FULL;
+
+    private Map<String, IndexProfile> profiles = new LinkedHashMap<>();
+
+    /**
+     * @param name
+     * @return null for the full (annotation) profile
+     */
+    public IndexProfile get(String name) {
+        if (FULL.equalsIgnoreCase(name)) {
+            return null;
+        }
+        IndexProfile profile = profiles.get(name);
+        if (profile == null) {
+            throw new IllegalArgumentException("Unknown index profile '" + name + "', expected one of: " + getNames());
+        }
+        return profile;
+    }
+
+    public List<String> getNames() {
+        List<String> names = new ArrayList<>();
+        names.add(FULL);
+        names.addAll(profiles.keySet());
+        return names;
+    }
+}
@@ -0,0 +1,457 @@
+package io.redis.configuration;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import io.redis.event.MoviesWrittenEvent;
+import io.redis.model.LoadReport;
+import io.redis.model.Movie;
+import io.redis.repository.MovieCreditsRepository;
+import io.redis.util.NameInterner;
+import io.redis.util.SuggestionDictionary;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.resps.ScanResult;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Streaming, pipelined movie loader
+ * Reads the movies JSON array one document at a time (rather than materialising the whole file),
+ * groups documents into batches and writes each batch as a single Redis pipeline of JSON.SET commands.
+ * RediSearch picks up each document from its key prefix, so no further index maintenance is required.
+ * Batches are written on a bounded executor, when the queue is full the reading thread writes the batch
+ * itself which throttles parsing to the speed Redis can absorb.
+ * <p>
+ * Delta mode keeps a fingerprint of the whole file and a content hash per movie id in Redis:
+ * - "loader:io.redis.model.Movie:fingerprint" : SHA-256 of the last fully loaded file
+ * - "loader:io.redis.model.Movie:hashes" : HASH of movie id -> murmur3 hash of the stored JSON
+ * An unchanged file is skipped entirely, otherwise only new, changed or missing documents are written and ids
+ * no longer present in the file are deleted, so unchanged documents are never re-indexed.
+ * Without a fingerprint (first delta load, or after clearState) the hashes are seeded with every movie already in
+ * the keyspace, so movies written by a full or repository load are deleted too once they leave the file.
+ * Fingerprint & hashes include the credits layout, so switching layout rewrites every document.
+ * <p>
+ * Every batch which adds or removes movies also bumps "loader:io.redis.model.Movie:writes", written ids are
+ * published as a MoviesWrittenEvent (see MovieIdFilter).
+ * <p>
+ * In the split credits layout each movie is written as two documents (see MovieCreditsRepository).
+ * <p>
+ * Every load also rebuilds the autocomplete dictionaries of the keyspace (see SuggestionDictionary).
+ */
+@Slf4j
+@Component
+public class MovieBulkLoader {
+
+    public static final String MOVIE_KEYSPACE = Movie.class.getName() + ":";
+
+    private static final String STATE_PREFIX = "loader:";
+    private static final HashFunction DOCUMENT_HASH = Hashing.murmur3_128();
+
+    @Autowired
+    JedisPooled jedis;
+
+    @Autowired
+    Gson gson;
+
+    @Autowired
+    SuggestionDictionary suggestionDictionary;
+
+    @Autowired
+    MovieCreditsRepository creditsRepository;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Value("${spring.redis.movie.data.loader.batch-size:500}")
+    private int batchSize;
+
+    @Value("${spring.redis.movie.data.loader.threads:4}")
+    private int threads;
+
+    @Value("${spring.redis.movie.data.loader.queue-capacity:8}")
+    private int queueCapacity;
+
+    /**
+     * Stream the movies file at the given path into Redis under the given key prefix, writing every document
+     *
+     * @param path
+     * @param keyPrefix
+     * @return
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public LoadReport load(String path, String keyPrefix) throws IOException, InterruptedException {
+        return load(path, keyPrefix, false);
+    }
+
+    /**
+     * Stream the movies file at the given path into Redis under the given key prefix
+     *
+     * @param path
+     * @param keyPrefix
+     * @param delta     only write documents whose content hash has changed & delete ids missing from the file
+     * @return
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public LoadReport load(String path, String keyPrefix, boolean delta) throws IOException, InterruptedException {
+        resetPeakHeap();
+        long start = System.nanoTime();
+
+        AtomicLong written = new AtomicLong();
+        AtomicLong unchanged = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        LoadReport report = new LoadReport();
+
+        String fingerprint = null;
+        if (delta) {
+            fingerprint = Files.asByteSource(new File(path)).hash(Hashing.sha256()).toString() + layoutSuffix();
+            String recorded = jedis.get(fingerprintKey(keyPrefix));
+            if (fingerprint.equals(recorded) && suggestionDictionary.exists(keyPrefix)) {
+                log.info("Movies file '{}' is unchanged (fingerprint: {}), skipping load", path, fingerprint);
+                report.setSkipped(jedis.hlen(hashesKey(keyPrefix)));
+                return finish(report, start);
+            }
+            if (recorded == null) {
+                seedHashes(keyPrefix);
+            }
+        }
+
+        Set<String> seenIds = delta ? new HashSet<>() : Collections.emptySet();
+        SuggestionDictionary.Builder suggestions = suggestionDictionary.builder(keyPrefix);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("movie-loader-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        long submitted = 0;
+        boolean finished;
+        try (JsonReader reader = new JsonReader(new BufferedReader(new FileReader(path)))) {
+            reader.beginArray();
+            List<Movie> batch = new ArrayList<>(batchSize);
+            while (reader.hasNext()) {
+                Movie movie = gson.fromJson(reader, Movie.class);
+                report.setDocuments(report.getDocuments() + 1);
+
+                if (movie == null || StringUtils.isBlank(movie.getId())) {
+                    report.setSkipped(report.getSkipped() + 1);
+                    continue;
+                }
+
+                if (delta) {
+                    seenIds.add(movie.getId());
+                }
+                suggestions.add(movie);
+
+                batch.add(movie);
+                if (batch.size() >= batchSize) {
+                    submit(executor, batch, keyPrefix, delta, written, unchanged, failed);
+                    submitted += batch.size();
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            reader.endArray();
+            if (!batch.isEmpty()) {
+                submit(executor, batch, keyPrefix, delta, written, unchanged, failed);
+                submitted += batch.size();
+            }
+        } finally {
+            executor.shutdown();
+            finished = executor.awaitTermination(10, TimeUnit.MINUTES);
+        }
+
+        suggestions.publish();
+
+        long unchangedCount = unchanged.get();
+        report.setWritten(written.get());
+        report.setSkipped(report.getSkipped() + unchangedCount);
+        report.setFailed(failed.get());
+
+        if (!finished) {
+            // Queued batches are dropped & running ones aren't waited for, every movie not yet written counts as failed
+            int dropped = executor.shutdownNow().size();
+            report.setFailed(submitted - report.getWritten() - unchangedCount);
+            log.error("Timed out writing movies into '{}', {} queued batches dropped, {} movies failed",
+                    keyPrefix, dropped, report.getFailed());
+        }
+
+        // A load which timed out is left to the next delta run, the fingerprint is only recorded once every
+        // document made it into Redis
+        if (delta && finished) {
+            report.setDeleted(deleteRemoved(keyPrefix, seenIds));
+            if (report.getFailed() == 0) {
+                jedis.set(fingerprintKey(keyPrefix), fingerprint);
+            }
+        }
+        return finish(report, start);
+    }
+
+    /**
+     * Remove the delta state for a keyspace so the next delta load rewrites every document
+     *
+     * @param keyPrefix
+     */
+    public void clearState(String keyPrefix) {
+        jedis.del(fingerprintKey(keyPrefix), hashesKey(keyPrefix));
+    }
+
+    /**
+     * Count movies written outside of a load (one at a time through the repository) & publish their ids
+     * REDIS: "INCR" "loader:io.redis.model.Movie:writes"
+     *
+     * @param keyPrefix
+     * @param ids
+     */
+    public void recordWritten(String keyPrefix, List<String> ids) {
+        this.publishWritten(keyPrefix, ids, jedis.incr(writesKey(keyPrefix)));
+    }
+
+    /**
+     * Counter of the batches which added or removed movies in a keyspace, bumped after the batch's writes so a
+     * reader which sees the new value also sees the documents
+     *
+     * @param keyPrefix
+     * @return
+     */
+    public static String writesKey(String keyPrefix) {
+        return STATE_PREFIX + keyPrefix + "writes";
+    }
+
+    private void submit(ThreadPoolExecutor executor, List<Movie> batch, String keyPrefix, boolean delta,
+                        AtomicLong written, AtomicLong unchanged, AtomicLong failed) {
+        executor.execute(() -> {
+            try {
+                if (delta) {
+                    writeChangedBatch(batch, keyPrefix, written, unchanged, failed);
+                } else {
+                    long errors = writeBatch(batch, keyPrefix);
+                    written.addAndGet(batch.size() - errors);
+                    failed.addAndGet(errors);
+                }
+            } catch (Exception e) {
+                log.error("Failed to write batch of {} movies", batch.size(), e);
+                failed.addAndGet(batch.size());
+            }
+        });
+    }
+
+    /**
+     * Write a batch as a single pipeline: "JSON.SET" "io.redis.model.Movie:<ID>" "$" "{...}"
+     *
+     * @param batch
+     * @param keyPrefix
+     * @return number of commands Redis rejected
+     */
+    private long writeBatch(List<Movie> batch, String keyPrefix) {
+        Response<Long> writes;
+        long errors;
+        try (Connection connection = jedis.getPool().getResource()) {
+            Pipeline pipeline = new Pipeline(connection);
+            batch.forEach(m -> creditsRepository.write(pipeline, keyPrefix + m.getId(), m));
+            writes = pipeline.incr(writesKey(keyPrefix));
+            errors = countErrors(pipeline.syncAndReturnAll());
+        }
+        this.publishWritten(keyPrefix, batch.stream().map(Movie::getId).collect(Collectors.toList()), writes.get());
+        return errors;
+    }
+
+    /**
+     * Add every movie already in the keyspace to the hashes with an empty hash, which never matches, so movies
+     * loaded without delta state are rewritten if still in the file & deleted otherwise
+     * REDIS: "SCAN" "0" "MATCH" "io.redis.model.Movie:*" ... & "HSETNX" "loader:io.redis.model.Movie:hashes" "278" "" ...
+     *
+     * @param keyPrefix
+     */
+    private void seedHashes(String keyPrefix) {
+        long seeded = 0;
+        ScanParams params = new ScanParams().match(keyPrefix + "*").count(batchSize);
+        String cursor = ScanParams.SCAN_POINTER_START;
+        do {
+            ScanResult<String> page = jedis.scan(cursor, params);
+            if (!page.getResult().isEmpty()) {
+                try (Connection connection = jedis.getPool().getResource()) {
+                    Pipeline pipeline = new Pipeline(connection);
+                    page.getResult().forEach(key -> pipeline.hsetnx(hashesKey(keyPrefix), key.substring(keyPrefix.length()), ""));
+                    pipeline.sync();
+                }
+                seeded += page.getResult().size();
+            }
+            cursor = page.getCursor();
+        } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+        log.info("No delta state for '{}', seeded the hashes with {} movies already stored", keyPrefix, seeded);
+    }
+
+    /**
+     * Compare the content hash of each movie with the stored hash (HMGET) & check the document still exists
+     * (EXISTS) in one pipeline, then write changed or missing documents and their new hashes in a second pipeline:
+     * "JSON.SET" ... & "HSET" "loader:io.redis.model.Movie:hashes" ...
+     *
+     * @param batch
+     * @param keyPrefix
+     */
+    private void writeChangedBatch(List<Movie> batch, String keyPrefix,
+                                   AtomicLong written, AtomicLong unchanged, AtomicLong failed) {
+        String[] ids = batch.stream().map(Movie::getId).toArray(String[]::new);
+        List<String> storedHashes;
+        List<Response<Boolean>> exists = new ArrayList<>(ids.length);
+        try (Connection connection = jedis.getPool().getResource()) {
+            Pipeline pipeline = new Pipeline(connection);
+            Response<List<String>> hashes = pipeline.hmget(hashesKey(keyPrefix), ids);
+            for (String id : ids) {
+                exists.add(pipeline.exists(keyPrefix + id));
+            }
+            pipeline.sync();
+            storedHashes = hashes.get();
+        }
+
+        Map<String, String> changedHashes = new HashMap<>();
+        Response<Long> writes = null;
+        try (Connection connection = jedis.getPool().getResource()) {
+            Pipeline pipeline = new Pipeline(connection);
+            for (int i = 0; i < ids.length; i++) {
+                String json = gson.toJson(batch.get(i));
+                String hash = DOCUMENT_HASH.hashString(json + layoutSuffix(), StandardCharsets.UTF_8).toString();
+                // Documents deleted outside of the loader are rewritten even though their hash is unchanged
+                if (hash.equals(storedHashes.get(i)) && exists.get(i).get()) {
+                    continue;
+                }
+                creditsRepository.write(pipeline, keyPrefix + ids[i], batch.get(i), json);
+                changedHashes.put(ids[i], hash);
+            }
+
+            if (!changedHashes.isEmpty()) {
+                pipeline.hset(hashesKey(keyPrefix), changedHashes);
+                writes = pipeline.incr(writesKey(keyPrefix));
+            }
+            long errors = countErrors(pipeline.syncAndReturnAll());
+
+            // Forget the hashes of a partially failed batch so those documents are retried next time
+            if (errors > 0) {
+                jedis.hdel(hashesKey(keyPrefix), changedHashes.keySet().toArray(String[]::new));
+            }
+
+            unchanged.addAndGet(ids.length - changedHashes.size());
+            written.addAndGet(changedHashes.size() - errors);
+            failed.addAndGet(errors);
+        }
+        if (writes != null) {
+            this.publishWritten(keyPrefix, new ArrayList<>(changedHashes.keySet()), writes.get());
+        }
+    }
+
+    /**
+     * Delete documents (and their hashes) whose ids were not present in the loaded file
+     *
+     * @param keyPrefix
+     * @param seenIds
+     * @return number of deleted documents
+     */
+    private long deleteRemoved(String keyPrefix, Set<String> seenIds) {
+        List<String> removed = new ArrayList<>();
+        ScanParams params = new ScanParams().count(batchSize);
+        String cursor = ScanParams.SCAN_POINTER_START;
+        do {
+            ScanResult<Map.Entry<String, String>> page = jedis.hscan(hashesKey(keyPrefix), cursor, params);
+            page.getResult().stream()
+                    .map(Map.Entry::getKey)
+                    .filter(id -> !seenIds.contains(id))
+                    .forEach(removed::add);
+            cursor = page.getCursor();
+        } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+
+        for (int i = 0; i < removed.size(); i += batchSize) {
+            List<String> ids = removed.subList(i, Math.min(i + batchSize, removed.size()));
+            try (Connection connection = jedis.getPool().getResource()) {
+                Pipeline pipeline = new Pipeline(connection);
+                pipeline.unlink(ids.stream().map(id -> keyPrefix + id).toArray(String[]::new));
+                pipeline.unlink(ids.stream().map(id -> MovieCreditsRepository.keyFor(keyPrefix + id)).toArray(String[]::new));
+                pipeline.hdel(hashesKey(keyPrefix), ids.toArray(String[]::new));
+                // No event, Bloom filters can't forget ids, the id filter rebuilds once it sees the counter move
+                pipeline.incr(writesKey(keyPrefix));
+                pipeline.sync();
+            }
+        }
+
+        if (!removed.isEmpty()) {
+            log.info("Deleted {} movies no longer present in the movies file", removed.size());
+        }
+        return removed.size();
+    }
+
+    private void publishWritten(String keyPrefix, List<String> ids, long writes) {
+        eventPublisher.publishEvent(new MoviesWrittenEvent(this, keyPrefix, ids, writes));
+    }
+
+    private LoadReport finish(LoadReport report, long start) {
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        report.setElapsedMillis(elapsedMillis);
+        report.setDocumentsPerSecond(report.getDocuments() * 1000.0 / elapsedMillis);
+        report.setPeakHeapMb(peakHeapBytes() / (1024 * 1024));
+
+        log.info("Processed {} movies in {}ms ({} docs/sec), written: {}, skipped: {}, deleted: {}, failed: {}, peak heap: {}MB",
+                report.getDocuments(), report.getElapsedMillis(), String.format("%.0f", report.getDocumentsPerSecond()),
+                report.getWritten(), report.getSkipped(), report.getDeleted(), report.getFailed(), report.getPeakHeapMb());
+        log.info("Names interned: {}", NameInterner.getMetrics());
+        return report;
+    }
+
+    private long countErrors(List<Object> responses) {
+        return responses.stream()
+                .filter(r -> r instanceof Exception)
+                .count();
+    }
+
+    /**
+     * Empty for the embedded layout, so existing fingerprints & hashes stay valid
+     */
+    private String layoutSuffix() {
+        return creditsRepository.isSplit() ? ":credits-split" : "";
+    }
+
+    private String fingerprintKey(String keyPrefix) {
+        return STATE_PREFIX + keyPrefix + "fingerprint";
+    }
+
+    private String hashesKey(String keyPrefix) {
+        return STATE_PREFIX + keyPrefix + "hashes";
+    }
+
+    private void resetPeakHeap() {
+        ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(p -> p.getType() == MemoryType.HEAP)
+                .forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    private long peakHeapBytes() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(p -> p.getType() == MemoryType.HEAP)
+                .mapToLong(p -> p.getPeakUsage().getUsed())
+                .sum();
+    }
+}
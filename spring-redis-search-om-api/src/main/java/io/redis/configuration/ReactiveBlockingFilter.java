@@ -0,0 +1,61 @@
+package io.redis.configuration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.codec.HttpMessageReader;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Under the "reactive" profile only the routes of ReactiveMovieRouter are non-blocking, every other endpoint is
+ * served by the annotated controllers (MovieController, AdminController, MovieScraper) which make blocking Jedis calls.
+ * Those requests are handed to Schedulers.boundedElastic() so the Netty event loop threads are never blocked:
+ * the request body is read first, then the controller is invoked on a bounded elastic thread with the buffered body
+ * (an annotated handler method runs on whichever thread delivers its last argument, for a body that's the event loop)
+ */
+@Component
+@Profile("reactive")
+public class ReactiveBlockingFilter implements WebFilter {
+
+    private final List<HttpMessageReader<?>> messageReaders = HandlerStrategies.withDefaults().messageReaders();
+
+    @Autowired
+    RouterFunction<ServerResponse> reactiveMovieRoutes;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return reactiveMovieRoutes.route(ServerRequest.create(exchange, messageReaders))
+                .hasElement()
+                .flatMap(nonBlocking -> nonBlocking ? chain.filter(exchange) : this.offload(exchange, chain));
+    }
+
+    private Mono<Void> offload(ServerWebExchange exchange, WebFilterChain chain) {
+        return DataBufferUtils.join(exchange.getRequest().getBody())
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .publishOn(Schedulers.boundedElastic())
+                .flatMap(body -> chain.filter(body.isEmpty() ? exchange : exchange.mutate()
+                        .request(new ServerHttpRequestDecorator(exchange.getRequest()) {
+                            @Override
+                            public Flux<DataBuffer> getBody() {
+                                return Flux.just(body.get());
+                            }
+                        })
+                        .build()));
+    }
+}
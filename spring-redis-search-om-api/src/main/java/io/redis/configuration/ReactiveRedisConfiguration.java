@@ -0,0 +1,60 @@
+package io.redis.configuration;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.protocol.ProtocolVersion;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.time.Duration;
+
+/**
+ * Non-blocking Redis client for the "reactive" profile
+ * A single Lettuce connection is shared by every request, commands are pipelined over it by the event loop
+ * rather than each request holding a pooled connection (& a thread) for the duration of the call.
+ */
+@Slf4j
+@Configuration
+@Profile("reactive")
+public class ReactiveRedisConfiguration {
+
+    @Value("${spring.data.redis.host:localhost}")
+    private String host;
+
+    @Value("${spring.data.redis.port:6379}")
+    private int port;
+
+    @Value("${spring.data.redis.password:}")
+    private String password;
+
+    @Value("${spring.redis.movie.reactive.command-timeout:2s}")
+    private Duration commandTimeout;
+
+    @Bean(destroyMethod = "shutdown")
+    public RedisClient reactiveRedisClient() {
+        RedisURI.Builder uri = RedisURI.builder()
+                .withHost(host)
+                .withPort(port)
+                .withTimeout(commandTimeout);
+        if (StringUtils.isNotEmpty(password)) {
+            uri.withPassword(password.toCharArray());
+        }
+
+        RedisClient client = RedisClient.create(uri.build());
+        // FT.SEARCH replies are parsed as RESP2 arrays, RediSearch answers RESP3 clients with maps
+        client.setOptions(ClientOptions.builder().protocolVersion(ProtocolVersion.RESP2).build());
+        return client;
+    }
+
+    @Bean(destroyMethod = "close")
+    public StatefulRedisConnection<String, String> reactiveRedisConnection(RedisClient reactiveRedisClient) {
+        log.info("Boostrapping reactive Lettuce connection to {}:{}", host, port);
+        return reactiveRedisClient.connect();
+    }
+}
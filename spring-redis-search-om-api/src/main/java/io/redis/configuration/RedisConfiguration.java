@@ -4,13 +4,17 @@ import com.redis.om.spring.client.RedisModulesClient;
 import io.redis.model.Movie;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import redis.clients.jedis.JedisPooled;
 import redis.clients.jedis.search.RediSearchCommands;
 
 import javax.net.ssl.SSLException;
@@ -37,6 +41,33 @@ public class RedisConfiguration {
         return rmc.clientForSearch();
     }
 
+    /**
+     * Expose the pooled Jedis client backing the RedisModulesClient
+     * Every module client (JSON, Search, Bloom) is served by the same JedisPooled instance, exposing it
+     * gives access to pooled connections for pipelining e.g. batching JSON.SET during bulk loads
+     *
+     * @param rmc
+     * @return
+     */
+    @Bean
+    public JedisPooled getJedisPooledClient(RedisModulesClient rmc) {
+        log.info("Boostrapping JedisPooled client for pipelined access");
+        return (JedisPooled) rmc.clientForJSON();
+    }
+
+    /**
+     * Pub/Sub listener container, used for keyspace notifications (see MovieNearCache)
+     *
+     * @param connectionFactory
+     * @return
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
     private static ExchangeFilterFunction logRequest() {
         return ExchangeFilterFunction.ofRequestProcessor(clientRequest -> {
             log.info("Request: {} {}", clientRequest.method(), clientRequest.url());
@@ -45,15 +76,22 @@ public class RedisConfiguration {
         });
     }
 
+    /**
+     * TMDB API client, the base url is configurable so the scraper can be pointed at a local stub server
+     *
+     * @param baseUrl
+     * @return
+     * @throws SSLException
+     */
     @Bean
-    public WebClient localApiClient() throws SSLException {
+    public WebClient localApiClient(@Value("${spring.redis.movie.scraper.base-url}") String baseUrl) throws SSLException {
         final int size = 100 * 1024 * 1024;
         final ExchangeStrategies strategies = ExchangeStrategies.builder()
                 .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(size))
                 .build();
         return WebClient.builder()
                 .exchangeStrategies(strategies)
-                .baseUrl("https://api.themoviedb.org/3/").build();
+                .baseUrl(baseUrl).build();
     }
 
 }
@@ -1,16 +1,35 @@
 package io.redis.configuration;
 
+import io.redis.serialisation.RawJsonHttpMessageConverter;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
+/**
+ * Servlet (Spring MVC) stack, the default deployment mode, see ReactiveWebConfig for the "reactive" profile
+ */
 @Configuration
 @EnableWebMvc
+@Profile("!reactive")
 public class WebConfig implements WebMvcConfigurer {
 
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**");
     }
+
+    /**
+     * Ahead of Jackson, so documents passed through from Redis (RawJson, RawJsonPage) are written as is
+     *
+     * @param converters
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new RawJsonHttpMessageConverter());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,170 @@
+package io.redis.controller;
+
+import io.redis.model.CacheMetrics;
+import io.redis.model.CoalescingMetrics;
+import io.redis.model.IdFilterMetrics;
+import io.redis.model.IndexMemory;
+import io.redis.model.InternerMetrics;
+import io.redis.model.RatingMetrics;
+import io.redis.model.ReindexStatus;
+import io.redis.service.IndexProfileService;
+import io.redis.service.MovieIdFilter;
+import io.redis.service.MovieIndexService;
+import io.redis.service.MovieNearCache;
+import io.redis.service.MovieRatingService;
+import io.redis.service.MovieService;
+import io.redis.util.NameInterner;
+import io.redis.util.ResponseDiskCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@Slf4j
+@CrossOrigin(origins = "*")
+@RequestMapping("/admin/")
+@RestController
+public class AdminController {
+
+    @Autowired
+    MovieIndexService movieIndexService;
+
+    @Autowired
+    MovieService movieService;
+
+    @Autowired
+    MovieNearCache movieNearCache;
+
+    @Autowired
+    IndexProfileService indexProfileService;
+
+    @Autowired
+    MovieIdFilter movieIdFilter;
+
+    @Autowired
+    MovieRatingService movieRatingService;
+
+    @Autowired
+    ResponseDiskCache responseDiskCache;
+
+    /**
+     * Zero downtime reindex, loads the movies file into a new index generation & swaps the alias once indexed
+     * REST: curl -X POST "http://localhost:8080/admin/reindex"
+     * REDIS: "FT.CREATE" "io.redis.model.MovieIdx.v1" "ON" "JSON" "PREFIX" "1" "io.redis.model.Movie.v1:" "SCHEMA" ...
+     * REDIS: "FT.INFO" "io.redis.model.MovieIdx.v1" (until percent_indexed = 1)
+     * REDIS: "FT.ALIASUPDATE" "io.redis.model.MovieIdx" "io.redis.model.MovieIdx.v1"
+     *
+     * @return
+     */
+    @PostMapping("/reindex")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public ReindexStatus reindex() {
+        log.info("Starting reindex from generation {}", movieIndexService.getActiveGeneration());
+        return movieIndexService.startReindex();
+    }
+
+    /**
+     * Progress of the current (or last) reindex
+     * REST: curl -X GET "http://localhost:8080/admin/reindex"
+     *
+     * @return
+     */
+    @GetMapping("/reindex")
+    public ReindexStatus getReindexStatus() {
+        return movieIndexService.getStatus();
+    }
+
+    /**
+     * Size & hit/miss metrics of the in-process caches & the on-disk TMDB response cache
+     * REST: curl -X GET "http://localhost:8080/admin/cache"
+     *
+     * @return
+     */
+    @GetMapping("/cache")
+    public List<CacheMetrics> getCacheMetrics() {
+        return List.of(movieService.getSearchCacheMetrics(), movieNearCache.getMetrics(), responseDiskCache.getMetrics());
+    }
+
+    /**
+     * Redis calls issued vs requests which shared an identical call already in flight
+     * REST: curl -X GET "http://localhost:8080/admin/coalescing"
+     *
+     * @return
+     */
+    @GetMapping("/coalescing")
+    public List<CoalescingMetrics> getCoalescingMetrics() {
+        return List.of(movieService.getSearchCoalescingMetrics());
+    }
+
+    /**
+     * Distinct vs total actor, director, writer, genre & job names seen by deserialisation
+     * REST: curl -X GET "http://localhost:8080/admin/interner"
+     *
+     * @return
+     */
+    @GetMapping("/interner")
+    public InternerMetrics getInternerMetrics() {
+        return NameInterner.getMetrics();
+    }
+
+    /**
+     * Lookups of unknown ids rejected by the movie id (Bloom) filter vs let through, & how many of those were false positives
+     * REST: curl -X GET "http://localhost:8080/admin/id-filter"
+     *
+     * @return
+     */
+    @GetMapping("/id-filter")
+    public IdFilterMetrics getIdFilterMetrics() {
+        return movieIdFilter.getMetrics();
+    }
+
+    /**
+     * Ratings waiting for the next write-behind flush, & votes written or dropped (movie deleted) so far
+     * REST: curl -X GET "http://localhost:8080/admin/ratings"
+     *
+     * @return
+     */
+    @GetMapping("/ratings")
+    public RatingMetrics getRatingMetrics() {
+        return movieRatingService.getMetrics();
+    }
+
+    /**
+     * FT.INFO index memory of the live index (with the profile it was created with) & of any comparison indexes
+     * REST: curl -X GET "http://localhost:8080/admin/index/profiles"
+     *
+     * @return
+     */
+    @GetMapping("/index/profiles")
+    public List<IndexMemory> getIndexProfiles() {
+        return indexProfileService.getIndexMemory();
+    }
+
+    /**
+     * Build a comparison index of the active movies with an index profile, to measure its memory before reindexing with it
+     * REST: curl -X POST "http://localhost:8080/admin/index/profiles/lean"
+     * REDIS: "FT.CREATE" "io.redis.model.MovieIdx.profile.lean" "ON" "JSON" "PREFIX" "1" "io.redis.model.Movie:" "SCHEMA" ...
+     *
+     * @param profile
+     * @return
+     */
+    @PostMapping("/index/profiles/{profile}")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public IndexMemory createComparisonIndex(@PathVariable("profile") String profile) {
+        return indexProfileService.createComparisonIndex(profile);
+    }
+
+    /**
+     * Drop a comparison index (documents are kept)
+     * REST: curl -X DELETE "http://localhost:8080/admin/index/profiles/lean"
+     *
+     * @param profile
+     */
+    @DeleteMapping("/index/profiles/{profile}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void dropComparisonIndex(@PathVariable("profile") String profile) {
+        indexProfileService.dropComparisonIndex(profile);
+    }
+}
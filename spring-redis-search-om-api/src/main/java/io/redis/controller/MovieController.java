@@ -1,21 +1,39 @@
 package io.redis.controller;
 
-import io.redis.model.Movie;
+import io.redis.model.CursorPage;
+import io.redis.model.EventBatchResult;
+import io.redis.model.FacetCount;
+import io.redis.model.FacetedPage;
+import io.redis.model.MovieBatch;
+import io.redis.model.MovieCredits;
+import io.redis.model.MovieEvent;
 import io.redis.model.MovieQueryFilter;
-import io.redis.repository.MovieRepository;
+import io.redis.model.MovieRating;
+import io.redis.model.Suggestion;
+import io.redis.model.TrendingMovie;
+import io.redis.service.MovieRatingService;
 import io.redis.service.MovieService;
+import io.redis.service.MovieTrendingService;
+import io.redis.type.FacetENUM;
 import io.redis.type.FieldENUM;
 import io.redis.type.OperatorENUM;
 import io.redis.type.SortValueENUM;
+import io.redis.type.SuggestionTypeENUM;
 import io.redis.util.ControllerUtils;
+import io.redis.util.ProjectionUtil;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
 
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.springframework.data.domain.Sort.Direction;
@@ -27,23 +45,158 @@ import static org.springframework.data.domain.Sort.Direction;
 public class MovieController {
 
     @Autowired
-    MovieRepository repository;
+    MovieService movieService;
 
     @Autowired
-    MovieService movieService;
+    MovieTrendingService trendingService;
+
+    @Autowired
+    MovieRatingService ratingService;
 
     @Autowired
     ControllerUtils utils;
 
+    @Autowired
+    ProjectionUtil projectionUtil;
+
     /**
      * REST: 'http://localhost:8080/movie/id/278'
      * cURL: curl -X GET "http://localhost:8080/movie/id/278"
      * REDIS: JSON.GET io.redis.model.Movie:<ID>
+     * With spring.redis.movie.response.passthrough=true the stored JSON is written as is
      */
     @GetMapping("/id/{id}")
-    public Movie getMovieById(@PathVariable("id") String id) {
-        log.info("Repository Method: {}", "findById(" + id + ")");
-        return repository.findById(id).get();
+    public Object getMovieById(@PathVariable("id") String id) {
+        log.info("Service Method: {}", "getMovieById(" + id + ")");
+        return movieService.getMovieResponseById(id);
+    }
+
+    /**
+     * Cast, directors & writers of a movie, for the detail page
+     * REST: 'http://localhost:8080/movie/id/278/credits'
+     * REDIS: JSON.GET credits:io.redis.model.Movie:<ID> (spring.redis.movie.data.credits.split=true)
+     */
+    @GetMapping("/id/{id}/credits")
+    public MovieCredits getMovieCreditsById(@PathVariable("id") String id) {
+        log.info("Service Method: {}", "getMovieCreditsById(" + id + ")");
+        return movieService.getCreditsById(id);
+    }
+
+    /**
+     * Batch lookup, up to 500 (spring.redis.movie.batch.max-ids) movies in one request, in the order requested
+     * Ids which don't exist are listed under "missing"
+     * cURL: curl -X POST "http://localhost:8080/movie/ids?fields=summary" -H "Content-Type: application/json" -d '["278","238","424"]'
+     * REDIS: "JSON.MGET" "io.redis.model.Movie:278" "io.redis.model.Movie:238" "io.redis.model.Movie:424" "$"
+     * REDIS (Sparse): "JSON.GET" "io.redis.model.Movie:278" "$.id" "$.posterImage" "$.title" ... (pipelined)
+     *
+     * @param ids
+     * @param fields
+     * @return
+     */
+    @PostMapping("/ids")
+    public MovieBatch getMoviesByIds(@RequestBody List<String> ids,
+                                     @RequestParam(name = "fields", required = false) String fields) {
+        log.info("Service Method: {}", "getMoviesByIds(" + ids.size() + " ids)");
+        return movieService.getMoviesByIds(ids, projectionUtil.parseFields(fields));
+    }
+
+    /**
+     * Record a batch of view & click events (a click counts twice), events for unknown movies are rejected
+     * cURL: curl -X POST "http://localhost:8080/movie/events" -H "Content-Type: application/json" -d '[{"movieId":"278","type":"view"},{"movieId":"238","type":"click"}]'
+     * REDIS: "TOPK.INCRBY" "trending:io.redis.model.Movie:topk:<BUCKET>" "278" "1" "238" "2"
+     * REDIS: "CMS.INCRBY" "trending:io.redis.model.Movie:cms:<BUCKET>" "278" "1" "238" "2" (pipelined, also per genre)
+     *
+     * @param events
+     * @return
+     */
+    @PostMapping("/events")
+    public EventBatchResult recordEvents(@RequestBody List<MovieEvent> events) {
+        log.info("Service Method: {}", "recordEvents(" + events.size() + " events)");
+        return trendingService.ingest(events);
+    }
+
+    /**
+     * Submit a batch of ratings (0.5 - 10), voteAverage & voteCount are updated by the next write-behind flush
+     * (spring.redis.movie.ratings.flush-ms), ratings outside the range or for unknown movies are rejected
+     * cURL: curl -X POST "http://localhost:8080/movie/ratings" -H "Content-Type: application/json" -d '[{"movieId":"278","rating":9},{"movieId":"238","rating":8.5}]'
+     * REDIS: "EVAL" "<script>" "1" "io.redis.model.Movie:278" "<votes>" "<sum of ratings>" per movie (pipelined, on flush)
+     *
+     * @param ratings
+     * @return
+     */
+    @PostMapping("/ratings")
+    public EventBatchResult submitRatings(@RequestBody List<MovieRating> ratings) {
+        log.info("Service Method: {}", "submitRatings(" + ratings.size() + " ratings)");
+        return ratingService.submit(ratings);
+    }
+
+    /**
+     * Most viewed movies over the last hours (at most spring.redis.movie.trending.window-buckets buckets)
+     * REST: http://localhost:8080/movie/trending?hours=24&size=10
+     * REST: http://localhost:8080/movie/trending?genre=Drama&hours=6&fields=summary
+     * REDIS: "TOPK.LIST" "trending:io.redis.model.Movie:topk:<BUCKET>" per bucket (pipelined)
+     * REDIS: "CMS.QUERY" "trending:io.redis.model.Movie:cms:<BUCKET>" "278" "238" ... per bucket (pipelined)
+     *
+     * @param genre
+     * @param hours
+     * @param size
+     * @param fields
+     * @return
+     */
+    @GetMapping("/trending")
+    public List<TrendingMovie> getTrending(@RequestParam(name = "genre", required = false) String genre,
+                                           @RequestParam(name = "hours", required = false, defaultValue = "24") int hours,
+                                           @RequestParam(name = "size", required = false, defaultValue = "10") int size,
+                                           @RequestParam(name = "fields", required = false) String fields) {
+        return trendingService.getTrending(genre, hours, size, projectionUtil.parseFields(fields));
+    }
+
+    /**
+     * Views per genre over the last hours
+     * REST: http://localhost:8080/movie/trending/genres?hours=24
+     * REDIS: "CMS.QUERY" "trending:io.redis.model.Movie:cms:<BUCKET>:genres" "Action" "Drama" ... per bucket (pipelined)
+     *
+     * @param hours
+     * @return
+     */
+    @GetMapping("/trending/genres")
+    public List<FacetCount> getTrendingGenres(@RequestParam(name = "hours", required = false, defaultValue = "24") int hours) {
+        return trendingService.getTrendingGenres(hours);
+    }
+
+    /**
+     * Autocomplete for the search box, full search should only run once the query is submitted
+     * Titles are ranked by popularity, actors & directors by the summed popularity of their movies
+     * REST: http://localhost:8080/movie/suggest?prefix=aven&max=5
+     * REST: http://localhost:8080/movie/suggest?prefix=chris ev&types=actors,directors&fuzzy=true
+     * REDIS: "FT.SUGGET" "suggest:io.redis.model.Movie:titles" "aven" "WITHSCORES" "MAX" "5"
+     *
+     * @param prefix
+     * @param types  comma separated dictionaries (titles, actors, directors), all when omitted
+     * @param fuzzy
+     * @param max
+     * @return
+     */
+    @GetMapping("/suggest")
+    public Map<String, List<Suggestion>> suggest(@RequestParam(name = "prefix") String prefix,
+                                                 @RequestParam(name = "types", required = false) String types,
+                                                 @RequestParam(name = "fuzzy", required = false, defaultValue = "false") boolean fuzzy,
+                                                 @RequestParam(name = "max", required = false, defaultValue = "5") int max) {
+        List<SuggestionTypeENUM> typeList = new ArrayList<>();
+        if (types == null || types.isBlank()) {
+            typeList.addAll(List.of(SuggestionTypeENUM.values()));
+        } else {
+            for (String type : types.split(",")) {
+                SuggestionTypeENUM typeENUM = SuggestionTypeENUM.fromString(type.trim());
+                if (typeENUM == null) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown suggestion type '" + type.trim() + "'");
+                }
+                if (!typeList.contains(typeENUM)) {
+                    typeList.add(typeENUM);
+                }
+            }
+        }
+        return movieService.suggest(prefix, typeList, fuzzy, max);
     }
 
     /**
@@ -54,6 +207,8 @@ public class MovieController {
      * REDIS : "FT.SEARCH" "io.redis.model.MovieIdx" "@actors:{Chris Evans}" "LIMIT" "0" "20"
      * REDIS (OR): "FT.SEARCH" "io.redis.model.MovieIdx" "@actors:{ Hugo Weaving | Chris Evans}" "LIMIT" "0" "20"
      * REDIS (AND): "FT.SEARCH" "io.redis.model.MovieIdx" "@actors:{Chris Evans} @actors:{Scarlett Johansson}" "LIMIT" "0" "20"
+     * REST (Summary): http://localhost:8080/movie/actors?actors=Chris Evans&fields=summary
+     * REDIS (Summary): "FT.SEARCH" "io.redis.model.MovieIdx" "@actors:{Chris Evans}" "RETURN" "15" "$.id" "AS" "id" "$.title" "AS" "title" ...
      *
      * @param actors
      * @param page
@@ -61,19 +216,21 @@ public class MovieController {
      * @return
      */
     @GetMapping("/actors")
-    public Page<Movie> findByActors(@RequestParam(name = "actors") String actors,
-                                    @RequestParam(name = "operator", required = false) String operator,
-                                    @RequestParam(name = "page", required = false, defaultValue = "0") int page,
-                                    @RequestParam(name = "size", required = false, defaultValue = "20") int size,
-                                    @RequestParam(name = "sortBy", required = false, defaultValue = "voteAverage") String sortByField,
-                                    @RequestParam(name = "sortOrder", required = false, defaultValue = "DESC") Direction sortOrder) throws Exception {
+    public Page<?> findByActors(@RequestParam(name = "actors") String actors,
+                                @RequestParam(name = "operator", required = false) String operator,
+                                @RequestParam(name = "page", required = false, defaultValue = "0") int page,
+                                @RequestParam(name = "size", required = false, defaultValue = "20") int size,
+                                @RequestParam(name = "sortBy", required = false, defaultValue = "voteAverage") String sortByField,
+                                @RequestParam(name = "fields", required = false) String fields,
+                                @RequestParam(name = "sortOrder", required = false, defaultValue = "DESC") Direction sortOrder) throws Exception {
 
         OperatorENUM op = OperatorENUM.fromString(operator) == null
                 ? OperatorENUM.AND
                 : OperatorENUM.fromString(operator);
 
         Set<String> cast = Set.of(actors.split(","));
-        return movieService.getMoviesByCollection(cast, op, FieldENUM.ACTORS, utils.buildPageRequest(page, size, sortByField, sortOrder));
+        return movieService.getMoviesByCollection(cast, op, FieldENUM.ACTORS, utils.buildPageRequest(page, size, sortByField, sortOrder),
+                projectionUtil.parseFields(fields));
     }
 
     /**
@@ -94,12 +251,13 @@ public class MovieController {
      * @return
      */
     @GetMapping("/genre")
-    public Page<Movie> findByGenre(@RequestParam(name = "genres") String genres,
-                                   @RequestParam(name = "operator", required = false) String operator,
-                                   @RequestParam(name = "page", required = false, defaultValue = "0") int page,
-                                   @RequestParam(name = "size", required = false, defaultValue = "20") int size,
-                                   @RequestParam(name = "sortBy", required = false, defaultValue = "voteAverage") String sortByField,
-                                   @RequestParam(name = "sortOrder", required = false, defaultValue = "DESC") Direction sortOrder) throws Exception {
+    public Page<?> findByGenre(@RequestParam(name = "genres") String genres,
+                               @RequestParam(name = "operator", required = false) String operator,
+                               @RequestParam(name = "page", required = false, defaultValue = "0") int page,
+                               @RequestParam(name = "size", required = false, defaultValue = "20") int size,
+                               @RequestParam(name = "sortBy", required = false, defaultValue = "voteAverage") String sortByField,
+                               @RequestParam(name = "fields", required = false) String fields,
+                               @RequestParam(name = "sortOrder", required = false, defaultValue = "DESC") Direction sortOrder) throws Exception {
 
         // Create collection of unique elements
         Set<String> genresCollection = Set.of(genres.split(","));
@@ -113,7 +271,8 @@ public class MovieController {
                 genresCollection,
                 operatorENUM,
                 FieldENUM.GENRE,
-                utils.buildPageRequest(page, size, sortByField, sortOrder));
+                utils.buildPageRequest(page, size, sortByField, sortOrder),
+                projectionUtil.parseFields(fields));
     }
 
     /**
@@ -124,6 +283,8 @@ public class MovieController {
      * REDIS: "FT.SEARCH" "io.redis.model.MovieIdx" "Avengers" "LIMIT" "0" "20"
      * REDIS: "FT.SEARCH" "io.redis.model.MovieIdx" "The Matrix" "LIMIT" "0" "20"
      * REDIS: "FT.SEARCH" "io.redis.model.MovieIdx" "Guardians Galaxy" "LIMIT" "0" "20"
+     * REST (Sparse): http://localhost:8080/movie/search/?query=Avengers&fields=title,voteAverage
+     * REDIS (Sparse): "FT.SEARCH" "io.redis.model.MovieIdx" "Avengers" "RETURN" "6" "$.title" "AS" "title" "$.voteAverage" "AS" "voteAverage" "LIMIT" "0" "20"
      *
      * @param query
      * @param page
@@ -131,28 +292,74 @@ public class MovieController {
      * @return
      */
     @GetMapping("/search")
-    public Page<Movie> search(@RequestParam(name = "query") String query,
-                              @RequestParam(name = "page", required = false, defaultValue = "0") int page,
-                              @RequestParam(name = "size", required = false, defaultValue = "20") int size,
-                              @RequestParam(name = "sortBy", required = false, defaultValue = "popularity") String sortByField,
-                              @RequestParam(name = "sortOrder", required = false, defaultValue = "DESC") Direction sortOrder) throws UnsupportedEncodingException {
+    public Page<?> search(@RequestParam(name = "query") String query,
+                          @RequestParam(name = "page", required = false, defaultValue = "0") int page,
+                          @RequestParam(name = "size", required = false, defaultValue = "20") int size,
+                          @RequestParam(name = "sortBy", required = false, defaultValue = "popularity") String sortByField,
+                          @RequestParam(name = "fields", required = false) String fields,
+                          @RequestParam(name = "sortOrder", required = false, defaultValue = "DESC") Direction sortOrder) throws UnsupportedEncodingException {
 
-        log.info("Repository Method: {}", "search(" + query + ", pageable)");
-        return repository.search(query, utils.buildPageRequest(page, size, sortByField, sortOrder));
+        log.info("Service Method: {}", "searchMovies(" + query + ", pageable)");
+        return movieService.searchMovies(query, utils.buildPageRequest(page, size, sortByField, sortOrder),
+                projectionUtil.parseFields(fields));
     }
 
+    /**
+     * Top movies by a sortable value (rated, popular, count, budget, runtime, revenue, date), optionally per genre
+     * Served from the materialised top-N lists rebuilt on every data load (see MovieTopListService)
+     * REST: http://localhost:8080/movie/top/popular?page=0&size=20
+     * REST: http://localhost:8080/movie/top/rated?genre=Drama&fields=summary
+     * REDIS: "ZRANGE" "top:io.redis.model.Movie:popularity" "0" "19" "REV"
+     * REDIS: "JSON.MGET" "io.redis.model.Movie:299536" "io.redis.model.Movie:19995" ... "$"
+     *
+     * @param sort
+     * @param page
+     * @param size
+     * @param genre
+     * @param fields
+     * @param sortOrder
+     * @return
+     */
     @GetMapping("/top/{sort}")
-    public Page<Movie> getSortedMovies(@PathVariable(name = "sort") String sort,
-                                       @RequestParam(name = "page", required = false, defaultValue = "0") int page,
-                                       @RequestParam(name = "size", required = false, defaultValue = "20") int size,
-                                       @RequestParam(name = "sortOrder", required = false, defaultValue = "DESC") Direction sortOrder) throws UnsupportedEncodingException {
-        return repository.search("*", utils.buildPageRequest(page, size, SortValueENUM.fromString(sort).getSortValue(), sortOrder));
+    public Page<?> getSortedMovies(@PathVariable(name = "sort") String sort,
+                                   @RequestParam(name = "page", required = false, defaultValue = "0") int page,
+                                   @RequestParam(name = "size", required = false, defaultValue = "20") int size,
+                                   @RequestParam(name = "genre", required = false) String genre,
+                                   @RequestParam(name = "fields", required = false) String fields,
+                                   @RequestParam(name = "sortOrder", required = false, defaultValue = "DESC") Direction sortOrder) {
+        return movieService.getTopMovies(genre, utils.buildPageRequest(page, size, SortValueENUM.fromString(sort).getSortValue(), sortOrder),
+                projectionUtil.parseFields(fields));
+    }
+
+    /**
+     * Cursor (keyset) paginated top movies, constant cost per page however deep the client goes
+     * Pass the "nextCursor" of each page to fetch the next, the last page has no "nextCursor"
+     * REST: http://localhost:8080/movie/top/popular/cursor?size=20
+     * REST: http://localhost:8080/movie/top/popular/cursor?size=20&cursor=<nextCursor>
+     * REDIS: "FT.SEARCH" "io.redis.model.MovieIdx" "*" "SORTBY" "popularity" "DESC" "LIMIT" "0" "20"
+     * REDIS (next): "FT.SEARCH" "io.redis.model.MovieIdx" "@popularity:[-inf 152.3]" "SORTBY" "popularity" "DESC" "LIMIT" "0" "21"
+     *
+     * @param sort
+     * @param cursor
+     * @param size
+     * @param fields
+     * @param sortOrder
+     * @return
+     */
+    @GetMapping("/top/{sort}/cursor")
+    public CursorPage<Object> getSortedMoviesByCursor(@PathVariable(name = "sort") String sort,
+                                                      @RequestParam(name = "cursor", required = false) String cursor,
+                                                      @RequestParam(name = "size", required = false, defaultValue = "20") int size,
+                                                      @RequestParam(name = "fields", required = false) String fields,
+                                                      @RequestParam(name = "sortOrder", required = false, defaultValue = "DESC") Direction sortOrder) {
+        return movieService.searchMoviesAfter("*", SortValueENUM.fromString(sort).getSortValue(), sortOrder.isAscending(),
+                size, cursor, projectionUtil.parseFields(fields));
     }
 
     /**
      * Example of Delegating request to a service (MovieService)
      * REST : http://localhost:8080/movie/year/2016?page=2&size=20 (Returns 297 results)
-     * REDIS: "FT.SEARCH" "io.redis.model.MovieIdx" "@year:[2016 2016]" "LIMIT" "0" "20"
+     * REDIS: "FT.SEARCH" "io.redis.model.MovieIdx.v0" "@releaseDateUTC:[1451606400 1483228799]" "SORTBY" "voteAverage" "DESC" "LIMIT" "0" "20"
      *
      * @param year
      * @param page
@@ -160,29 +367,25 @@ public class MovieController {
      * @return
      */
     @GetMapping("/year/{year}")
-    public Page<Movie> findByYear(@PathVariable(name = "year") int year,
-                                  @RequestParam(name = "page", required = false, defaultValue = "0") int page,
-                                  @RequestParam(name = "size", required = false, defaultValue = "20") int size,
-                                  @RequestParam(name = "sortBy", required = false, defaultValue = "voteAverage") String sortByField,
-                                  @RequestParam(name = "sortOrder", required = false, defaultValue = "DESC") Direction sortOrder) {
+    public Page<?> findByYear(@PathVariable(name = "year") int year,
+                             @RequestParam(name = "page", required = false, defaultValue = "0") int page,
+                             @RequestParam(name = "size", required = false, defaultValue = "20") int size,
+                             @RequestParam(name = "sortBy", required = false, defaultValue = "voteAverage") String sortByField,
+                             @RequestParam(name = "sortOrder", required = false, defaultValue = "DESC") Direction sortOrder) {
 
         // Check int provided is a valid year
         utils.validateYear(year);
 
-        log.info("Repository Method: {}", "findByReleaseDateUTCBetween("
-                + utils.getStartOfTheYearUTC(year)
-                + ", " + utils.getEndOfTheYearUTC(year) + ")");
-
-        return repository.findByReleaseDateUTCBetween(
+        return movieService.getMoviesReleasedBetween(
                 utils.getStartOfTheYearUTC(year),
                 utils.getEndOfTheYearUTC(year),
                 utils.buildPageRequest(page, size, sortByField, sortOrder));
     }
 
     /**
-     * Example of invoking repository directly
+     * Example of delegating a range request to a service (MovieService)
      * REST : http://localhost:8080/movie/years/2000/2004?page=0&size=20 (Returns 986 results)
-     * REDIS : "FT.SEARCH" "io.redis.model.MovieIdx" "@year:[2000 2004]" "LIMIT" "0" "20"
+     * REDIS : "FT.SEARCH" "io.redis.model.MovieIdx.v0" "@releaseDateUTC:[946684800 1104537599]" "SORTBY" "voteAverage" "DESC" "LIMIT" "0" "20"
      *
      * @param gt
      * @param lt
@@ -191,22 +394,18 @@ public class MovieController {
      * @return
      */
     @GetMapping("/years/{gt}/{lt}")
-    public Page<Movie> findByYearBetween(@PathVariable("gt") int gt, @PathVariable("lt") int lt,
-                                         @RequestParam(name = "page", required = false, defaultValue = "0") int page,
-                                         @RequestParam(name = "size", required = false, defaultValue = "20") int size,
-                                         @RequestParam(name = "sortBy", required = false, defaultValue = "voteAverage") String sortByField,
-                                         @RequestParam(name = "sortOrder", required = false, defaultValue = "DESC") Direction sortOrder) {
+    public Page<?> findByYearBetween(@PathVariable("gt") int gt, @PathVariable("lt") int lt,
+                                    @RequestParam(name = "page", required = false, defaultValue = "0") int page,
+                                    @RequestParam(name = "size", required = false, defaultValue = "20") int size,
+                                    @RequestParam(name = "sortBy", required = false, defaultValue = "voteAverage") String sortByField,
+                                    @RequestParam(name = "sortOrder", required = false, defaultValue = "DESC") Direction sortOrder) {
 
         // Check int provided is a valid year
         utils.validateYear(gt);
         utils.validateYear(lt);
 
-        log.info("Repository Method: {}", "findByReleaseDateUTCBetween("
-                + utils.getStartOfTheYearUTC(gt)
-                + ", " + utils.getEndOfTheYearUTC(lt) + ")");
-
         // Return a paged response Sorted by VoteAverage
-        return repository.findByReleaseDateUTCBetween(
+        return movieService.getMoviesReleasedBetween(
                 utils.getStartOfTheYearUTC(gt),
                 utils.getEndOfTheYearUTC(lt),
                 utils.buildPageRequest(page, size, sortByField, sortOrder));
@@ -238,12 +437,86 @@ public class MovieController {
      * @genre:{Action|Sci\\-Fi} @rating:[7 9] @year:[2005 inf]" "LIMIT" "0" "20"
      */
     @PostMapping("/advanced/search")
-    public Page<Movie> advancedSearch(@RequestBody MovieQueryFilter movieQueryFilter,
-                                      @RequestParam(name = "page", required = false, defaultValue = "0") int page,
-                                      @RequestParam(name = "size", required = false, defaultValue = "20") int size,
-                                      @RequestParam(name = "sortBy", required = false, defaultValue = "popularity") String sortByField,
-                                      @RequestParam(name = "sortOrder", required = false, defaultValue = "DESC") Direction sortOrder) {
-        return movieService.getMoviesByAdvancedSearch(movieQueryFilter, utils.buildPageRequest(page, size, sortByField, sortOrder));
+    public Page<?> advancedSearch(@RequestBody MovieQueryFilter movieQueryFilter,
+                                  @RequestParam(name = "page", required = false, defaultValue = "0") int page,
+                                  @RequestParam(name = "size", required = false, defaultValue = "20") int size,
+                                  @RequestParam(name = "sortBy", required = false, defaultValue = "popularity") String sortByField,
+                                  @RequestParam(name = "fields", required = false) String fields,
+                                  @RequestParam(name = "sortOrder", required = false, defaultValue = "DESC") Direction sortOrder) {
+        return movieService.getMoviesByAdvancedSearch(movieQueryFilter, utils.buildPageRequest(page, size, sortByField, sortOrder),
+                projectionUtil.parseFields(fields));
+    }
+
+    /**
+     * Advanced search with facet counts, see /advanced/search for the filter body
+     * Returns the page of hits plus the number of matching movies per genre, decade, language & the top directors
+     * REST : http://localhost:8080/movie/advanced/search/facets?page=0&size=20&facets=genres,decades&facetSize=10
+     * REDIS : "FT.SEARCH" "io.redis.model.MovieIdx" "@genres:{Action}" "SORTBY" "popularity" "DESC" "LIMIT" "0" "20"
+     * REDIS : "FT.AGGREGATE" "io.redis.model.MovieIdx" "@genres:{Action}" ... "GROUPBY" "1" "@genres" "REDUCE" "COUNT" "0" "AS" "count"
+     *
+     * @param movieQueryFilter
+     * @param page
+     * @param size
+     * @param sortByField
+     * @param fields
+     * @param facets    comma separated facets (genres, decades, language, directors), all when omitted
+     * @param facetSize
+     * @param sortOrder
+     * @return
+     */
+    @PostMapping("/advanced/search/facets")
+    public FacetedPage<Object> advancedSearchWithFacets(@RequestBody MovieQueryFilter movieQueryFilter,
+                                                        @RequestParam(name = "page", required = false, defaultValue = "0") int page,
+                                                        @RequestParam(name = "size", required = false, defaultValue = "20") int size,
+                                                        @RequestParam(name = "sortBy", required = false, defaultValue = "popularity") String sortByField,
+                                                        @RequestParam(name = "fields", required = false) String fields,
+                                                        @RequestParam(name = "facets", required = false) String facets,
+                                                        @RequestParam(name = "facetSize", required = false, defaultValue = "10") int facetSize,
+                                                        @RequestParam(name = "sortOrder", required = false, defaultValue = "DESC") Direction sortOrder) {
+        List<FacetENUM> facetList = new ArrayList<>();
+        if (facets == null || facets.isBlank()) {
+            facetList.addAll(List.of(FacetENUM.values()));
+        } else {
+            for (String facet : facets.split(",")) {
+                FacetENUM facetENUM = FacetENUM.fromString(facet.trim());
+                if (facetENUM == null) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown facet '" + facet.trim() + "'");
+                }
+                if (!facetList.contains(facetENUM)) {
+                    facetList.add(facetENUM);
+                }
+            }
+        }
+
+        return movieService.getMoviesByAdvancedSearchWithFacets(movieQueryFilter,
+                utils.buildPageRequest(page, size, sortByField, sortOrder), projectionUtil.parseFields(fields),
+                facetList, facetSize);
+    }
+
+    /**
+     * Cursor (keyset) paginated advanced search, see /advanced/search for the filter body
+     * sortBy is one of the sortable values of /top/{sort} i.e. popular, rated, count, budget, runtime, revenue, date
+     * REST : http://localhost:8080/movie/advanced/search/cursor?size=20&sortBy=popular&cursor=<nextCursor>
+     * REDIS : "FT.SEARCH" "io.redis.model.MovieIdx" "(@genres:{Action} @voteAverage:[7.0 inf]) @popularity:[-inf 152.3]"
+     *      "SORTBY" "popularity" "DESC" "LIMIT" "0" "21"
+     *
+     * @param movieQueryFilter
+     * @param cursor
+     * @param size
+     * @param sortBy
+     * @param fields
+     * @param sortOrder
+     * @return
+     */
+    @PostMapping("/advanced/search/cursor")
+    public CursorPage<Object> advancedSearchByCursor(@RequestBody MovieQueryFilter movieQueryFilter,
+                                                     @RequestParam(name = "cursor", required = false) String cursor,
+                                                     @RequestParam(name = "size", required = false, defaultValue = "20") int size,
+                                                     @RequestParam(name = "sortBy", required = false, defaultValue = "popular") String sortBy,
+                                                     @RequestParam(name = "fields", required = false) String fields,
+                                                     @RequestParam(name = "sortOrder", required = false, defaultValue = "DESC") Direction sortOrder) {
+        return movieService.getMoviesByAdvancedSearchAfter(movieQueryFilter, SortValueENUM.fromString(sortBy).getSortValue(),
+                sortOrder.isAscending(), size, cursor, projectionUtil.parseFields(fields));
     }
 
 }
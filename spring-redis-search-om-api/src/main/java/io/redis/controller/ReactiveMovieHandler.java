@@ -0,0 +1,79 @@
+package io.redis.controller;
+
+import io.redis.model.MovieQueryFilter;
+import io.redis.service.ReactiveMovieService;
+import io.redis.util.ControllerUtils;
+import io.redis.util.ProjectionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Functional WebFlux handlers for the "reactive" profile, same parameters & responses as MovieController
+ */
+@Slf4j
+@Profile("reactive")
+@Component
+public class ReactiveMovieHandler {
+
+    @Autowired
+    ReactiveMovieService movieService;
+
+    @Autowired
+    ControllerUtils utils;
+
+    @Autowired
+    ProjectionUtil projectionUtil;
+
+    /**
+     * REST: 'http://localhost:8080/movie/id/278'
+     * REDIS: JSON.GET io.redis.model.Movie:<ID>
+     */
+    public Mono<ServerResponse> getMovieById(ServerRequest request) {
+        String id = request.pathVariable("id");
+        return movieService.getMovieById(id)
+                .flatMap(movie -> ServerResponse.ok().bodyValue(movie))
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    /**
+     * REST: http://localhost:8080/movie/search/?page=0&size=20&query=Avengers
+     * REDIS: "FT.SEARCH" "io.redis.model.MovieIdx" "Avengers" "SORTBY" "popularity" "DESC" "LIMIT" "0" "20"
+     */
+    public Mono<ServerResponse> search(ServerRequest request) {
+        String query = request.queryParam("query")
+                .orElseThrow(() -> new ServerWebInputException("Required request parameter 'query' is not present"));
+        return movieService.searchMovies(query, pageRequest(request), projectionUtil.parseFields(request.queryParam("fields").orElse(null)))
+                .flatMap(page -> ServerResponse.ok().bodyValue(page));
+    }
+
+    /**
+     * REST : http://localhost:8080/movie/advanced/search?page=0&size=20 (see MovieController.advancedSearch)
+     */
+    public Mono<ServerResponse> advancedSearch(ServerRequest request) {
+        PageRequest pageRequest = pageRequest(request);
+        return request.bodyToMono(MovieQueryFilter.class)
+                .flatMap(filter -> movieService.getMoviesByAdvancedSearch(filter, pageRequest,
+                        projectionUtil.parseFields(request.queryParam("fields").orElse(null))))
+                .flatMap(page -> ServerResponse.ok().bodyValue(page));
+    }
+
+    private PageRequest pageRequest(ServerRequest request) {
+        try {
+            return utils.buildPageRequest(
+                    Integer.parseInt(request.queryParam("page").orElse("0")),
+                    Integer.parseInt(request.queryParam("size").orElse("20")),
+                    request.queryParam("sortBy").orElse("popularity"),
+                    Direction.fromString(request.queryParam("sortOrder").orElse("DESC")));
+        } catch (IllegalArgumentException e) {
+            throw new ServerWebInputException(e.getMessage());
+        }
+    }
+}
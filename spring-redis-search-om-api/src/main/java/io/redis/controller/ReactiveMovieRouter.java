@@ -0,0 +1,28 @@
+package io.redis.controller;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * Routes served without blocking under the "reactive" profile
+ * WebFlux consults router functions before annotated controllers, so these take over the same paths of
+ * MovieController while its remaining endpoints are still served by the annotated controllers, on bounded elastic
+ * threads rather than the event loop (see ReactiveBlockingFilter).
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveMovieRouter {
+
+    @Bean
+    public RouterFunction<ServerResponse> reactiveMovieRoutes(ReactiveMovieHandler handler) {
+        return RouterFunctions.route()
+                .GET("/movie/id/{id}", handler::getMovieById)
+                .GET("/movie/search", handler::search)
+                .POST("/movie/advanced/search", handler::advancedSearch)
+                .build();
+    }
+}
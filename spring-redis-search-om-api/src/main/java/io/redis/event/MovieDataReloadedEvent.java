@@ -0,0 +1,19 @@
+package io.redis.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published once movie documents have been (re)loaded, deleted or the active index generation has changed,
+ * anything derived from the movie data (i.e. cached search results) should be discarded
+ */
+@Getter
+public class MovieDataReloadedEvent extends ApplicationEvent {
+
+    private final String keyPrefix;
+
+    public MovieDataReloadedEvent(Object source, String keyPrefix) {
+        super(source);
+        this.keyPrefix = keyPrefix;
+    }
+}
@@ -0,0 +1,23 @@
+package io.redis.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+/**
+ * Published by MovieRatingService after a flush changed the vote average & count of some movies, search results
+ * cached before the flush may still carry the old values (or sort the movies in the old order)
+ */
+@Getter
+public class MovieRatingsFlushedEvent extends ApplicationEvent {
+
+    private final String keyPrefix;
+    private final List<String> ids;
+
+    public MovieRatingsFlushedEvent(Object source, String keyPrefix, List<String> ids) {
+        super(source);
+        this.keyPrefix = keyPrefix;
+        this.ids = ids;
+    }
+}
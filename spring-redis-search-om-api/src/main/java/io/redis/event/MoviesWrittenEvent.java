@@ -0,0 +1,25 @@
+package io.redis.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+/**
+ * Published by the loaders after a batch of movies has been written, carrying the value of the keyspace's write
+ * counter after the batch (see MovieBulkLoader.writesKey) so listeners can tell whether they have seen every write
+ */
+@Getter
+public class MoviesWrittenEvent extends ApplicationEvent {
+
+    private final String keyPrefix;
+    private final List<String> ids;
+    private final long writes;
+
+    public MoviesWrittenEvent(Object source, String keyPrefix, List<String> ids, long writes) {
+        super(source);
+        this.keyPrefix = keyPrefix;
+        this.ids = ids;
+        this.writes = writes;
+    }
+}
@@ -0,0 +1,28 @@
+package io.redis.model;
+
+import com.google.common.cache.CacheStats;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class CacheMetrics {
+
+    private String name;
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long evictionCount;
+
+    public static CacheMetrics of(String name, long size, CacheStats stats) {
+        CacheMetrics metrics = new CacheMetrics();
+        metrics.setName(name);
+        metrics.setSize(size);
+        metrics.setHitCount(stats.hitCount());
+        metrics.setMissCount(stats.missCount());
+        metrics.setHitRate(stats.hitRate());
+        metrics.setEvictionCount(stats.evictionCount());
+        return metrics;
+    }
+}
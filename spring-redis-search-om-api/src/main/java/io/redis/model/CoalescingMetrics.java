@@ -0,0 +1,25 @@
+package io.redis.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class CoalescingMetrics {
+
+    private String name;
+    private long issued;
+    private long coalesced;
+    private double coalescedRate;
+    private int inFlight;
+
+    public static CoalescingMetrics of(String name, long issued, long coalesced, int inFlight) {
+        CoalescingMetrics metrics = new CoalescingMetrics();
+        metrics.setName(name);
+        metrics.setIssued(issued);
+        metrics.setCoalesced(coalesced);
+        metrics.setCoalescedRate(issued + coalesced == 0 ? 0 : (double) coalesced / (issued + coalesced));
+        metrics.setInFlight(inFlight);
+        return metrics;
+    }
+}
@@ -4,11 +4,12 @@ import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
 import com.redis.om.spring.annotations.Document;
 import com.redis.om.spring.annotations.Searchable;
-import io.redis.serialisation.GenderDeserialiser;
+import io.redis.serialisation.CrewMemberTypeAdapter;
 import io.redis.type.GenderENUM;
 import lombok.Data;
 
 @Data
+@JsonAdapter(CrewMemberTypeAdapter.class)
 public class CrewMember {
 
     String id;
@@ -17,7 +18,6 @@ public class CrewMember {
     @Searchable(weight = 3.0)
     String name;
 
-    @JsonAdapter(GenderDeserialiser.class)
     GenderENUM gender;
 
     @SerializedName(value = "profileImage", alternate = "profile_path")
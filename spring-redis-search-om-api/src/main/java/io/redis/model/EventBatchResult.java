@@ -0,0 +1,14 @@
+package io.redis.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventBatchResult {
+
+    private long accepted;
+    private long rejected;
+}
@@ -0,0 +1,18 @@
+package io.redis.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class IdFilterMetrics {
+
+    private boolean ready;
+    private String keyPrefix;
+    private long ids;
+    private double expectedFpp;
+    private long rejected;
+    private long passed;
+    private long falsePositives;
+    private double falsePositiveRate;
+}
@@ -0,0 +1,24 @@
+package io.redis.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Memory of an index as reported by FT.INFO, in MB
+ */
+@Data
+@NoArgsConstructor
+public class IndexMemory {
+
+    private String profile;
+    private String indexName;
+    private boolean live;
+    private long numDocs;
+    private double percentIndexed;
+    private double invertedSizeMb;
+    private double offsetVectorsSizeMb;
+    private double sortableValuesSizeMb;
+    private double docTableSizeMb;
+    private double keyTableSizeMb;
+    private double totalSizeMb;
+}
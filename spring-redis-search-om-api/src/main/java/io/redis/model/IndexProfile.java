@@ -0,0 +1,29 @@
+package io.redis.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Which index fields (aliases i.e. "genres", "voteAverage", "directorList_name") a profile builds
+ * - filterable: indexed so queries can match on them
+ * - sortable: also kept in the sorting vector (SORTBY / aggregations without LOAD), implies indexed
+ * Every other field is return-only, still in the JSON document but not indexed
+ */
+@Data
+@NoArgsConstructor
+public class IndexProfile {
+
+    private List<String> filterable = new ArrayList<>();
+    private List<String> sortable = new ArrayList<>();
+
+    public boolean isIndexed(String field) {
+        return filterable.contains(field) || sortable.contains(field);
+    }
+
+    public boolean isSortable(String field) {
+        return sortable.contains(field);
+    }
+}
@@ -0,0 +1,25 @@
+package io.redis.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class InternerMetrics {
+
+    private String name;
+    private long unique;
+    private long total;
+    private long deduplicated;
+    private double deduplicatedRate;
+
+    public static InternerMetrics of(String name, long unique, long total, long deduplicated) {
+        InternerMetrics metrics = new InternerMetrics();
+        metrics.setName(name);
+        metrics.setUnique(unique);
+        metrics.setTotal(total);
+        metrics.setDeduplicated(deduplicated);
+        metrics.setDeduplicatedRate(total == 0 ? 0 : (double) deduplicated / total);
+        return metrics;
+    }
+}
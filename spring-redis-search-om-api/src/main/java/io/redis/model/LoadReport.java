@@ -0,0 +1,19 @@
+package io.redis.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class LoadReport {
+
+    private long documents;
+    private long written;
+    private long skipped;
+    private long deleted;
+    private long failed;
+    private long elapsedMillis;
+    private double documentsPerSecond;
+    private long peakHeapMb;
+
+}
@@ -1,7 +1,9 @@
 package io.redis.model;
 
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
 import com.redis.om.spring.annotations.*;
+import io.redis.serialisation.MovieTypeAdapter;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -14,6 +16,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document
+@JsonAdapter(MovieTypeAdapter.class)
 public class Movie {
 
     @Id
@@ -0,0 +1,16 @@
+package io.redis.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class MovieBatch {
+
+    private List<Object> content;
+    private int size;
+    private List<String> missing;
+
+}
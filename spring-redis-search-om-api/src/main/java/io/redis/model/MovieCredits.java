@@ -0,0 +1,26 @@
+package io.redis.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A movie's cast & crew, stored alongside the movie in the split credits layout (see MovieCreditsRepository)
+ */
+@Data
+@NoArgsConstructor
+public class MovieCredits {
+
+    private List<CastMember> castList;
+    private List<CrewMember> directorList;
+    private List<CrewMember> writerList;
+
+    public static MovieCredits of(Movie movie) {
+        MovieCredits credits = new MovieCredits();
+        credits.setCastList(movie.getCastList());
+        credits.setDirectorList(movie.getDirectorList());
+        credits.setWriterList(movie.getWriterList());
+        return credits;
+    }
+}
@@ -0,0 +1,12 @@
+package io.redis.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class MovieEvent {
+
+    private String movieId;
+    private String type;
+}
@@ -0,0 +1,12 @@
+package io.redis.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class MovieRating {
+
+    private String movieId;
+    private double rating;
+}
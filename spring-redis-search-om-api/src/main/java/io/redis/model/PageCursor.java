@@ -0,0 +1,20 @@
+package io.redis.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Position of a keyset paginated search, handed to clients as an opaque token
+ * The sort value & id of the last movie returned, ties on the sort value are ordered by id
+ */
+@Data
+@NoArgsConstructor
+public class PageCursor {
+
+    private String sortBy;
+    private boolean ascending;
+    private String queryHash;
+    private double value;
+    private String lastId;
+
+}
@@ -0,0 +1,18 @@
+package io.redis.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class RatingMetrics {
+
+    private long pendingMovies;
+    private long accepted;
+    private long rejected;
+    private long flushes;
+    private long moviesUpdated;
+    private long votesWritten;
+    private long votesDropped;
+    private long lastFlushMillis;
+}
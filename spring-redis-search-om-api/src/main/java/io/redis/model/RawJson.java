@@ -0,0 +1,15 @@
+package io.redis.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A JSON document exactly as stored in Redis, written to the response as is (see RawJsonHttpMessageConverter)
+ */
+@Getter
+@AllArgsConstructor
+public class RawJson {
+
+    private final byte[] json;
+
+}
@@ -0,0 +1,17 @@
+package io.redis.model;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * A page of JSON documents exactly as stored in Redis, written to the response with the same envelope as a
+ * serialised Page (content, totalElements, totalPages, number, size ...) by RawJsonHttpMessageConverter
+ */
+public class RawJsonPage extends PageImpl<byte[]> {
+
+    public RawJsonPage(List<byte[]> content, Pageable pageable, long total) {
+        super(content, pageable, total);
+    }
+}
@@ -0,0 +1,25 @@
+package io.redis.model;
+
+import io.redis.type.ReindexStateENUM;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+public class ReindexStatus {
+
+    private ReindexStateENUM state = ReindexStateENUM.IDLE;
+    private int fromGeneration;
+    private int toGeneration;
+    private String indexName;
+    private String profile;
+    private long documentsIndexed;
+    private double percentIndexed;
+    private LoadReport loadReport;
+    private String message;
+    private Instant startedAt;
+    private Instant finishedAt;
+
+}
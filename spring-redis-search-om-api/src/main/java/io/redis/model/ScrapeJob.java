@@ -0,0 +1,26 @@
+package io.redis.model;
+
+import io.redis.type.ScrapeJobStateENUM;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class ScrapeJob {
+
+    private String id;
+    private ScrapeJobStateENUM state = ScrapeJobStateENUM.RUNNING;
+    private int requestedMovies;
+    private int totalPages;
+    private int pagesCompleted;
+    private long moviesWritten;
+    private List<Integer> failedPages = List.of();
+    private String file;
+    private String message;
+    private Instant startedAt;
+    private Instant finishedAt;
+
+}
@@ -0,0 +1,17 @@
+package io.redis.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingMovie {
+
+    // Movie, or a map of the requested fields
+    private Object movie;
+
+    // Weighted views & clicks within the window (count-min sketch estimate, never under counts)
+    private long score;
+}
@@ -0,0 +1,41 @@
+package io.redis.query;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Documents matching every child i.e. "@actors:{Chris Evans} @actors:{Scarlett Johansson} @budget:[50000000 inf]"
+ */
+@Getter
+public class IntersectNode implements QueryNode {
+
+    private final List<QueryNode> children;
+
+    public IntersectNode(List<QueryNode> children) {
+        this.children = children.stream()
+                .filter(c -> c != null && !c.isEmpty())
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    @Override
+    public void render(StringBuilder sb) {
+        for (int i = 0; i < children.size(); i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            children.get(i).render(sb);
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return children.isEmpty();
+    }
+
+    @Override
+    public boolean isCompound() {
+        return children.size() > 1;
+    }
+}
@@ -0,0 +1,34 @@
+package io.redis.query;
+
+import lombok.Getter;
+
+/**
+ * Exclude documents matching the child i.e. "-@genres:{Action|Adventure}"
+ * Compound children are grouped so the whole child is negated i.e. "-(@genres:{Action} @genres:{Adventure})"
+ */
+@Getter
+public class NegationNode implements QueryNode {
+
+    private final QueryNode child;
+
+    public NegationNode(QueryNode child) {
+        this.child = child;
+    }
+
+    @Override
+    public void render(StringBuilder sb) {
+        sb.append('-');
+        if (child.isCompound()) {
+            sb.append('(');
+            child.render(sb);
+            sb.append(')');
+        } else {
+            child.render(sb);
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return child.isEmpty();
+    }
+}
@@ -0,0 +1,47 @@
+package io.redis.query;
+
+import lombok.Getter;
+
+/**
+ * Inclusive numeric range, a null bound is open i.e.
+ * - [4, null]    -> "@voteAverage:[4 inf]"
+ * - [null, 300]  -> "@runtime:[-inf 300]"
+ * - [2014, 2014] -> "@year:[2014 2014]"
+ */
+@Getter
+public class NumericRangeNode implements QueryNode {
+
+    private final String field;
+    private final Number min;
+    private final Number max;
+
+    public NumericRangeNode(String field, Number min, Number max) {
+        this.field = field;
+        this.min = min;
+        this.max = max;
+    }
+
+    @Override
+    public void render(StringBuilder sb) {
+        sb.append('@').append(field).append(":[");
+        appendBound(min, "-inf", sb);
+        sb.append(' ');
+        appendBound(max, "inf", sb);
+        sb.append(']');
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return min == null && max == null;
+    }
+
+    private void appendBound(Number bound, String open, StringBuilder sb) {
+        if (bound == null) {
+            sb.append(open);
+        } else if (bound instanceof Double || bound instanceof Float) {
+            sb.append(bound.doubleValue());
+        } else {
+            sb.append(bound.longValue());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package io.redis.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Fluent factory & renderer for query nodes i.e.
+ * Query.render(Query.and(Query.text("Avengers"), Query.tag("genres", List.of("Action")), Query.atLeast("budget", 50000000)))
+ * -> "Avengers @genres:{Action} @budget:[50000000 inf]"
+ */
+public final class Query {
+
+    public static final String MATCH_ALL = "*";
+
+    private static final int MAX_RETAINED_CAPACITY = 8 * 1024;
+
+    // Render buffer reused by each request thread
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private Query() {
+    }
+
+    public static TagNode tag(String field, Collection<String> values) {
+        return new TagNode(field, values);
+    }
+
+    /**
+     * One tag filter per value, every value must match i.e. "@actors:{Chris Evans} @actors:{Scarlett Johansson}"
+     *
+     * @param field
+     * @param values
+     * @return
+     */
+    public static IntersectNode allTags(String field, Collection<String> values) {
+        List<QueryNode> nodes = new ArrayList<>();
+        new TagNode(field, values).getValues().forEach(v -> nodes.add(new TagNode(field, List.of(v))));
+        return new IntersectNode(nodes);
+    }
+
+    public static TextNode text(String terms) {
+        return new TextNode(null, terms == null ? List.of() : List.of(terms));
+    }
+
+    public static TextNode text(String field, Collection<String> terms) {
+        return new TextNode(field, terms);
+    }
+
+    public static NumericRangeNode range(String field, Number min, Number max) {
+        return new NumericRangeNode(field, min, max);
+    }
+
+    public static NumericRangeNode atLeast(String field, Number min) {
+        return new NumericRangeNode(field, min, null);
+    }
+
+    public static NumericRangeNode atMost(String field, Number max) {
+        return new NumericRangeNode(field, null, max);
+    }
+
+    public static NegationNode not(QueryNode node) {
+        return new NegationNode(node);
+    }
+
+    public static IntersectNode and(QueryNode... nodes) {
+        return new IntersectNode(Arrays.asList(nodes));
+    }
+
+    public static IntersectNode and(List<QueryNode> nodes) {
+        return new IntersectNode(nodes);
+    }
+
+    /**
+     * Render the query, an empty query matches every document ("*")
+     *
+     * @param node
+     * @return
+     */
+    public static String render(QueryNode node) {
+        if (node == null || node.isEmpty()) {
+            return MATCH_ALL;
+        }
+
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        node.render(sb);
+        String query = sb.toString();
+
+        // Don't pin an oversized buffer to the thread
+        if (sb.capacity() > MAX_RETAINED_CAPACITY) {
+            BUFFER.remove();
+        }
+        return query;
+    }
+}
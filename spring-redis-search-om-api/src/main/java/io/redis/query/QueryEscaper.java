@@ -0,0 +1,31 @@
+package io.redis.query;
+
+/**
+ * The single escaping policy for tag values placed in a query (text terms are passed through, see TextNode)
+ * RediSearch treats punctuation as token separators / operators, each one is prefixed with a backslash
+ * i.e. "Sci-Fi" -> "Sci\-Fi", "Robert Downey Jr." -> "Robert Downey Jr\."
+ * Spaces are left as is, they're significant within tag values i.e. "@actors:{Chris Evans}"
+ */
+public final class QueryEscaper {
+
+    private static final String SPECIAL_CHARACTERS = ",.<>{}[]\"':;!@#$%^&*()-+=~|/\\";
+
+    private QueryEscaper() {
+    }
+
+    public static void escape(CharSequence value, StringBuilder sb) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (SPECIAL_CHARACTERS.indexOf(c) >= 0) {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+    }
+
+    public static String escape(CharSequence value) {
+        StringBuilder sb = new StringBuilder(value.length() + 8);
+        escape(value, sb);
+        return sb.toString();
+    }
+}
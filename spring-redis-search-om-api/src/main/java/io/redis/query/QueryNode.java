@@ -0,0 +1,32 @@
+package io.redis.query;
+
+/**
+ * Node of a RediSearch query, rendered in a single pass into a shared buffer
+ */
+public interface QueryNode {
+
+    /**
+     * Append this node's query syntax to the buffer
+     *
+     * @param sb
+     */
+    void render(StringBuilder sb);
+
+    /**
+     * Empty nodes (i.e. a tag filter without values) render nothing & are skipped by their parent
+     *
+     * @return
+     */
+    default boolean isEmpty() {
+        return false;
+    }
+
+    /**
+     * Compound nodes render several space separated clauses, so must be grouped when negated i.e. "-(A B)"
+     *
+     * @return
+     */
+    default boolean isCompound() {
+        return false;
+    }
+}
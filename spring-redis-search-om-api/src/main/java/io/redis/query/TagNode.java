@@ -0,0 +1,46 @@
+package io.redis.query;
+
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Match any of the tag values i.e. "@genres:{Action|Sci\-Fi}"
+ * Values are trimmed, de-duplicated & sorted so the same filter always renders the same query
+ */
+@Getter
+public class TagNode implements QueryNode {
+
+    private final String field;
+    private final List<String> values;
+
+    public TagNode(String field, Collection<String> values) {
+        this.field = field;
+        this.values = values.stream()
+                .filter(StringUtils::isNotBlank)
+                .map(String::trim)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    @Override
+    public void render(StringBuilder sb) {
+        sb.append('@').append(field).append(":{");
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                sb.append('|');
+            }
+            QueryEscaper.escape(values.get(i), sb);
+        }
+        sb.append('}');
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+}
@@ -0,0 +1,64 @@
+package io.redis.query;
+
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Full text match of any of the terms, either on one field i.e. "@title:(Matrix|Avengers)"
+ * or across every TEXT field when no field is given i.e. "Guardians Galaxy"
+ * Terms are passed through as given, not escaped: the index splits text on punctuation so an escaped "spider\-man"
+ * would never match, and the free text query may carry RediSearch syntax of its own i.e. "matrix -reloaded"
+ */
+@Getter
+public class TextNode implements QueryNode {
+
+    private final String field;
+    private final List<String> terms;
+
+    public TextNode(String field, Collection<String> terms) {
+        this.field = field;
+        this.terms = terms.stream()
+                .filter(StringUtils::isNotBlank)
+                .map(String::trim)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    @Override
+    public void render(StringBuilder sb) {
+        if (field == null) {
+            for (int i = 0; i < terms.size(); i++) {
+                if (i > 0) {
+                    sb.append(' ');
+                }
+                sb.append(terms.get(i));
+            }
+            return;
+        }
+
+        sb.append('@').append(field).append(":(");
+        for (int i = 0; i < terms.size(); i++) {
+            if (i > 0) {
+                sb.append('|');
+            }
+            sb.append(terms.get(i));
+        }
+        sb.append(')');
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return terms.isEmpty();
+    }
+
+    @Override
+    public boolean isCompound() {
+        // Without a field every word is a separate clause
+        return field == null && (terms.size() > 1 || terms.stream().anyMatch(StringUtils::containsWhitespace));
+    }
+}
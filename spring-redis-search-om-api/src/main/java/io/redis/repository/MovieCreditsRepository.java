@@ -0,0 +1,292 @@
+package io.redis.repository;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.redis.model.Movie;
+import io.redis.model.MovieCredits;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.json.JsonProtocol;
+import redis.clients.jedis.json.Path2;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.resps.ScanResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Split credits layout (spring.redis.movie.data.credits.split=true)
+ * The heavy castList, directorList & writerList are only needed for the movie detail page, so rather than being
+ * embedded in the indexed movie document (& read, parsed and returned with every search hit) they are kept in a
+ * companion document per movie, outside the index prefix:
+ * - "io.redis.model.Movie:278" : the movie, searchable fields plus the flat actors/directors/writers tags
+ * - "credits:io.redis.model.Movie:278" : {"castList": [...], "directorList": [...], "writerList": [...]}
+ * Credits are loaded lazily, only for get-by-id & /movie/id/{id}/credits.
+ * NOTE: the nested directorList_name TEXT field has nothing to index in this layout.
+ */
+@Slf4j
+@Repository
+public class MovieCreditsRepository {
+
+    private static final String CREDITS_PREFIX = "credits:";
+
+    private static final String[] CREDIT_PATHS = {"$.castList", "$.directorList", "$.writerList"};
+
+    @Autowired
+    JedisPooled jedis;
+
+    @Autowired
+    Gson gson;
+
+    @Value("${spring.redis.movie.data.credits.split:false}")
+    private boolean split;
+
+    @Value("${spring.redis.movie.data.loader.batch-size:500}")
+    private int batchSize;
+
+    public boolean isSplit() {
+        return split;
+    }
+
+    /**
+     * Redis key of the credits of a movie i.e. "credits:io.redis.model.Movie:278"
+     *
+     * @param movieKey
+     * @return
+     */
+    public static String keyFor(String movieKey) {
+        return CREDITS_PREFIX + movieKey;
+    }
+
+    /**
+     * Remove the credits from the movie, so they aren't written into the movie document
+     *
+     * @param movie
+     * @return the removed credits
+     */
+    public static MovieCredits detach(Movie movie) {
+        MovieCredits credits = MovieCredits.of(movie);
+        movie.setCastList(null);
+        movie.setDirectorList(null);
+        movie.setWriterList(null);
+        return credits;
+    }
+
+    public static Movie attach(Movie movie, MovieCredits credits) {
+        movie.setCastList(credits.getCastList());
+        movie.setDirectorList(credits.getDirectorList());
+        movie.setWriterList(credits.getWriterList());
+        return movie;
+    }
+
+    /**
+     * Queue the writes of a movie in the configured layout
+     * REDIS: "JSON.SET" "io.redis.model.Movie:278" "$" "{...}" (& "JSON.SET" "credits:io.redis.model.Movie:278" "$" "{...}")
+     *
+     * @param pipeline
+     * @param movieKey
+     * @param movie    left without credits in the split layout
+     */
+    public void write(Pipeline pipeline, String movieKey, Movie movie) {
+        this.write(pipeline, movieKey, movie, split ? null : gson.toJson(movie));
+    }
+
+    /**
+     * Queue the writes of a movie already serialised as a whole
+     *
+     * @param pipeline
+     * @param movieKey
+     * @param movie
+     * @param json     the whole movie, written as is in the embedded layout
+     */
+    public void write(Pipeline pipeline, String movieKey, Movie movie, String json) {
+        if (!split) {
+            pipeline.jsonSet(movieKey, Path2.ROOT_PATH, json);
+            return;
+        }
+        MovieCredits credits = detach(movie);
+        pipeline.jsonSet(movieKey, Path2.ROOT_PATH, gson.toJson(movie));
+        pipeline.jsonSet(keyFor(movieKey), Path2.ROOT_PATH, gson.toJson(credits));
+    }
+
+    /**
+     * Write the credits document of a movie
+     * REDIS: "JSON.SET" "credits:io.redis.model.Movie:278" "$" "{...}"
+     *
+     * @param movieKey
+     * @param credits
+     */
+    public void save(String movieKey, MovieCredits credits) {
+        jedis.jsonSet(keyFor(movieKey), Path2.ROOT_PATH, gson.toJson(credits));
+    }
+
+    /**
+     * Get a movie with its credits, both documents are read in one round trip
+     * REDIS: "JSON.GET" "io.redis.model.Movie:278" & "JSON.GET" "credits:io.redis.model.Movie:278"
+     *
+     * @param movieKey
+     * @return null when the movie doesn't exist
+     */
+    public Movie getWithCredits(String movieKey) {
+        Response<Object> movieResponse;
+        Response<Object> creditsResponse;
+        try (Connection connection = jedis.getPool().getResource()) {
+            Pipeline pipeline = new Pipeline(connection);
+            movieResponse = pipeline.sendCommand(JsonProtocol.JsonCommand.GET, movieKey);
+            creditsResponse = pipeline.sendCommand(JsonProtocol.JsonCommand.GET, keyFor(movieKey));
+            pipeline.sync();
+        }
+
+        if (movieResponse.get() == null) {
+            return null;
+        }
+        Movie movie = gson.fromJson(new String((byte[]) movieResponse.get(), StandardCharsets.UTF_8), Movie.class);
+        if (creditsResponse.get() != null) {
+            attach(movie, gson.fromJson(new String((byte[]) creditsResponse.get(), StandardCharsets.UTF_8), MovieCredits.class));
+        }
+        return movie;
+    }
+
+    /**
+     * Get the credits document of a movie
+     * REDIS: "JSON.GET" "credits:io.redis.model.Movie:278"
+     *
+     * @param movieKey
+     * @return
+     */
+    public Optional<MovieCredits> get(String movieKey) {
+        Object reply = jedis.sendCommand(JsonProtocol.JsonCommand.GET, keyFor(movieKey));
+        return Optional.ofNullable(reply)
+                .map(json -> gson.fromJson(new String((byte[]) json, StandardCharsets.UTF_8), MovieCredits.class));
+    }
+
+    /**
+     * Move the movies of a keyspace into the configured layout, movies already in it are left untouched
+     * - split: "JSON.GET" "<movie>" "$.castList" "$.directorList" "$.writerList", "JSON.SET" "credits:<movie>" "$" ...
+     * then "JSON.DEL" "<movie>" "$.castList" (etc.)
+     * - embedded: "JSON.GET" "credits:<movie>", "JSON.SET" "<movie>" "$.castList" ... (etc.) then "UNLINK" "credits:<movie>"
+     *
+     * @param keyPrefix
+     * @return number of movies migrated
+     */
+    public long migrate(String keyPrefix) {
+        String match = split ? keyPrefix + "*" : keyFor(keyPrefix) + "*";
+        ScanParams params = new ScanParams().match(match).count(batchSize);
+        String cursor = ScanParams.SCAN_POINTER_START;
+        long migrated = 0;
+        do {
+            ScanResult<String> page = jedis.scan(cursor, params);
+            if (!page.getResult().isEmpty()) {
+                migrated += split ? splitCredits(page.getResult()) : embedCredits(page.getResult());
+            }
+            cursor = page.getCursor();
+        } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+
+        log.info("Migrated {} movies in '{}' to the {} credits layout", migrated, keyPrefix, split ? "split" : "embedded");
+        return migrated;
+    }
+
+    /**
+     * Delete the credits documents of a keyspace
+     *
+     * @param keyPrefix
+     */
+    public void delete(String keyPrefix) {
+        ScanParams params = new ScanParams().match(keyFor(keyPrefix) + "*").count(1000);
+        String cursor = ScanParams.SCAN_POINTER_START;
+        do {
+            ScanResult<String> page = jedis.scan(cursor, params);
+            if (!page.getResult().isEmpty()) {
+                jedis.unlink(page.getResult().toArray(String[]::new));
+            }
+            cursor = page.getCursor();
+        } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+    }
+
+    private long splitCredits(List<String> movieKeys) {
+        List<Response<Object>> responses = new ArrayList<>(movieKeys.size());
+        try (Connection connection = jedis.getPool().getResource()) {
+            Pipeline pipeline = new Pipeline(connection);
+            for (String key : movieKeys) {
+                List<String> args = new ArrayList<>(List.of(key));
+                args.addAll(List.of(CREDIT_PATHS));
+                responses.add(pipeline.sendCommand(JsonProtocol.JsonCommand.GET, args.toArray(String[]::new)));
+            }
+            pipeline.sync();
+        }
+
+        long migrated = 0;
+        try (Connection connection = jedis.getPool().getResource()) {
+            Pipeline pipeline = new Pipeline(connection);
+            for (int i = 0; i < movieKeys.size(); i++) {
+                Object reply = responses.get(i).get();
+                if (reply == null) {
+                    continue;
+                }
+                // Multiple paths come back as {"$.castList": [[...]], ...}, an empty match means the path is absent
+                JsonObject paths = JsonParser.parseString(new String((byte[]) reply, StandardCharsets.UTF_8)).getAsJsonObject();
+                JsonObject credits = new JsonObject();
+                for (String path : CREDIT_PATHS) {
+                    JsonArray matches = paths.getAsJsonArray(path);
+                    if (matches != null && matches.size() > 0) {
+                        credits.add(path.substring(2), matches.get(0));
+                    }
+                }
+                if (credits.size() == 0) {
+                    continue;
+                }
+
+                pipeline.jsonSet(keyFor(movieKeys.get(i)), Path2.ROOT_PATH, credits.toString());
+                for (String path : CREDIT_PATHS) {
+                    pipeline.jsonDel(movieKeys.get(i), Path2.of(path));
+                }
+                migrated++;
+            }
+            pipeline.sync();
+        }
+        return migrated;
+    }
+
+    private long embedCredits(List<String> creditKeys) {
+        List<Response<Object>> responses = new ArrayList<>(creditKeys.size());
+        try (Connection connection = jedis.getPool().getResource()) {
+            Pipeline pipeline = new Pipeline(connection);
+            creditKeys.forEach(key -> responses.add(pipeline.sendCommand(JsonProtocol.JsonCommand.GET, key)));
+            pipeline.sync();
+        }
+
+        long migrated = 0;
+        try (Connection connection = jedis.getPool().getResource()) {
+            Pipeline pipeline = new Pipeline(connection);
+            for (int i = 0; i < creditKeys.size(); i++) {
+                Object reply = responses.get(i).get();
+                String movieKey = creditKeys.get(i).substring(CREDITS_PREFIX.length());
+                if (reply != null) {
+                    JsonObject credits = JsonParser.parseString(new String((byte[]) reply, StandardCharsets.UTF_8)).getAsJsonObject();
+                    for (String path : CREDIT_PATHS) {
+                        JsonElement value = credits.get(path.substring(2));
+                        if (value != null) {
+                            pipeline.jsonSet(movieKey, Path2.of(path), value.toString());
+                        }
+                    }
+                    migrated++;
+                }
+                pipeline.unlink(creditKeys.get(i));
+            }
+            // Movies which no longer exist reject the JSON.SET, their orphaned credits are still removed
+            pipeline.sync();
+        }
+        return migrated;
+    }
+}
@@ -0,0 +1,472 @@
+package io.redis.repository;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.redis.om.spring.ops.RedisModulesOperations;
+import io.redis.model.CursorPage;
+import io.redis.model.FacetCount;
+import io.redis.model.FacetedPage;
+import io.redis.model.Movie;
+import io.redis.model.PageCursor;
+import io.redis.model.RawJson;
+import io.redis.model.RawJsonPage;
+import io.redis.service.MovieIndexService;
+import io.redis.type.FacetENUM;
+import io.redis.util.CursorUtil;
+import io.redis.util.ProjectionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.json.JsonProtocol;
+import redis.clients.jedis.search.Document;
+import redis.clients.jedis.search.FieldName;
+import redis.clients.jedis.search.Query;
+import redis.clients.jedis.search.SearchProtocol;
+import redis.clients.jedis.search.SearchResult;
+import redis.clients.jedis.search.aggr.AggregationBuilder;
+import redis.clients.jedis.search.aggr.AggregationResult;
+import redis.clients.jedis.search.aggr.Reducers;
+import redis.clients.jedis.search.aggr.Row;
+import redis.clients.jedis.search.aggr.SortedField;
+
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Low level movie searches & lookups, for sparse fieldsets, keyset pagination, facets, batch gets & raw JSON
+ * Sparse fieldsets only return a subset of JSON paths i.e.
+ * REDIS: "FT.SEARCH" "io.redis.model.MovieIdx" "@genres:{Drama}" "RETURN" "6" "$.title" "AS" "title" "$.year" "AS" "year"
+ * "SORTBY" "voteAverage" "DESC" "LIMIT" "0" "20"
+ */
+@Slf4j
+@Repository
+public class MovieProjectionRepository {
+
+    @Autowired
+    RedisModulesOperations<String> modulesOperations;
+
+    @Autowired
+    ProjectionUtil projectionUtil;
+
+    @Autowired
+    CursorUtil cursorUtil;
+
+    @Autowired
+    Gson gson;
+
+    @Autowired
+    JedisPooled jedis;
+
+    @Autowired
+    MovieIndexService movieIndexService;
+
+    public Page<Map<String, Object>> search(String query, Pageable pageable, List<String> fields) {
+        FieldName[] returnFields = fields.stream()
+                .map(f -> FieldName.of("$." + f).as(f))
+                .toArray(FieldName[]::new);
+
+        Query search = new Query(query)
+                .returnFields(returnFields)
+                .limit((int) pageable.getOffset(), pageable.getPageSize());
+
+        for (Sort.Order order : pageable.getSort()) {
+            search.setSortBy(order.getProperty(), order.isAscending());
+            break;
+        }
+
+        SearchResult result = modulesOperations.opsForSearch(movieIndexService.getActiveIndexName()).search(search);
+
+        List<Map<String, Object>> content = new ArrayList<>(result.getDocuments().size());
+        for (Document document : result.getDocuments()) {
+            Map<String, Object> movie = new LinkedHashMap<>();
+            for (String field : fields) {
+                Object value = document.get(field);
+                movie.put(field, value == null ? null : this.decode(field, value.toString()));
+            }
+            content.add(movie);
+        }
+        return new PageImpl<>(content, pageable, result.getTotalResults());
+    }
+
+    /**
+     * Search returning whole movies, decoded with Gson like the rest of the read path
+     * REDIS: "FT.SEARCH" "io.redis.model.MovieIdx.v0" "Avengers" "SORTBY" "popularity" "DESC" "LIMIT" "0" "20"
+     *
+     * @param query
+     * @param pageable
+     * @return
+     */
+    public Page<Movie> searchMovies(String query, Pageable pageable) {
+        Query search = new Query(query)
+                .limit((int) pageable.getOffset(), pageable.getPageSize());
+        for (Sort.Order order : pageable.getSort()) {
+            search.setSortBy(order.getProperty(), order.isAscending());
+            break;
+        }
+
+        SearchResult result = jedis.ftSearch(movieIndexService.getActiveIndexName(), search);
+        List<Movie> content = new ArrayList<>(result.getDocuments().size());
+        for (Document document : result.getDocuments()) {
+            content.add(gson.fromJson(document.getString("$"), Movie.class));
+        }
+        return new PageImpl<>(content, pageable, result.getTotalResults());
+    }
+
+    /**
+     * A page of hits plus counts per facet value for the same query, the FT.SEARCH & one FT.AGGREGATE per facet
+     * are sent as a single pipeline i.e. genres & decades:
+     * REDIS: "FT.SEARCH" "io.redis.model.MovieIdx" "@genres:{Action}" "SORTBY" "popularity" "DESC" "LIMIT" "0" "20"
+     * REDIS: "FT.AGGREGATE" "io.redis.model.MovieIdx" "@genres:{Action}" "LOAD" "3" "$.genres[*]" "AS" "genres"
+     * "GROUPBY" "1" "@genres" "REDUCE" "COUNT" "0" "AS" "count" "SORTBY" "2" "@count" "DESC" "MAX" "10" "DIALECT" "3"
+     * REDIS: "FT.AGGREGATE" "io.redis.model.MovieIdx" "@genres:{Action}" "FILTER" "@year > 0" "APPLY" "floor(@year / 10) * 10"
+     * "AS" "decades" "GROUPBY" "1" "@decades" "REDUCE" "COUNT" "0" "AS" "count" "SORTBY" "2" "@decades" "DESC" "MAX" "10"
+     *
+     * @param query
+     * @param pageable
+     * @param fields    JSON properties to return, empty for the full movie
+     * @param facets
+     * @param facetSize maximum number of values returned per facet (top-N by count)
+     * @return
+     */
+    public FacetedPage<Object> searchWithFacets(String query, Pageable pageable, List<String> fields,
+                                                List<FacetENUM> facets, int facetSize) {
+        Query search = new Query(query)
+                .limit((int) pageable.getOffset(), pageable.getPageSize());
+        if (!fields.isEmpty()) {
+            search.returnFields(fields.stream().map(f -> FieldName.of("$." + f).as(f)).toArray(FieldName[]::new));
+        }
+        for (Sort.Order order : pageable.getSort()) {
+            search.setSortBy(order.getProperty(), order.isAscending());
+            break;
+        }
+
+        Response<SearchResult> searchResponse;
+        Map<FacetENUM, Response<AggregationResult>> facetResponses = new EnumMap<>(FacetENUM.class);
+        try (Connection connection = jedis.getPool().getResource()) {
+            Pipeline pipeline = new Pipeline(connection);
+            searchResponse = pipeline.ftSearch(movieIndexService.getActiveIndexName(), search);
+            for (FacetENUM facet : facets) {
+                facetResponses.put(facet, pipeline.ftAggregate(movieIndexService.getActiveIndexName(),
+                        this.facetAggregation(query, facet, facetSize)));
+            }
+            pipeline.sync();
+        }
+
+        SearchResult result = searchResponse.get();
+        List<Object> content = new ArrayList<>(result.getDocuments().size());
+        for (Document document : result.getDocuments()) {
+            if (fields.isEmpty()) {
+                content.add(gson.fromJson(document.getString("$"), Movie.class));
+            } else {
+                Map<String, Object> movie = new LinkedHashMap<>();
+                for (String field : fields) {
+                    Object value = document.get(field);
+                    movie.put(field, value == null ? null : this.decode(field, value.toString()));
+                }
+                content.add(movie);
+            }
+        }
+
+        Map<String, List<FacetCount>> counts = new LinkedHashMap<>();
+        facetResponses.forEach((facet, response) -> {
+            AggregationResult aggregation = response.get();
+            List<FacetCount> values = new ArrayList<>();
+            for (int i = 0; i < aggregation.getResults().size(); i++) {
+                Row row = aggregation.getRow(i);
+                String value = row.getString(facet.getFacetName());
+                if (StringUtils.isNotBlank(value)) {
+                    values.add(new FacetCount(value, row.getLong("count")));
+                }
+            }
+            counts.put(facet.getFacetName(), values);
+        });
+
+        FacetedPage<Object> page = new FacetedPage<>();
+        page.setContent(content);
+        page.setNumber(pageable.getPageNumber());
+        page.setSize(pageable.getPageSize());
+        page.setTotalElements(result.getTotalResults());
+        page.setTotalPages((int) Math.ceil((double) result.getTotalResults() / Math.max(1, pageable.getPageSize())));
+        page.setFacets(counts);
+        return page;
+    }
+
+    /**
+     * Multi valued paths are loaded with "[*]" under DIALECT 3, which loads every match as an array value that GROUPBY
+     * counts element by element (earlier dialects only load the first match), names containing commas or quotes
+     * are counted as is. Decades are ordered most recent first so MAX keeps the recent ones
+     *
+     * @param query
+     * @param facet
+     * @param facetSize
+     * @return
+     */
+    private AggregationBuilder facetAggregation(String query, FacetENUM facet, int facetSize) {
+        String name = facet.getFacetName();
+        AggregationBuilder aggregation = new AggregationBuilder(query);
+
+        if (facet == FacetENUM.DECADES) {
+            aggregation.filter("@year > 0")
+                    .apply("floor(@year / 10) * 10", name);
+        } else {
+            aggregation.load(FieldName.of(facet.getPath()).as(name));
+        }
+
+        aggregation.groupBy("@" + name, Reducers.count().as("count"))
+                .sortBy(facetSize, SortedField.desc(facet.isOrderByValue() ? "@" + name : "@count"));
+        if (facet.isMultiValued()) {
+            aggregation.dialect(3);
+        }
+        return aggregation;
+    }
+
+    /**
+     * Fetch whole movies in a single round trip, raw replies are decoded with Gson rather than Jedis' JSON types
+     * REDIS: "JSON.MGET" "io.redis.model.Movie:278" "io.redis.model.Movie:238" "$"
+     *
+     * @param keys
+     * @return key -> movie, missing keys are left out
+     */
+    public Map<String, Movie> getAll(List<String> keys) {
+        Map<String, Movie> movies = new HashMap<>();
+        if (keys.isEmpty()) {
+            return movies;
+        }
+
+        String[] args = new String[keys.size() + 1];
+        keys.toArray(args);
+        args[keys.size()] = "$";
+
+        List<?> replies = (List<?>) jedis.sendCommand(JsonProtocol.JsonCommand.MGET, args);
+        for (int i = 0; i < keys.size(); i++) {
+            Object reply = replies.get(i);
+            if (reply == null) {
+                continue;
+            }
+            JsonArray matches = JsonParser.parseString(new String((byte[]) reply, StandardCharsets.UTF_8)).getAsJsonArray();
+            if (matches.size() > 0) {
+                movies.put(keys.get(i), gson.fromJson(matches.get(0), Movie.class));
+            }
+        }
+        return movies;
+    }
+
+    /**
+     * Fetch a subset of JSON paths of each movie, JSON.MGET only takes a single path so this is one pipeline of
+     * REDIS: "JSON.GET" "io.redis.model.Movie:278" "$.title" "$.year"
+     * Reply: {"$.title":["The Godfather"],"$.year":[1972]}, or just ["The Godfather"] when a single path is asked for
+     *
+     * @param keys
+     * @param fields
+     * @return key -> projected movie, missing keys are left out
+     */
+    public Map<String, Map<String, Object>> getAll(List<String> keys, List<String> fields) {
+        Map<String, Map<String, Object>> movies = new HashMap<>();
+        if (keys.isEmpty()) {
+            return movies;
+        }
+
+        List<Response<Object>> responses = new ArrayList<>(keys.size());
+        try (Connection connection = jedis.getPool().getResource()) {
+            Pipeline pipeline = new Pipeline(connection);
+            for (String key : keys) {
+                List<String> args = new ArrayList<>(fields.size() + 1);
+                args.add(key);
+                fields.forEach(f -> args.add("$." + f));
+                responses.add(pipeline.sendCommand(JsonProtocol.JsonCommand.GET, args.toArray(String[]::new)));
+            }
+            pipeline.sync();
+        }
+
+        for (int i = 0; i < keys.size(); i++) {
+            Object reply = responses.get(i).get();
+            if (reply == null) {
+                continue;
+            }
+            JsonElement paths = JsonParser.parseString(new String((byte[]) reply, StandardCharsets.UTF_8));
+            Map<String, Object> movie = new LinkedHashMap<>();
+            for (String field : fields) {
+                // A single path comes back as its matches ["..."], multiple paths as {"$.title": ["..."], ...}
+                JsonElement matches = fields.size() == 1 ? paths : paths.getAsJsonObject().get("$." + field);
+                movie.put(field, matches == null || matches.getAsJsonArray().size() == 0
+                        ? null
+                        : this.decode(field, matches.getAsJsonArray().get(0)));
+            }
+            movies.put(keys.get(i), movie);
+        }
+        return movies;
+    }
+
+    private Object decode(String field, JsonElement value) {
+        if (value.isJsonNull()) {
+            return null;
+        }
+        try {
+            return gson.fromJson(value, projectionUtil.getFieldType(field));
+        } catch (Exception e) {
+            log.debug("Unable to decode field '{}': {}", field, e.getMessage());
+            return value.toString();
+        }
+    }
+
+    /**
+     * Get a movie's JSON exactly as stored, without decoding it
+     * REDIS: "JSON.GET" "io.redis.model.Movie:278"
+     *
+     * @param key
+     * @return null when the movie doesn't exist
+     */
+    public RawJson getRaw(String key) {
+        Object reply = jedis.sendCommand(JsonProtocol.JsonCommand.GET, key);
+        return reply == null ? null : new RawJson((byte[]) reply);
+    }
+
+    /**
+     * Search returning each hit's JSON exactly as stored, the reply is read as raw bytes (no Document/String decoding)
+     * REDIS: "FT.SEARCH" "io.redis.model.MovieIdx" "Avengers" "SORTBY" "popularity" "DESC" "LIMIT" "0" "20"
+     * Reply: total, then per hit the key & ["$", "<json>"]
+     *
+     * @param query
+     * @param pageable
+     * @return
+     */
+    public RawJsonPage searchRaw(String query, Pageable pageable) {
+        List<String> args = new ArrayList<>(List.of(movieIndexService.getActiveIndexName(), query));
+        for (Sort.Order order : pageable.getSort()) {
+            args.addAll(List.of("SORTBY", order.getProperty(), order.isAscending() ? "ASC" : "DESC"));
+            break;
+        }
+        args.addAll(List.of("LIMIT", String.valueOf(pageable.getOffset()), String.valueOf(pageable.getPageSize())));
+
+        List<?> reply = (List<?>) jedis.sendCommand(SearchProtocol.SearchCommand.SEARCH, args.toArray(String[]::new));
+        List<byte[]> content = new ArrayList<>((reply.size() - 1) / 2);
+        for (int i = 2; i < reply.size(); i += 2) {
+            List<?> fields = (List<?>) reply.get(i);
+            for (int f = 0; f + 1 < fields.size(); f += 2) {
+                if ("$".equals(new String((byte[]) fields.get(f), StandardCharsets.UTF_8))) {
+                    content.add((byte[]) fields.get(f + 1));
+                    break;
+                }
+            }
+        }
+        return new RawJsonPage(content, pageable, (Long) reply.get(0));
+    }
+
+    /**
+     * Scalar strings come back as is, everything else (numbers, arrays, objects) as JSON
+     *
+     * @param field
+     * @param value
+     * @return
+     */
+    Object decode(String field, String value) {
+        Type type = projectionUtil.getFieldType(field);
+        if (type == String.class) {
+            return value;
+        }
+        try {
+            return gson.fromJson(value, type);
+        } catch (Exception e) {
+            log.debug("Unable to decode projected field '{}': {}", field, e.getMessage());
+            return value;
+        }
+    }
+
+    /**
+     * Keyset pagination on a sortable numeric field with the movie id as a tie breaker, each page is a range query
+     * starting at the previous page's last (value, id) so the cost of a page doesn't grow with depth, however many
+     * movies share a value i.e. popularity DESC after (152.3, 278):
+     * REDIS: "FT.AGGREGATE" "io.redis.model.MovieIdx" "@popularity:[-inf 152.3]" "LOAD" "7" "@popularity" "$.id" "AS" "id"
+     * "$" "AS" "json" "FILTER" "@popularity < 152.3 || (@popularity == 152.3 && @id > '278')"
+     * "SORTBY" "4" "@popularity" "DESC" "@id" "ASC" "MAX" "21" "LIMIT" "0" "21"
+     *
+     * @param query
+     * @param sortBy
+     * @param ascending
+     * @param size
+     * @param after     cursor of the previous page, null for the first page
+     * @param fields    JSON properties to return, empty for the full movie
+     * @return
+     */
+    public CursorPage<Object> searchAfter(String query, String sortBy, boolean ascending, int size,
+                                          PageCursor after, List<String> fields) {
+        String keysetQuery = query;
+        String filter = null;
+        if (after != null) {
+            String value = BigDecimal.valueOf(after.getValue()).toPlainString();
+            String range = "@" + sortBy + ":" + (ascending ? "[" + value + " inf]" : "[-inf " + value + "]");
+            keysetQuery = "*".equals(query) ? range : "(" + query + ") " + range;
+            filter = "@" + sortBy + (ascending ? " > " : " < ") + value
+                    + " || (@" + sortBy + " == " + value + " && @id > '" + after.getLastId() + "')";
+        }
+
+        Map<String, FieldName> loads = new LinkedHashMap<>();
+        loads.put(sortBy, FieldName.of("@" + sortBy));
+        loads.put("id", FieldName.of("$.id").as("id"));
+        if (fields.isEmpty()) {
+            loads.put("json", FieldName.of("$").as("json"));
+        } else {
+            fields.forEach(f -> loads.putIfAbsent(f, FieldName.of("$." + f).as(f)));
+        }
+
+        AggregationBuilder aggregation = new AggregationBuilder(keysetQuery)
+                .load(loads.values().toArray(new FieldName[0]));
+        if (filter != null) {
+            aggregation.filter(filter);
+        }
+        aggregation.sortBy(size + 1, ascending ? SortedField.asc("@" + sortBy) : SortedField.desc("@" + sortBy),
+                        SortedField.asc("@id"))
+                .limit(0, size + 1);
+
+        AggregationResult result = jedis.ftAggregate(movieIndexService.getActiveIndexName(), aggregation);
+
+        int rows = result.getResults().size();
+        List<Object> content = new ArrayList<>(Math.min(rows, size));
+        double lastValue = 0;
+        String lastId = null;
+        for (int i = 0; i < Math.min(rows, size); i++) {
+            Row row = result.getRow(i);
+            if (fields.isEmpty()) {
+                content.add(gson.fromJson(row.getString("json"), Movie.class));
+            } else {
+                Map<String, Object> movie = new LinkedHashMap<>();
+                for (String field : fields) {
+                    String fieldValue = row.getString(field);
+                    movie.put(field, fieldValue == null ? null : this.decode(field, fieldValue));
+                }
+                content.add(movie);
+            }
+            String sortValue = row.getString(sortBy);
+            lastValue = sortValue == null ? 0 : Double.parseDouble(sortValue);
+            lastId = row.getString("id");
+        }
+
+        CursorPage<Object> page = new CursorPage<>();
+        page.setContent(content);
+        page.setSize(content.size());
+
+        if (rows > size) {
+            PageCursor next = new PageCursor();
+            next.setSortBy(sortBy);
+            next.setAscending(ascending);
+            next.setQueryHash(cursorUtil.hashQuery(query));
+            next.setValue(lastValue);
+            next.setLastId(lastId);
+            page.setNextCursor(cursorUtil.encode(next));
+        }
+        return page;
+    }
+}
@@ -0,0 +1,164 @@
+package io.redis.repository;
+
+import com.google.gson.Gson;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.output.NestedMultiOutput;
+import io.lettuce.core.output.ValueOutput;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.ProtocolKeyword;
+import io.redis.model.Movie;
+import io.redis.model.MovieCredits;
+import io.redis.service.MovieIndexService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Non-blocking movie lookups & searches for the "reactive" profile
+ * Lettuce has no RedisJSON / RediSearch API, so the module commands are dispatched as custom commands i.e.
+ * REDIS: "JSON.GET" "io.redis.model.Movie:278"
+ * REDIS: "FT.SEARCH" "io.redis.model.MovieIdx" "Avengers" "SORTBY" "popularity" "DESC" "LIMIT" "0" "20"
+ */
+@Slf4j
+@Profile("reactive")
+@Repository
+public class ReactiveMovieRepository {
+
+    @Autowired
+    StatefulRedisConnection<String, String> connection;
+
+    @Autowired
+    MovieProjectionRepository projectionRepository;
+
+    @Autowired
+    MovieCreditsRepository creditsRepository;
+
+    @Autowired
+    Gson gson;
+
+    @Autowired
+    MovieIndexService movieIndexService;
+
+    /**
+     * Get a movie by its Redis key, in the split credits layout its credits document is fetched concurrently
+     * REDIS: "JSON.GET" "credits:io.redis.model.Movie:278"
+     *
+     * @param key
+     * @return empty when the movie doesn't exist
+     */
+    public Mono<Movie> findByKey(String key) {
+        Mono<Movie> movie = this.jsonGet(key).map(json -> gson.fromJson(json, Movie.class));
+        if (!creditsRepository.isSplit()) {
+            return movie;
+        }
+
+        Mono<Optional<MovieCredits>> credits = this.jsonGet(MovieCreditsRepository.keyFor(key))
+                .map(json -> Optional.of(gson.fromJson(json, MovieCredits.class)))
+                .defaultIfEmpty(Optional.empty());
+        return Mono.zip(movie, credits)
+                .map(t -> t.getT2().map(c -> MovieCreditsRepository.attach(t.getT1(), c)).orElse(t.getT1()));
+    }
+
+    private Mono<String> jsonGet(String key) {
+        CommandArgs<String, String> args = new CommandArgs<>(StringCodec.UTF8).addKey(key);
+        return connection.reactive()
+                .<String>dispatch(ModuleCommand.JSON_GET, new ValueOutput<>(StringCodec.UTF8), args)
+                .next();
+    }
+
+    /**
+     * Search the active generation, with fields only those JSON paths are returned & each hit is a map
+     *
+     * @param query
+     * @param pageable
+     * @param fields   JSON properties to return, empty for the full movie
+     * @return
+     */
+    public Mono<Page<Object>> search(String query, Pageable pageable, List<String> fields) {
+        CommandArgs<String, String> args = new CommandArgs<>(StringCodec.UTF8)
+                .add(movieIndexService.getActiveIndexName())
+                .add(query);
+        if (!fields.isEmpty()) {
+            args.add("RETURN").add(fields.size() * 3L);
+            fields.forEach(f -> args.add("$." + f).add("AS").add(f));
+        }
+        for (Sort.Order order : pageable.getSort()) {
+            args.add("SORTBY").add(order.getProperty()).add(order.isAscending() ? "ASC" : "DESC");
+            break;
+        }
+        args.add("LIMIT").add(pageable.getOffset()).add(pageable.getPageSize());
+
+        return connection.reactive()
+                .<Object>dispatch(ModuleCommand.FT_SEARCH, new NestedMultiOutput<>(StringCodec.UTF8), args)
+                .collectList()
+                .map(reply -> this.toPage(reply, pageable, fields));
+    }
+
+    /**
+     * FT.SEARCH reply: total, then key & [field, value, ...] per hit, full documents come back as the "$" field
+     *
+     * @param reply
+     * @param pageable
+     * @param fields
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    private Page<Object> toPage(List<Object> reply, Pageable pageable, List<String> fields) {
+        // Depending on the output the reply is either streamed element by element or emitted as a single list
+        if (reply.size() == 1 && reply.get(0) instanceof List) {
+            reply = (List<Object>) reply.get(0);
+        }
+        if (reply.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, 0);
+        }
+
+        long total = ((Number) reply.get(0)).longValue();
+        List<Object> content = new ArrayList<>((reply.size() - 1) / 2);
+        for (int i = 1; i + 1 < reply.size(); i += 2) {
+            List<Object> values = (List<Object>) reply.get(i + 1);
+            Map<String, String> document = new HashMap<>();
+            for (int v = 0; v + 1 < values.size(); v += 2) {
+                document.put(String.valueOf(values.get(v)), String.valueOf(values.get(v + 1)));
+            }
+
+            if (fields.isEmpty()) {
+                content.add(gson.fromJson(document.get("$"), Movie.class));
+            } else {
+                Map<String, Object> movie = new LinkedHashMap<>();
+                for (String field : fields) {
+                    String value = document.get(field);
+                    movie.put(field, value == null ? null : projectionRepository.decode(field, value));
+                }
+                content.add(movie);
+            }
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    private enum ModuleCommand implements ProtocolKeyword {
+
+        JSON_GET("JSON.GET"),
+        FT_SEARCH("FT.SEARCH");
+
+        private final byte[] bytes;
+
+        ModuleCommand(String command) {
+            this.bytes = command.getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public byte[] getBytes() {
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package io.redis.serialisation;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import io.redis.model.CastMember;
+
+import java.io.IOException;
+
+/**
+ * Streaming (de)serialisation of CastMember, same JSON as the reflective mapping it replaces:
+ * {"id":"504","character":"Andy Dufresne","name":"Tim Robbins","gender":"MALE","profileImage":"/..."}
+ * Reads TMDB's "profile_path" & any case of the gender i.e. "Male"
+ */
+public class CastMemberTypeAdapter extends TypeAdapter<CastMember> {
+
+    @Override
+    public void write(JsonWriter out, CastMember member) throws IOException {
+        if (member == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("id").value(member.getId());
+        out.name("character").value(member.getCharacter());
+        out.name("name").value(member.getName());
+        out.name("gender").value(member.getGender() == null ? null : member.getGender().name());
+        out.name("profileImage").value(member.getProfileImage());
+        out.endObject();
+    }
+
+    @Override
+    public CastMember read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        CastMember member = new CastMember();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    member.setId(JsonReaders.nextString(in));
+                    break;
+                case "character":
+                    member.setCharacter(JsonReaders.nextString(in));
+                    break;
+                case "name":
+                    member.setName(JsonReaders.nextName(in));
+                    break;
+                case "gender":
+                    // The model's setter takes the string & resolves it case insensitively
+                    String gender = JsonReaders.nextString(in);
+                    if (gender != null) {
+                        member.setGender(gender);
+                    }
+                    break;
+                case "profileImage":
+                case "profile_path":
+                    member.setProfileImage(JsonReaders.nextString(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return member;
+    }
+}
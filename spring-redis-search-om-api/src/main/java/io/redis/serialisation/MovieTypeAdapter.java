@@ -0,0 +1,184 @@
+package io.redis.serialisation;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import io.redis.model.CastMember;
+import io.redis.model.CrewMember;
+import io.redis.model.Movie;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming (de)serialisation of Movie, attached to the class with @JsonAdapter so every Gson instance uses it
+ * (the shared Gson bean, Redis OM's document mapping, the bulk loader & the read path).
+ * Writes the same JSON as the reflective mapping it replaces & reads both the stored names and the TMDB
+ * alternates i.e. "voteAverage" / "vote_average", skipping anything else without building a tree.
+ * Names, genres, language & status are interned (see NameInterner).
+ * Keep in step with the fields & @SerializedName values on Movie.
+ */
+public class MovieTypeAdapter extends TypeAdapter<Movie> {
+
+    private final CastMemberTypeAdapter castMemberAdapter = new CastMemberTypeAdapter();
+
+    private final CrewMemberTypeAdapter crewMemberAdapter = new CrewMemberTypeAdapter();
+
+    @Override
+    public void write(JsonWriter out, Movie movie) throws IOException {
+        if (movie == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("id").value(movie.getId());
+        out.name("imdbId").value(movie.getImdbId());
+        out.name("language").value(movie.getLanguage());
+        out.name("title").value(movie.getTitle());
+        out.name("overview").value(movie.getOverview());
+        out.name("status").value(movie.getStatus());
+        out.name("tagline").value(movie.getTagline());
+        out.name("popularity").value(movie.getPopularity());
+        out.name("voteAverage").value(movie.getVoteAverage());
+        out.name("voteCount").value(movie.getVoteCount());
+        out.name("budget").value(movie.getBudget());
+        out.name("runtime").value(movie.getRuntime());
+        out.name("revenue").value(movie.getRevenue());
+        out.name("posterImage").value(movie.getPosterImage());
+        out.name("releaseDateUTC").value(movie.getReleaseDateUTC());
+        out.name("year").value(movie.getYear());
+        JsonReaders.writeStringList(out, "genres", movie.getGenres());
+        JsonReaders.writeStringList(out, "actors", movie.getActors());
+        JsonReaders.writeStringList(out, "directors", movie.getDirectors());
+        JsonReaders.writeStringList(out, "writers", movie.getWriters());
+        writeList(out, "castList", movie.getCastList(), castMemberAdapter);
+        writeList(out, "directorList", movie.getDirectorList(), crewMemberAdapter);
+        writeList(out, "writerList", movie.getWriterList(), crewMemberAdapter);
+        out.endObject();
+    }
+
+    @Override
+    public Movie read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        Movie movie = new Movie();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    movie.setId(JsonReaders.nextString(in));
+                    break;
+                case "imdbId":
+                case "imdb_id":
+                    movie.setImdbId(JsonReaders.nextString(in));
+                    break;
+                case "language":
+                case "original_language":
+                    movie.setLanguage(JsonReaders.nextName(in));
+                    break;
+                case "title":
+                    movie.setTitle(JsonReaders.nextString(in));
+                    break;
+                case "overview":
+                    movie.setOverview(JsonReaders.nextString(in));
+                    break;
+                case "status":
+                    movie.setStatus(JsonReaders.nextName(in));
+                    break;
+                case "tagline":
+                    movie.setTagline(JsonReaders.nextString(in));
+                    break;
+                case "popularity":
+                    movie.setPopularity(JsonReaders.nextDouble(in, movie.getPopularity()));
+                    break;
+                case "voteAverage":
+                case "vote_average":
+                    movie.setVoteAverage(JsonReaders.nextDouble(in, movie.getVoteAverage()));
+                    break;
+                case "voteCount":
+                case "vote_count":
+                    movie.setVoteCount(JsonReaders.nextLong(in, movie.getVoteCount()));
+                    break;
+                case "budget":
+                    movie.setBudget(JsonReaders.nextLong(in, movie.getBudget()));
+                    break;
+                case "runtime":
+                    movie.setRuntime(JsonReaders.nextInt(in, movie.getRuntime()));
+                    break;
+                case "revenue":
+                    movie.setRevenue(JsonReaders.nextLong(in, movie.getRevenue()));
+                    break;
+                case "posterImage":
+                case "poster_path":
+                    movie.setPosterImage(JsonReaders.nextString(in));
+                    break;
+                case "releaseDateUTC":
+                    movie.setReleaseDateUTC(JsonReaders.nextLong(in, movie.getReleaseDateUTC()));
+                    break;
+                case "year":
+                    movie.setYear(JsonReaders.nextLong(in, movie.getYear()));
+                    break;
+                case "genres":
+                    movie.setGenres(JsonReaders.nextNameList(in));
+                    break;
+                case "actors":
+                    movie.setActors(JsonReaders.nextNameList(in));
+                    break;
+                case "directors":
+                    movie.setDirectors(JsonReaders.nextNameList(in));
+                    break;
+                case "writers":
+                    movie.setWriters(JsonReaders.nextNameList(in));
+                    break;
+                case "castList":
+                case "cast":
+                    movie.setCastList(readList(in, castMemberAdapter));
+                    break;
+                case "directorList":
+                case "director":
+                    movie.setDirectorList(readList(in, crewMemberAdapter));
+                    break;
+                case "writerList":
+                case "writer":
+                    movie.setWriterList(readList(in, crewMemberAdapter));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return movie;
+    }
+
+    private static <T> List<T> readList(JsonReader in, TypeAdapter<T> adapter) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<T> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            values.add(adapter.read(in));
+        }
+        in.endArray();
+        return values;
+    }
+
+    private static <T> void writeList(JsonWriter out, String name, List<T> values, TypeAdapter<T> adapter) throws IOException {
+        out.name(name);
+        if (values == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (T value : values) {
+            adapter.write(out, value);
+        }
+        out.endArray();
+    }
+}
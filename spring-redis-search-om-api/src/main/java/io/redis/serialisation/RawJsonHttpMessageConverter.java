@@ -0,0 +1,76 @@
+package io.redis.serialisation;
+
+import io.redis.model.RawJson;
+import io.redis.model.RawJsonPage;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes documents fetched from Redis straight to the response body, without mapping them to Movie & back
+ * Pages are framed with the fields of a Jackson serialised Page the frontend relies on i.e.
+ * {"content":[<doc>,<doc>],"totalElements":3,"totalPages":1,"number":0,"size":20,"numberOfElements":3,...}
+ */
+public class RawJsonHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    private static final byte[] CONTENT_START = bytes("{\"content\":[");
+    private static final byte[] COMMA = bytes(",");
+
+    public RawJsonHttpMessageConverter() {
+        super(StandardCharsets.UTF_8, MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return RawJson.class.isAssignableFrom(clazz) || RawJsonPage.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws HttpMessageNotReadableException {
+        throw new HttpMessageNotReadableException("Raw JSON is write only", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+        OutputStream out = outputMessage.getBody();
+        if (value instanceof RawJson) {
+            out.write(((RawJson) value).getJson());
+            return;
+        }
+
+        RawJsonPage page = (RawJsonPage) value;
+        out.write(CONTENT_START);
+        boolean first = true;
+        for (byte[] document : page.getContent()) {
+            if (!first) {
+                out.write(COMMA);
+            }
+            out.write(document);
+            first = false;
+        }
+        out.write(bytes("],\"totalElements\":" + page.getTotalElements()
+                + ",\"totalPages\":" + page.getTotalPages()
+                + ",\"number\":" + page.getNumber()
+                + ",\"size\":" + page.getSize()
+                + ",\"numberOfElements\":" + page.getNumberOfElements()
+                + ",\"first\":" + page.isFirst()
+                + ",\"last\":" + page.isLast()
+                + ",\"empty\":" + page.isEmpty()
+                + "}"));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
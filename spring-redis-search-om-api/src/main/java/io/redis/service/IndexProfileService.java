@@ -0,0 +1,120 @@
+package io.redis.service;
+
+import io.redis.configuration.IndexProfileProperties;
+import io.redis.model.IndexMemory;
+import io.redis.model.Movie;
+import io.redis.util.SchemaUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.search.FTCreateParams;
+import redis.clients.jedis.search.IndexDataType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index RAM per index profile
+ * The live index reports the profile it was created with, other profiles can be measured against the same data with a
+ * comparison index over the active keyspace i.e. "io.redis.model.MovieIdx.profile.lean", which nothing queries.
+ * Comparison indexes are maintained on every write while they exist, drop them once measured.
+ * They cover the keyspace active when created, so recreate them after a reindex.
+ */
+@Slf4j
+@Service
+public class IndexProfileService {
+
+    private static final String COMPARISON_INDEX_PREFIX = MovieIndexService.INDEX_ALIAS + ".profile.";
+
+    @Autowired
+    JedisPooled jedis;
+
+    @Autowired
+    SchemaUtil schemaUtil;
+
+    @Autowired
+    IndexProfileProperties indexProfiles;
+
+    @Autowired
+    MovieIndexService movieIndexService;
+
+    /**
+     * FT.INFO memory of the live index & of every comparison index
+     * REDIS: "FT.INFO" "io.redis.model.MovieIdx" & "FT.INFO" "io.redis.model.MovieIdx.profile.<PROFILE>"
+     *
+     * @return
+     */
+    public List<IndexMemory> getIndexMemory() {
+        List<IndexMemory> indexes = new ArrayList<>();
+        indexes.add(this.measure(movieIndexService.getActiveProfile(), movieIndexService.getActiveIndexName(), true));
+        for (String profile : indexProfiles.getNames()) {
+            try {
+                indexes.add(this.measure(profile, COMPARISON_INDEX_PREFIX + profile, false));
+            } catch (Exception e) {
+                log.debug("No comparison index for profile '{}': {}", profile, e.getMessage());
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * Index the active keyspace with a profile for comparison, RediSearch indexes the existing documents in the background
+     * REDIS: "FT.CREATE" "io.redis.model.MovieIdx.profile.lean" "ON" "JSON" "PREFIX" "1" "io.redis.model.Movie:" "SCHEMA" ...
+     *
+     * @param profile
+     * @return
+     */
+    public IndexMemory createComparisonIndex(String profile) {
+        String index = COMPARISON_INDEX_PREFIX + profile;
+        log.info("Creating comparison index '{}' over '{}'", index, movieIndexService.keyPrefix());
+        jedis.ftCreate(index, FTCreateParams.createParams().on(IndexDataType.JSON).prefix(movieIndexService.keyPrefix()),
+                schemaUtil.buildSchema(Movie.class, indexProfiles.get(profile)));
+        return this.measure(profile, index, false);
+    }
+
+    /**
+     * Drop a comparison index, keeping the documents
+     * REDIS: "FT.DROPINDEX" "io.redis.model.MovieIdx.profile.lean"
+     *
+     * @param profile
+     */
+    public void dropComparisonIndex(String profile) {
+        indexProfiles.get(profile);
+        jedis.ftDropIndex(COMPARISON_INDEX_PREFIX + profile);
+    }
+
+    private IndexMemory measure(String profile, String index, boolean live) {
+        Map<String, Object> info = jedis.ftInfo(index);
+
+        IndexMemory memory = new IndexMemory();
+        memory.setProfile(profile);
+        memory.setIndexName(index);
+        memory.setLive(live);
+        memory.setNumDocs((long) getInfoDouble(info, "num_docs"));
+        memory.setPercentIndexed(getInfoDouble(info, "percent_indexed"));
+        memory.setInvertedSizeMb(getInfoDouble(info, "inverted_sz_mb"));
+        memory.setOffsetVectorsSizeMb(getInfoDouble(info, "offset_vectors_sz_mb"));
+        memory.setSortableValuesSizeMb(getInfoDouble(info, "sortable_values_size_mb"));
+        memory.setDocTableSizeMb(getInfoDouble(info, "doc_table_size_mb"));
+        memory.setKeyTableSizeMb(getInfoDouble(info, "key_table_size_mb"));
+        memory.setTotalSizeMb(memory.getInvertedSizeMb() + memory.getOffsetVectorsSizeMb()
+                + memory.getSortableValuesSizeMb() + memory.getDocTableSizeMb() + memory.getKeyTableSizeMb());
+        return memory;
+    }
+
+    private double getInfoDouble(Map<String, Object> info, String key) {
+        Object value = info.get(key);
+        if (value == null) {
+            return 0;
+        }
+        String text = value instanceof byte[] ? new String((byte[]) value, StandardCharsets.UTF_8) : String.valueOf(value);
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
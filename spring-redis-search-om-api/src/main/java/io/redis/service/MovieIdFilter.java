@@ -0,0 +1,279 @@
+package io.redis.service;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import io.redis.configuration.MovieBulkLoader;
+import io.redis.event.MovieDataReloadedEvent;
+import io.redis.event.MoviesWrittenEvent;
+import io.redis.model.IdFilterMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.resps.ScanResult;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-process Bloom filter of the movie ids in the active keyspace, so lookups of ids which don't exist (bots, stale
+ * links) are answered without a Redis call. A Bloom filter never misses an id it was built with, a "might contain"
+ * which then isn't found in Redis is a false positive (or a movie deleted since the filter was built).
+ * <p>
+ * The filter is rebuilt in the background from the keys of the active generation:
+ * REDIS: "SCAN" "0" "MATCH" "io.redis.model.Movie:*" "COUNT" "1000"
+ * - on startup & whenever movie data is reloaded (loads, deletes, generation swaps)
+ * - when the keyspace's write counter (see MovieBulkLoader.writesKey) moved past the value the filter has seen,
+ * for movies written or deleted by other instances (a document count can't tell N deletes plus N adds apart)
+ * Ids written by this instance's loaders are added as they are written (MoviesWrittenEvent), which also advances
+ * the counter value the filter has seen. Until a rebuild completes every id is let through, as is every id when
+ * the counter moved during the rebuild's scan, so new movies are never rejected.
+ */
+@Slf4j
+@Service
+public class MovieIdFilter {
+
+    @Autowired
+    JedisPooled jedis;
+
+    @Autowired
+    MovieIndexService movieIndexService;
+
+    @Value("${spring.redis.movie.id-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${spring.redis.movie.id-filter.expected-insertions:100000}")
+    private long expectedInsertions;
+
+    @Value("${spring.redis.movie.id-filter.fpp:0.01}")
+    private double fpp;
+
+    private final AtomicReference<IdSnapshot> current = new AtomicReference<>();
+
+    // The filter being rebuilt, ids written during the scan are added to it as well
+    private final AtomicReference<IdSnapshot> building = new AtomicReference<>();
+
+    // Bumped on every invalidation so a rebuild started against the old data isn't installed afterwards
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("movie-id-filter-"));
+
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong passed = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        this.scheduleRebuild();
+    }
+
+    /**
+     * Stop filtering until the filter is rebuilt from the reloaded data
+     *
+     * @param event
+     */
+    @EventListener
+    public void onMovieDataReloaded(MovieDataReloadedEvent event) {
+        this.invalidate();
+    }
+
+    /**
+     * Add ids written by this instance, advancing the write count the filter has seen when the batch is the next write
+     *
+     * @param event
+     */
+    @EventListener
+    public void onMoviesWritten(MoviesWrittenEvent event) {
+        for (IdSnapshot snapshot : new IdSnapshot[]{current.get(), building.get()}) {
+            if (snapshot != null && snapshot.keyPrefix.equals(event.getKeyPrefix())) {
+                event.getIds().forEach(snapshot::put);
+                snapshot.writes.compareAndSet(event.getWrites() - 1, event.getWrites());
+            }
+        }
+    }
+
+    /**
+     * Pick up writes & deletes made by other instances, or retry a rebuild which wasn't installed
+     * REDIS: "GET" "loader:io.redis.model.Movie:writes"
+     */
+    @Scheduled(fixedDelayString = "${spring.redis.movie.id-filter.refresh-ms:10000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        IdSnapshot snapshot = current.get();
+        if (snapshot == null) {
+            if (!rebuilding.get()) {
+                this.scheduleRebuild();
+            }
+            return;
+        }
+        try {
+            long writes = readWrites(snapshot.keyPrefix);
+            if (writes != snapshot.writes.get()) {
+                log.info("Movies in '{}' were written elsewhere (write count {}, id filter has seen {}), rebuilding",
+                        snapshot.keyPrefix, writes, snapshot.writes.get());
+                this.invalidate();
+            }
+        } catch (Exception e) {
+            log.debug("Unable to read the movie write count: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @param id
+     * @return false only when the movie definitely doesn't exist in the active generation
+     */
+    public boolean mightContain(String id) {
+        IdSnapshot snapshot = current.get();
+        if (!enabled || snapshot == null || !snapshot.keyPrefix.equals(movieIndexService.keyPrefix())) {
+            return true;
+        }
+        if (snapshot.ids.mightContain(id)) {
+            passed.incrementAndGet();
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Record an id the filter let through but which wasn't found in Redis
+     *
+     * @param id
+     */
+    public void recordMiss(String id) {
+        IdSnapshot snapshot = current.get();
+        if (enabled && snapshot != null && snapshot.ids.mightContain(id)) {
+            falsePositives.incrementAndGet();
+        }
+    }
+
+    public IdFilterMetrics getMetrics() {
+        IdSnapshot snapshot = current.get();
+        IdFilterMetrics metrics = new IdFilterMetrics();
+        metrics.setReady(enabled && snapshot != null);
+        if (snapshot != null) {
+            metrics.setKeyPrefix(snapshot.keyPrefix);
+            metrics.setIds(snapshot.count.get());
+            metrics.setExpectedFpp(snapshot.ids.expectedFpp());
+        }
+        metrics.setRejected(rejected.get());
+        metrics.setPassed(passed.get());
+        metrics.setFalsePositives(falsePositives.get());
+        metrics.setFalsePositiveRate(passed.get() == 0 ? 0 : (double) falsePositives.get() / passed.get());
+        return metrics;
+    }
+
+    private void invalidate() {
+        version.incrementAndGet();
+        current.set(null);
+        this.scheduleRebuild();
+    }
+
+    private void scheduleRebuild() {
+        if (enabled && rebuildQueued.compareAndSet(false, true)) {
+            executor.submit(() -> {
+                rebuildQueued.set(false);
+                this.rebuild();
+            });
+        }
+    }
+
+    private void rebuild() {
+        long started = version.get();
+        String keyPrefix = movieIndexService.keyPrefix();
+        rebuilding.set(true);
+        try {
+            long numDocs = readNumDocs(keyPrefix);
+            IdSnapshot snapshot = new IdSnapshot(keyPrefix, BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8),
+                    Math.max(expectedInsertions, numDocs + numDocs / 4), fpp));
+
+            // Local writes from here on reach the snapshot through onMoviesWritten, earlier ones are counted in
+            // the write count read next & their keys exist before the scan starts
+            building.set(snapshot);
+            snapshot.writes.set(readWrites(keyPrefix));
+
+            ScanParams params = new ScanParams().match(keyPrefix + "*").count(1000);
+            String cursor = ScanParams.SCAN_POINTER_START;
+            do {
+                ScanResult<String> page = jedis.scan(cursor, params);
+                for (String key : page.getResult()) {
+                    snapshot.put(key.substring(keyPrefix.length()));
+                }
+                cursor = page.getCursor();
+            } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+
+            // Keys written elsewhere during the scan may have been missed
+            long writes = readWrites(keyPrefix);
+            if (writes != snapshot.writes.get()) {
+                log.info("Movies in '{}' were written during the id filter rebuild (write count {}, seen {}), retrying",
+                        keyPrefix, writes, snapshot.writes.get());
+                return;
+            }
+
+            if (version.get() == started) {
+                current.set(snapshot);
+                log.info("Movie id filter built with {} ids from '{}' (expected fpp: {})", snapshot.count.get(), keyPrefix,
+                        String.format("%.4f", snapshot.ids.expectedFpp()));
+            }
+        } catch (Exception e) {
+            log.error("Failed to build the movie id filter for '{}'", keyPrefix, e);
+        } finally {
+            building.set(null);
+            rebuilding.set(false);
+        }
+    }
+
+    private long readWrites(String keyPrefix) {
+        String writes = jedis.get(MovieBulkLoader.writesKey(keyPrefix));
+        return writes == null ? 0 : Long.parseLong(writes);
+    }
+
+    private long readNumDocs(String keyPrefix) {
+        Map<String, Object> info = jedis.ftInfo(MovieIndexService.indexFor(keyPrefix));
+        Object value = info.get("num_docs");
+        String numDocs = value instanceof byte[] ? new String((byte[]) value, StandardCharsets.UTF_8) : String.valueOf(value);
+        return (long) Double.parseDouble(numDocs);
+    }
+
+    /**
+     * Guava's BloomFilter is safe for concurrent puts & reads
+     */
+    private static final class IdSnapshot {
+
+        private final String keyPrefix;
+        private final BloomFilter<CharSequence> ids;
+        private final AtomicLong count = new AtomicLong();
+        // Value of the write counter this filter reflects, -1 until read
+        private final AtomicLong writes = new AtomicLong(-1);
+
+        private IdSnapshot(String keyPrefix, BloomFilter<CharSequence> ids) {
+            this.keyPrefix = keyPrefix;
+            this.ids = ids;
+        }
+
+        private void put(String id) {
+            ids.put(id);
+            count.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,476 @@
+package io.redis.service;
+
+import io.redis.configuration.IndexProfileProperties;
+import io.redis.configuration.MovieBulkLoader;
+import io.redis.event.MovieDataReloadedEvent;
+import io.redis.model.LoadReport;
+import io.redis.model.Movie;
+import io.redis.model.ReindexStatus;
+import io.redis.repository.MovieCreditsRepository;
+import io.redis.repository.MovieRepository;
+import io.redis.type.ReindexStateENUM;
+import io.redis.util.SchemaUtil;
+import io.redis.util.SuggestionDictionary;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.search.FTCreateParams;
+import redis.clients.jedis.search.IndexDataType;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Blue/Green (generational) indexing of movies
+ * "io.redis.model.MovieIdx" is always an alias of a versioned index, generation 0 is created on startup before Redis OM
+ * creates its indexes: "io.redis.model.MovieIdx.v0" over "io.redis.model.Movie:"
+ * Each reindex loads the movies file into a new versioned keyspace & index i.e.
+ * - KEYS: "io.redis.model.Movie.v2:<ID>"
+ * - INDEX: "io.redis.model.MovieIdx.v2" (FT.CREATE ... ON JSON PREFIX 1 "io.redis.model.Movie.v2:")
+ * Once FT.INFO reports the new index is fully indexed the alias is repointed with FT.ALIASUPDATE & the active
+ * generation stored in Redis, and the previous generation is dropped in the background once every instance has had
+ * time to pick up the swap (spring.redis.movie.index.generation-refresh-ms).
+ * Searches query the active generation's index by name (getActiveIndexName) rather than through the alias: Redis OM
+ * creates a real "io.redis.model.MovieIdx" over "io.redis.model.Movie:" on every startup, which shadows the alias until
+ * verifyAlias drops it, the alias is kept for tools & redis-cli.
+ * New generations are created with the configured index profile (spring.redis.movie.index.profile), generation 0 is
+ * always the full Redis OM schema, so switching profile takes effect on the next reindex.
+ */
+@Slf4j
+@Service
+public class MovieIndexService {
+
+    public static final String INDEX_ALIAS = Movie.class.getName() + "Idx";
+
+    private static final String GENERATION_KEY = "index:" + INDEX_ALIAS + ":generation";
+
+    // HASH of generation -> index profile it was created with
+    private static final String PROFILES_KEY = "index:" + INDEX_ALIAS + ":profiles";
+
+    @Autowired
+    JedisPooled jedis;
+
+    @Autowired
+    MovieBulkLoader movieBulkLoader;
+
+    @Autowired
+    MovieRepository movieRepository;
+
+    @Autowired
+    SchemaUtil schemaUtil;
+
+    @Autowired
+    IndexProfileProperties indexProfiles;
+
+    @Autowired
+    SuggestionDictionary suggestionDictionary;
+
+    @Autowired
+    MovieTopListService topListService;
+
+    @Autowired
+    MovieCreditsRepository creditsRepository;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Value("${spring.redis.movie.data.dir}")
+    private String FILE_DIR;
+
+    @Value("${spring.redis.movie.data.file}")
+    private String SAMPLE_FILE;
+
+    @Value("${spring.redis.movie.index.reindex.poll-interval-ms:500}")
+    private long pollIntervalMs;
+
+    @Value("${spring.redis.movie.index.reindex.timeout-seconds:1800}")
+    private long timeoutSeconds;
+
+    @Value("${spring.redis.movie.index.reindex.drop-delay-seconds:30}")
+    private long dropDelaySeconds;
+
+    private final AtomicInteger activeGeneration = new AtomicInteger();
+    private final AtomicReference<ReindexStatus> status = new AtomicReference<>(new ReindexStatus());
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("movie-reindex-"));
+
+    @PostConstruct
+    public void init() {
+        activeGeneration.set(readGeneration());
+        if (activeGeneration.get() == 0) {
+            this.createGenerationZero();
+        }
+        log.info("Active movie index generation: {} (keyspace: '{}')", activeGeneration.get(), keyPrefix());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Pick up generation swaps made by other instances
+     */
+    @Scheduled(fixedDelayString = "${spring.redis.movie.index.generation-refresh-ms:5000}")
+    public void refreshGeneration() {
+        int next = readGeneration();
+        if (activeGeneration.getAndSet(next) != next) {
+            eventPublisher.publishEvent(new MovieDataReloadedEvent(this, keyPrefix(next)));
+        }
+    }
+
+    private int readGeneration() {
+        String generation = jedis.get(GENERATION_KEY);
+        return generation == null ? 0 : Integer.parseInt(generation);
+    }
+
+    /**
+     * Create "io.redis.model.MovieIdx.v0" over "io.redis.model.Movie:" with the full schema & alias it, so Redis OM's
+     * own FT.CREATE of "io.redis.model.MovieIdx" finds the name taken
+     * A real "io.redis.model.MovieIdx" left by an older deployment is replaced once v0 has indexed the existing movies,
+     * which is the only time the alias is briefly missing
+     */
+    private void createGenerationZero() {
+        String index = indexName(0);
+        try {
+            jedis.ftCreate(index, FTCreateParams.createParams().on(IndexDataType.JSON).prefix(keyPrefix(0)),
+                    schemaUtil.buildSchema(Movie.class));
+            log.info("Created index '{}' for generation 0", index);
+        } catch (Exception e) {
+            // Created by a previous start or another instance
+            log.debug("Index '{}' not created: {}", index, e.getMessage());
+        }
+
+        if (this.isIndex(INDEX_ALIAS)) {
+            try {
+                this.awaitIndexed(index);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            log.info("Replacing index '{}' with an alias of '{}'", INDEX_ALIAS, index);
+            jedis.ftDropIndex(INDEX_ALIAS);
+        }
+        jedis.ftAliasUpdate(INDEX_ALIAS, index);
+    }
+
+    /**
+     * Redis OM tries to create "io.redis.model.MovieIdx" on every startup, if that succeeded while the name is
+     * in use as an alias the real index shadows the alias, so drop it (keeping documents)
+     * Nothing in this application searches through the alias, so the shadow index is never read in the meantime
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyAlias() {
+        int generation = activeGeneration.get();
+        if (this.isIndex(INDEX_ALIAS)) {
+            log.warn("Index '{}' is shadowing the alias for generation {}, dropping it", INDEX_ALIAS, generation);
+            jedis.ftDropIndex(INDEX_ALIAS);
+        }
+        jedis.ftAliasUpdate(INDEX_ALIAS, indexName(generation));
+    }
+
+    /**
+     * Whether FT.INFO of the name resolves to an index of that name rather than through an alias
+     */
+    private boolean isIndex(String name) {
+        try {
+            return name.equals(getInfoValue(jedis.ftInfo(name), "index_name"));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    public int getActiveGeneration() {
+        return activeGeneration.get();
+    }
+
+    /**
+     * Index (not alias) name of the active generation i.e. "io.redis.model.MovieIdx.v2", which every search queries
+     *
+     * @return
+     */
+    public String getActiveIndexName() {
+        return indexName(activeGeneration.get());
+    }
+
+    /**
+     * Index (not alias) name over a generation's keyspace i.e. "io.redis.model.Movie.v2:" -> "io.redis.model.MovieIdx.v2"
+     *
+     * @param keyPrefix
+     * @return
+     */
+    public static String indexFor(String keyPrefix) {
+        if (MovieBulkLoader.MOVIE_KEYSPACE.equals(keyPrefix)) {
+            return indexName(0);
+        }
+        return indexName(Integer.parseInt(StringUtils.substringBetween(keyPrefix, Movie.class.getName() + ".v", ":")));
+    }
+
+    /**
+     * Index profile the active generation was created with
+     *
+     * @return
+     */
+    public String getActiveProfile() {
+        int generation = activeGeneration.get();
+        if (generation == 0) {
+            return IndexProfileProperties.FULL;
+        }
+        String profile = jedis.hget(PROFILES_KEY, String.valueOf(generation));
+        return profile == null ? IndexProfileProperties.FULL : profile;
+    }
+
+    /**
+     * Key prefix for documents of the active generation
+     *
+     * @return
+     */
+    public String keyPrefix() {
+        return keyPrefix(activeGeneration.get());
+    }
+
+    /**
+     * Redis key of a movie in the active generation i.e. "io.redis.model.Movie:278"
+     *
+     * @param id
+     * @return
+     */
+    public String keyFor(String id) {
+        return keyPrefix() + id;
+    }
+
+    /**
+     * Start a reindex in the background, if one is already running its status is returned
+     *
+     * @return
+     */
+    public synchronized ReindexStatus startReindex() {
+        ReindexStatus current = status.get();
+        if (isRunning(current)) {
+            return getStatus();
+        }
+        // Fail fast on a misconfigured profile
+        indexProfiles.get(indexProfiles.getProfile());
+
+        ReindexStatus next = new ReindexStatus();
+        next.setState(ReindexStateENUM.LOADING);
+        next.setFromGeneration(activeGeneration.get());
+        next.setToGeneration(activeGeneration.get() + 1);
+        next.setIndexName(indexName(next.getToGeneration()));
+        next.setProfile(indexProfiles.getProfile());
+        next.setStartedAt(Instant.now());
+        status.set(next);
+
+        int from = next.getFromGeneration();
+        int to = next.getToGeneration();
+        String profile = next.getProfile();
+        executor.submit(() -> reindex(from, to, profile));
+        return next;
+    }
+
+    /**
+     * Current reindex status, refreshing indexing progress from FT.INFO while in flight
+     * Statuses are never modified once published, each change publishes a copy
+     *
+     * @return
+     */
+    public ReindexStatus getStatus() {
+        ReindexStatus current = status.get();
+        if (current.getState() == ReindexStateENUM.LOADING || current.getState() == ReindexStateENUM.INDEXING) {
+            updateProgress(current.getIndexName());
+        }
+        return status.get();
+    }
+
+    /**
+     * Delete every movie of the active generation & reset back to the Redis OM managed index
+     */
+    public void deleteAll() {
+        int generation = activeGeneration.get();
+        if (generation > 0) {
+            // Generation 0 was dropped by the first reindex, so the alias moves to a new empty v0
+            this.createGenerationZero();
+            jedis.del(GENERATION_KEY);
+            activeGeneration.set(0);
+            jedis.ftDropIndexDD(indexName(generation));
+            jedis.hdel(PROFILES_KEY, String.valueOf(generation));
+        } else {
+            movieRepository.deleteAll();
+        }
+        movieBulkLoader.clearState(keyPrefix(generation));
+        suggestionDictionary.delete(keyPrefix(generation));
+        topListService.delete(keyPrefix(generation));
+        creditsRepository.delete(keyPrefix(generation));
+        eventPublisher.publishEvent(new MovieDataReloadedEvent(this, keyPrefix()));
+    }
+
+    private void reindex(int from, int to, String profile) {
+        String index = indexName(to);
+        try {
+            log.info("Reindexing movies from generation {} into {} ('{}') with index profile '{}'", from, to, keyPrefix(to), profile);
+            jedis.ftCreate(index, FTCreateParams.createParams().on(IndexDataType.JSON).prefix(keyPrefix(to)),
+                    schemaUtil.buildSchema(Movie.class, indexProfiles.get(profile)));
+            jedis.hset(PROFILES_KEY, String.valueOf(to), profile);
+
+            LoadReport report = movieBulkLoader.load(FILE_DIR + SAMPLE_FILE, keyPrefix(to));
+            update(s -> s.setLoadReport(report));
+
+            update(s -> s.setState(ReindexStateENUM.INDEXING));
+            awaitIndexed(index);
+
+            update(s -> s.setState(ReindexStateENUM.SWAPPING));
+            swapAlias(to);
+
+            update(s -> s.setState(ReindexStateENUM.CLEANUP));
+            TimeUnit.SECONDS.sleep(dropDelaySeconds);
+            dropGeneration(from);
+
+            update(s -> s.setState(ReindexStateENUM.COMPLETED));
+            log.info("Reindex to generation {} completed", to);
+        } catch (Exception e) {
+            log.error("Reindex to generation {} failed", to, e);
+            update(s -> {
+                s.setMessage(e.getMessage());
+                s.setState(ReindexStateENUM.FAILED);
+            });
+
+            // Discard the partially built generation unless it has already been made live
+            if (activeGeneration.get() != to) {
+                dropGeneration(to);
+            }
+        } finally {
+            update(s -> s.setFinishedAt(Instant.now()));
+        }
+    }
+
+    /**
+     * Publish a copy of the current status with a change applied
+     *
+     * @param change
+     */
+    private void update(Consumer<ReindexStatus> change) {
+        status.updateAndGet(current -> {
+            ReindexStatus next = new ReindexStatus();
+            next.setState(current.getState());
+            next.setFromGeneration(current.getFromGeneration());
+            next.setToGeneration(current.getToGeneration());
+            next.setIndexName(current.getIndexName());
+            next.setProfile(current.getProfile());
+            next.setDocumentsIndexed(current.getDocumentsIndexed());
+            next.setPercentIndexed(current.getPercentIndexed());
+            next.setLoadReport(current.getLoadReport());
+            next.setMessage(current.getMessage());
+            next.setStartedAt(current.getStartedAt());
+            next.setFinishedAt(current.getFinishedAt());
+            change.accept(next);
+            return next;
+        });
+    }
+
+    /**
+     * Poll FT.INFO until "percent_indexed" reaches 1.0
+     *
+     * @param index
+     * @throws InterruptedException
+     */
+    private void awaitIndexed(String index) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeoutSeconds);
+        while (updateProgress(index) < 1.0) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Timed out waiting for " + index + " to be indexed");
+            }
+            TimeUnit.MILLISECONDS.sleep(pollIntervalMs);
+        }
+    }
+
+    /**
+     * Read indexing progress from FT.INFO, published to the status when it's for the reindex in flight
+     *
+     * @param index
+     * @return fraction indexed, 0 when FT.INFO can't be read
+     */
+    private double updateProgress(String index) {
+        try {
+            Map<String, Object> info = jedis.ftInfo(index);
+            long documents = Long.parseLong(getInfoValue(info, "num_docs"));
+            double percent = Double.parseDouble(getInfoValue(info, "percent_indexed"));
+            if (index.equals(status.get().getIndexName())) {
+                update(s -> {
+                    s.setDocumentsIndexed(documents);
+                    s.setPercentIndexed(percent);
+                });
+            }
+            return percent;
+        } catch (Exception e) {
+            log.debug("Unable to read index info for {}: {}", index, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Repoint "io.redis.model.MovieIdx" to the new generation, a single FT.ALIASUPDATE so the alias always resolves
+     *
+     * @param to
+     */
+    private void swapAlias(int to) {
+        jedis.ftAliasUpdate(INDEX_ALIAS, indexName(to));
+        jedis.set(GENERATION_KEY, String.valueOf(to));
+        activeGeneration.set(to);
+        eventPublisher.publishEvent(new MovieDataReloadedEvent(this, keyPrefix(to)));
+        log.info("Alias '{}' now points to '{}'", INDEX_ALIAS, indexName(to));
+    }
+
+    /**
+     * Drop a generation's index and documents
+     *
+     * @param generation
+     */
+    private void dropGeneration(int generation) {
+        try {
+            jedis.ftDropIndexDD(indexName(generation));
+            jedis.hdel(PROFILES_KEY, String.valueOf(generation));
+            movieBulkLoader.clearState(keyPrefix(generation));
+            suggestionDictionary.delete(keyPrefix(generation));
+            topListService.delete(keyPrefix(generation));
+            creditsRepository.delete(keyPrefix(generation));
+            log.info("Dropped movie index generation {}", generation);
+        } catch (Exception e) {
+            log.error("Failed to drop movie index generation {}", generation, e);
+        }
+    }
+
+    private boolean isRunning(ReindexStatus reindex) {
+        return reindex.getState() != ReindexStateENUM.IDLE
+                && reindex.getState() != ReindexStateENUM.COMPLETED
+                && reindex.getState() != ReindexStateENUM.FAILED;
+    }
+
+    private String getInfoValue(Map<String, Object> info, String key) {
+        Object value = info.get(key);
+        return value instanceof byte[] ? new String((byte[]) value, StandardCharsets.UTF_8) : String.valueOf(value);
+    }
+
+    private String keyPrefix(int generation) {
+        return generation == 0 ? MovieBulkLoader.MOVIE_KEYSPACE : Movie.class.getName() + ".v" + generation + ":";
+    }
+
+    private static String indexName(int generation) {
+        return INDEX_ALIAS + ".v" + generation;
+    }
+}
@@ -0,0 +1,302 @@
+package io.redis.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.redis.event.MovieDataReloadedEvent;
+import io.redis.model.CacheMetrics;
+import io.redis.model.Movie;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.util.SafeEncoder;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-JVM near cache of deserialised movies, keyed on the Redis key of the active generation
+ * Entries are evicted when their document changes using Redis keyspace notifications, every instance subscribes to
+ * "__keyspace@*__:io.redis.model.Movie*" & drops the key of any JSON.SET, DEL, UNLINK, EXPIRE etc.
+ * Keyspace notifications are fire & forget (missed while disconnected), so entries also expire after a TTL.
+ * A miss loaded while its own key was evicted isn't cached, evictions of other keys don't affect it.
+ * The whole cache is cleared whenever the movie data is reloaded or the index generation changes.
+ */
+@Slf4j
+@Service
+public class MovieNearCache implements MessageListener {
+
+    private static final String KEYSPACE_CHANNEL_PREFIX = "__keyspace@";
+    private static final String KEYSPACE_PATTERN = KEYSPACE_CHANNEL_PREFIX + "*__:" + Movie.class.getName() + "*";
+
+    // K: keyspace channel, g: DEL/EXPIRE/RENAME etc., x: expired, e: evicted, d: module (JSON.*) commands
+    private static final String REQUIRED_EVENTS = "Kgxed";
+
+    @Autowired
+    JedisPooled jedis;
+
+    @Autowired
+    RedisMessageListenerContainer listenerContainer;
+
+    @Value("${spring.redis.movie.near-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${spring.redis.movie.near-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${spring.redis.movie.near-cache.ttl:10m}")
+    private Duration ttl;
+
+    @Value("${spring.redis.movie.near-cache.configure-notifications:true}")
+    private boolean configureNotifications;
+
+    private Cache<String, Movie> cache;
+
+    // Keys being loaded -> version, bumped when the key is evicted during the load. A load which overlapped an
+    // eviction of its own key isn't cached as it may have read the old document, other keys' evictions don't matter
+    private final ConcurrentMap<String, KeyVersion> loading = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        if (!enabled) {
+            return;
+        }
+
+        if (configureNotifications) {
+            this.enableKeyspaceNotifications();
+        }
+        listenerContainer.addMessageListener(this, new PatternTopic(KEYSPACE_PATTERN));
+        log.info("Movie near cache listening on '{}' (max size: {}, ttl: {})", KEYSPACE_PATTERN, maxSize, ttl);
+    }
+
+    /**
+     * Get a movie by its Redis key, loading & caching it on a miss (missing movies aren't cached)
+     *
+     * @param key
+     * @param loader
+     * @return
+     */
+    public Optional<Movie> get(String key, Function<String, Movie> loader) {
+        if (!enabled) {
+            return Optional.ofNullable(loader.apply(key));
+        }
+
+        Movie movie = cache.getIfPresent(key);
+        if (movie == null) {
+            long version = this.beginLoad(key);
+            try {
+                movie = loader.apply(key);
+            } finally {
+                this.endLoad(key, version, movie);
+            }
+        }
+        return Optional.ofNullable(movie);
+    }
+
+    /**
+     * Non-blocking variant of get, used by the reactive handlers
+     *
+     * @param key
+     * @param loader
+     * @return empty when the movie doesn't exist
+     */
+    public Mono<Movie> getAsync(String key, Function<String, Mono<Movie>> loader) {
+        if (!enabled) {
+            return loader.apply(key);
+        }
+
+        Movie movie = cache.getIfPresent(key);
+        if (movie != null) {
+            return Mono.just(movie);
+        }
+        return Mono.defer(() -> {
+            long version = this.beginLoad(key);
+            AtomicReference<Movie> loaded = new AtomicReference<>();
+            return loader.apply(key)
+                    .doOnNext(loaded::set)
+                    .doFinally(signal -> this.endLoad(key, version, loaded.get()));
+        });
+    }
+
+    /**
+     * Get several movies by their Redis keys, only the keys missing from the cache are passed to the loader
+     *
+     * @param keys
+     * @param loader loads the given keys, leaving out missing movies
+     * @return key -> movie, missing movies are left out (& aren't cached)
+     */
+    public Map<String, Movie> getAll(List<String> keys, Function<List<String>, Map<String, Movie>> loader) {
+        if (!enabled) {
+            return loader.apply(keys);
+        }
+
+        Map<String, Movie> movies = new HashMap<>(cache.getAllPresent(keys));
+        List<String> misses = keys.stream()
+                .filter(k -> !movies.containsKey(k))
+                .collect(Collectors.toList());
+        if (misses.isEmpty()) {
+            return movies;
+        }
+
+        Map<String, Long> versions = new HashMap<>(misses.size());
+        misses.forEach(k -> versions.put(k, this.beginLoad(k)));
+        Map<String, Movie> loaded = Map.of();
+        try {
+            loaded = loader.apply(misses);
+        } finally {
+            for (Map.Entry<String, Long> version : versions.entrySet()) {
+                this.endLoad(version.getKey(), version.getValue(), loaded.get(version.getKey()));
+            }
+        }
+        movies.putAll(loaded);
+        return movies;
+    }
+
+    /**
+     * Keyspace notification, the channel carries the key i.e. "__keyspace@0__:io.redis.model.Movie:278"
+     *
+     * @param message
+     * @param pattern
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        int separator = channel.indexOf("__:");
+        if (separator > 0) {
+            String key = channel.substring(separator + 3);
+            loading.computeIfPresent(key, (k, v) -> v.bump());
+            cache.invalidate(key);
+            log.debug("Near cache evicted '{}' ({})", key, new String(message.getBody(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @EventListener
+    public void onMovieDataReloaded(MovieDataReloadedEvent event) {
+        loading.replaceAll((k, v) -> v.bump());
+        cache.invalidateAll();
+        log.info("Near cache invalidated, movie data reloaded into '{}'", event.getKeyPrefix());
+    }
+
+    /**
+     * Register a load of the key
+     *
+     * @param key
+     * @return the key's version when the load started
+     */
+    private long beginLoad(String key) {
+        long[] version = new long[1];
+        loading.compute(key, (k, v) -> {
+            KeyVersion retained = (v == null ? new KeyVersion() : v).retain();
+            version[0] = retained.version;
+            return retained;
+        });
+        return version[0];
+    }
+
+    /**
+     * Cache the loaded movie unless its key was evicted since the load started, the check & put happen under the
+     * key's lock so an eviction can't slip in between
+     *
+     * @param key
+     * @param version returned by beginLoad
+     * @param movie   null when the movie doesn't exist or the load failed
+     */
+    private void endLoad(String key, long version, Movie movie) {
+        loading.computeIfPresent(key, (k, v) -> {
+            if (movie != null && v.version == version) {
+                cache.put(key, movie);
+            }
+            return v.release() == 0 ? null : v;
+        });
+    }
+
+    public CacheMetrics getMetrics() {
+        return CacheMetrics.of("movie-near-cache", cache.size(), cache.stats());
+    }
+
+    /**
+     * Add the keyspace events we rely on to the server's notify-keyspace-events, keeping any already enabled
+     * Falls back to generic events only on servers without module ('d') events & leaves the config untouched
+     * where CONFIG is disabled (i.e. managed services) in which case the TTL bounds staleness
+     */
+    private void enableKeyspaceNotifications() {
+        try {
+            @SuppressWarnings("unchecked")
+            List<Object> current = (List<Object>) jedis.sendCommand(Protocol.Command.CONFIG, "GET", "notify-keyspace-events");
+            String flags = current.size() > 1 ? SafeEncoder.encode((byte[]) current.get(1)) : "";
+
+            String merged = mergeFlags(flags, REQUIRED_EVENTS);
+            if (merged.equals(flags)) {
+                return;
+            }
+            try {
+                jedis.sendCommand(Protocol.Command.CONFIG, "SET", "notify-keyspace-events", merged);
+            } catch (Exception e) {
+                log.warn("Module keyspace events unsupported ({}), falling back to all events", e.getMessage());
+                merged = mergeFlags(flags, "KA");
+                jedis.sendCommand(Protocol.Command.CONFIG, "SET", "notify-keyspace-events", merged);
+            }
+            log.info("Enabled keyspace notifications: '{}'", merged);
+        } catch (Exception e) {
+            log.warn("Unable to configure keyspace notifications, near cache entries will only expire after {}: {}",
+                    ttl, e.getMessage());
+        }
+    }
+
+    private String mergeFlags(String flags, String required) {
+        StringBuilder merged = new StringBuilder(flags);
+        for (char flag : required.toCharArray()) {
+            if (merged.indexOf(String.valueOf(flag)) < 0) {
+                merged.append(flag);
+            }
+        }
+        return merged.toString();
+    }
+
+    /**
+     * Only read & mutated inside ConcurrentMap.compute* i.e. under the key's lock
+     */
+    private static class KeyVersion {
+
+        private long version;
+        private int loads;
+
+        KeyVersion retain() {
+            loads++;
+            return this;
+        }
+
+        int release() {
+            return --loads;
+        }
+
+        KeyVersion bump() {
+            version++;
+            return this;
+        }
+    }
+}
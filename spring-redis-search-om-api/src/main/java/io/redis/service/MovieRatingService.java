@@ -0,0 +1,264 @@
+package io.redis.service;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import io.redis.event.MovieRatingsFlushedEvent;
+import io.redis.model.EventBatchResult;
+import io.redis.model.MovieRating;
+import io.redis.model.RatingMetrics;
+import io.redis.type.FieldENUM;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind rating submission: votes are summed in memory per movie & flushed every
+ * spring.redis.movie.ratings.flush-ms as partial updates of the movie document, never a full document save.
+ * Each movie's flush is a small script, so the read of the current average & the write of the new one can't
+ * interleave with another instance flushing the same movie:
+ * REDIS: "EVAL" "<script>" "1" "io.redis.model.Movie:278" "<votes>" "<sum of ratings>" which runs
+ * "JSON.GET" "$.voteCount" / "$.voteAverage", "JSON.SET" "$.voteAverage" & "JSON.NUMINCRBY" "$.voteCount"
+ * The scripts of a flush are sent as pipelines of up to spring.redis.movie.ratings.flush-batch movies.
+ * The index picks the new values up from the document, but a movie is re-indexed once per flush rather than per vote.
+ * The materialised top lists of the movie are updated in the same pipeline, and a MovieRatingsFlushedEvent is published
+ * once a flush has changed any movie so this instance's cached search results are discarded. Other instances' caches
+ * keep the old values until their entries expire (spring.redis.movie.search.cache.ttl).
+ */
+@Slf4j
+@Service
+public class MovieRatingService {
+
+    public static final double MIN_RATING = 0.5;
+    public static final double MAX_RATING = 10;
+
+    // A JSON null decodes to cjson.null which is truthy, so it's checked for explicitly
+    // Returns the new average, the new count & the movie's genres, or nil when the movie doesn't exist
+    private static final String FLUSH_SCRIPT = String.join("\n",
+            "local reply = redis.call('JSON.GET', KEYS[1], '$.voteCount')",
+            "if not reply then return false end",
+            "local count = cjson.decode(reply)[1]",
+            "if count == nil or count == cjson.null then count = 0 end",
+            "local averageReply = redis.call('JSON.GET', KEYS[1], '$.voteAverage')",
+            "local average = averageReply and cjson.decode(averageReply)[1]",
+            "if average == nil or average == cjson.null then average = 0 end",
+            "local votes = tonumber(ARGV[1])",
+            "local total = count + votes",
+            "local updated = math.floor((average * count + tonumber(ARGV[2])) / total * 1000 + 0.5) / 1000",
+            "redis.call('JSON.SET', KEYS[1], '$.voteAverage', tostring(updated))",
+            "redis.call('JSON.NUMINCRBY', KEYS[1], '$.voteCount', votes)",
+            "return {tostring(updated), tostring(total), redis.call('JSON.GET', KEYS[1], '$.genres')}");
+
+    @Autowired
+    JedisPooled jedis;
+
+    @Autowired
+    MovieIndexService movieIndexService;
+
+    @Autowired
+    MovieIdFilter movieIdFilter;
+
+    @Autowired
+    MovieTopListService topListService;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Value("${spring.redis.movie.ratings.max-ratings:10000}")
+    private int maxRatings;
+
+    @Value("${spring.redis.movie.ratings.flush-batch:500}")
+    private int flushBatch;
+
+    private final Map<String, Votes> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong moviesUpdated = new AtomicLong();
+    private final AtomicLong votesWritten = new AtomicLong();
+    private final AtomicLong votesDropped = new AtomicLong();
+    private volatile long lastFlushMillis;
+
+    /**
+     * Votes summed for a movie since its last flush
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class Votes {
+
+        private final long count;
+        private final double sum;
+
+        Votes add(Votes other) {
+            return new Votes(count + other.count, sum + other.sum);
+        }
+    }
+
+    /**
+     * Pending votes are written before shutting down
+     */
+    @PreDestroy
+    public void destroy() {
+        this.flush();
+    }
+
+    /**
+     * Add a batch of ratings to the pending votes, ratings outside 0.5 - 10 or for unknown movies are rejected
+     * Nothing is written to Redis until the next flush
+     *
+     * @param ratings
+     * @return
+     */
+    public EventBatchResult submit(List<MovieRating> ratings) {
+        if (ratings.size() > maxRatings) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Too many ratings (" + ratings.size() + "), at most " + maxRatings + " can be sent at once");
+        }
+
+        long batchRejected = 0;
+        for (MovieRating rating : ratings) {
+            String id = rating == null ? null : StringUtils.trimToNull(rating.getMovieId());
+            if (id == null || rating.getRating() < MIN_RATING || rating.getRating() > MAX_RATING || !movieIdFilter.mightContain(id)) {
+                batchRejected++;
+                continue;
+            }
+            pending.merge(id, new Votes(1, rating.getRating()), Votes::add);
+        }
+
+        accepted.addAndGet(ratings.size() - batchRejected);
+        rejected.addAndGet(batchRejected);
+        return new EventBatchResult(ratings.size() - batchRejected, batchRejected);
+    }
+
+    /**
+     * Write the pending votes, each movie's votes are taken out of the pending map atomically so votes submitted
+     * during a flush are kept for the next one
+     */
+    @Scheduled(fixedDelayString = "${spring.redis.movie.ratings.flush-ms:1000}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        String keyPrefix = movieIndexService.keyPrefix();
+        Map<String, Votes> batch = new LinkedHashMap<>();
+        List<String> updated = new ArrayList<>();
+        for (String id : pending.keySet()) {
+            Votes votes = pending.remove(id);
+            if (votes != null) {
+                batch.put(id, votes);
+            }
+            if (batch.size() >= flushBatch) {
+                this.write(keyPrefix, batch, updated);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            this.write(keyPrefix, batch, updated);
+        }
+        if (!updated.isEmpty()) {
+            eventPublisher.publishEvent(new MovieRatingsFlushedEvent(this, keyPrefix, updated));
+        }
+
+        flushes.incrementAndGet();
+        lastFlushMillis = System.currentTimeMillis() - start;
+        log.debug("Flushed ratings in {}ms", lastFlushMillis);
+    }
+
+    public RatingMetrics getMetrics() {
+        RatingMetrics metrics = new RatingMetrics();
+        metrics.setPendingMovies(pending.size());
+        metrics.setAccepted(accepted.get());
+        metrics.setRejected(rejected.get());
+        metrics.setFlushes(flushes.get());
+        metrics.setMoviesUpdated(moviesUpdated.get());
+        metrics.setVotesWritten(votesWritten.get());
+        metrics.setVotesDropped(votesDropped.get());
+        metrics.setLastFlushMillis(lastFlushMillis);
+        return metrics;
+    }
+
+    private void write(String keyPrefix, Map<String, Votes> batch, List<String> updated) {
+        Map<String, Response<Object>> responses = new LinkedHashMap<>();
+        Set<String> settled = new HashSet<>();
+        try (Connection connection = jedis.getPool().getResource()) {
+            Pipeline pipeline = new Pipeline(connection);
+            batch.forEach((id, votes) -> responses.put(id, pipeline.eval(FLUSH_SCRIPT,
+                    List.of(keyPrefix + id),
+                    List.of(String.valueOf(votes.getCount()), String.valueOf(votes.getSum())))));
+            pipeline.sync();
+
+            // Top lists are updated in a second round trip, they need the values the scripts computed
+            for (Map.Entry<String, Response<Object>> response : responses.entrySet()) {
+                Votes votes = batch.get(response.getKey());
+                settled.add(response.getKey());
+                List<?> reply;
+                try {
+                    reply = (List<?>) response.getValue().get();
+                } catch (Exception e) {
+                    log.warn("Failed to write {} ratings of movie {}", votes.getCount(), response.getKey(), e);
+                    votesDropped.addAndGet(votes.getCount());
+                    continue;
+                }
+                if (reply == null) {
+                    // Deleted since the ratings were submitted, or a false positive of the id filter
+                    movieIdFilter.recordMiss(response.getKey());
+                    votesDropped.addAndGet(votes.getCount());
+                    continue;
+                }
+
+                moviesUpdated.incrementAndGet();
+                updated.add(response.getKey());
+                votesWritten.addAndGet(votes.getCount());
+                topListService.update(pipeline, keyPrefix, response.getKey(), genres(reply.get(2)), Map.of(
+                        FieldENUM.VOTE_AVERAGE.getFieldName(), Double.parseDouble(asString(reply.get(0))),
+                        FieldENUM.VOTE_COUNT.getFieldName(), Double.parseDouble(asString(reply.get(1)))));
+            }
+            pipeline.sync();
+        } catch (Exception e) {
+            // The pending votes were already taken, rather than retrying a batch that may have been partly written
+            // the votes not yet accounted for are counted as dropped
+            long dropped = batch.entrySet().stream()
+                    .filter(entry -> !settled.contains(entry.getKey()))
+                    .mapToLong(entry -> entry.getValue().getCount())
+                    .sum();
+            votesDropped.addAndGet(dropped);
+            log.error("Failed to flush ratings of {} movies, {} votes dropped", batch.size(), dropped, e);
+        }
+    }
+
+    private static List<String> genres(Object reply) {
+        List<String> genres = new ArrayList<>();
+        if (reply == null) {
+            return genres;
+        }
+        JsonArray matches = JsonParser.parseString(asString(reply)).getAsJsonArray();
+        if (matches.size() > 0 && matches.get(0).isJsonArray()) {
+            matches.get(0).getAsJsonArray().forEach(g -> genres.add(g.getAsString()));
+        }
+        return genres;
+    }
+
+    private static String asString(Object reply) {
+        return reply instanceof byte[] ? new String((byte[]) reply, StandardCharsets.UTF_8) : String.valueOf(reply);
+    }
+}
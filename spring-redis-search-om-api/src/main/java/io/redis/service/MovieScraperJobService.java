@@ -0,0 +1,230 @@
+package io.redis.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import io.redis.model.ScrapeJob;
+import io.redis.type.ScrapeJobStateENUM;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Scrape top rated movies from TMDB as a background job
+ * The first page is fetched to find the page size & total pages, the remaining pages are fetched with bounded
+ * concurrency (flatMapSequential keeps TMDB's ranking order while only buffering in-flight pages) and each page is
+ * streamed into a JSON array on disk as soon as it arrives. Pages that still fail after retries are recorded on
+ * the job & skipped rather than abandoning the run. The array is written to a ".part" file which replaces the
+ * output file once the job finishes.
+ * Only one job runs at a time as every job writes the same output file, starting another returns the running job.
+ * Jobs are updated on scheduler threads & read by HTTP threads, so a published job is never modified, each change
+ * publishes a copy. Finished jobs are forgotten once older than spring.redis.movie.scraper.job-ttl.
+ */
+@Slf4j
+@Service
+public class MovieScraperJobService {
+
+    private final Map<String, AtomicReference<ScrapeJob>> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    MovieScraperService movieScraperService;
+
+    @Autowired
+    Gson gson;
+
+    @Value("${spring.redis.movie.scraper.concurrency:8}")
+    private int concurrency;
+
+    @Value("${spring.redis.movie.scraper.output-file:src/main/resources/movies/new-movies.json}")
+    private String outputFile;
+
+    @Value("${spring.redis.movie.scraper.job-ttl:1h}")
+    private Duration jobTtl;
+
+    /**
+     * Start scraping (at least) the given number of movies in the background, if a job is already running it is
+     * returned instead
+     *
+     * @param movies
+     * @return
+     */
+    public synchronized ScrapeJob startJob(int movies) {
+        this.evictFinished();
+        Optional<ScrapeJob> running = jobs.values().stream()
+                .map(AtomicReference::get)
+                .filter(j -> j.getState() == ScrapeJobStateENUM.RUNNING)
+                .findFirst();
+        if (running.isPresent()) {
+            log.info("Scrape job {} is already running", running.get().getId());
+            return running.get();
+        }
+
+        ScrapeJob started = new ScrapeJob();
+        started.setId(UUID.randomUUID().toString());
+        started.setRequestedMovies(movies);
+        started.setFile(outputFile);
+        started.setStartedAt(Instant.now());
+        AtomicReference<ScrapeJob> job = new AtomicReference<>(started);
+        jobs.put(started.getId(), job);
+
+        File output = new File(outputFile);
+        File part = new File(outputFile + ".part");
+
+        Mono.fromCallable(() -> openWriter(part))
+                .flatMap(writer -> scrape(job)
+                        .publishOn(Schedulers.boundedElastic())
+                        .doOnNext(results -> writePage(writer, results, job))
+                        .then(Mono.fromCallable(() -> {
+                            writer.endArray();
+                            writer.close();
+                            Files.move(part.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                            return job.get();
+                        }))
+                        .doOnError(e -> closeQuietly(writer)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(
+                        j -> finish(job, j.getFailedPages().isEmpty() ? ScrapeJobStateENUM.COMPLETED : ScrapeJobStateENUM.COMPLETED_WITH_ERRORS, null),
+                        e -> finish(job, ScrapeJobStateENUM.FAILED, e.getMessage()));
+
+        log.info("Started scrape job {} for {} movies", started.getId(), movies);
+        return started;
+    }
+
+    /**
+     * Current status of a job, a snapshot which isn't updated as the job progresses
+     *
+     * @param id
+     * @return empty for unknown jobs & finished jobs older than the TTL
+     */
+    public Optional<ScrapeJob> getJob(String id) {
+        this.evictFinished();
+        return Optional.ofNullable(jobs.get(id)).map(AtomicReference::get);
+    }
+
+    private void evictFinished() {
+        Instant expired = Instant.now().minus(jobTtl);
+        jobs.values().removeIf(job -> job.get().getFinishedAt() != null && job.get().getFinishedAt().isBefore(expired));
+    }
+
+    /**
+     * Emit the "results" array of every page required to cover the requested number of movies
+     *
+     * @param job
+     * @return
+     */
+    private Flux<JsonArray> scrape(AtomicReference<ScrapeJob> job) {
+        return movieScraperService.getMoviesAsync(1)
+                .map(response -> JsonParser.parseString(response).getAsJsonObject())
+                .flatMapMany(first -> {
+                    JsonArray results = first.getAsJsonArray("results");
+                    int pages = Math.max(1, Math.min(first.get("total_pages").getAsInt(),
+                            (int) Math.ceil((double) job.get().getRequestedMovies() / Math.max(1, results.size()))));
+                    ScrapeJob current = update(job, j -> j.setTotalPages(pages));
+                    log.info("Scrape job {} fetching {} pages with concurrency {}", current.getId(), pages, concurrency);
+
+                    return Flux.concat(Mono.just(results),
+                            Flux.range(2, Math.max(0, pages - 1))
+                                    .flatMapSequential(page -> fetchPage(job, page), concurrency));
+                });
+    }
+
+    private Mono<JsonArray> fetchPage(AtomicReference<ScrapeJob> job, int page) {
+        return movieScraperService.getMoviesAsync(page)
+                .map(response -> JsonParser.parseString(response).getAsJsonObject().getAsJsonArray("results"))
+                .onErrorResume(e -> {
+                    log.error("Scrape job {} failed to fetch page {}: {}", job.get().getId(), page, e.getMessage());
+                    update(job, j -> {
+                        List<Integer> failedPages = new ArrayList<>(j.getFailedPages());
+                        failedPages.add(page);
+                        j.setFailedPages(List.copyOf(failedPages));
+                    });
+                    return Mono.empty();
+                });
+    }
+
+    private JsonWriter openWriter(File file) throws IOException {
+        file.getParentFile().mkdirs();
+        JsonWriter writer = new JsonWriter(new BufferedWriter(new FileWriter(file)));
+        writer.beginArray();
+        return writer;
+    }
+
+    private void writePage(JsonWriter writer, JsonArray results, AtomicReference<ScrapeJob> job) {
+        for (JsonElement movie : results) {
+            gson.toJson(movie, writer);
+        }
+        ScrapeJob current = update(job, j -> {
+            j.setMoviesWritten(j.getMoviesWritten() + results.size());
+            j.setPagesCompleted(j.getPagesCompleted() + 1);
+        });
+        log.info("Scrape job {} wrote page {}/{}, total movies: {}", current.getId(), current.getPagesCompleted(),
+                current.getTotalPages(), current.getMoviesWritten());
+    }
+
+    private void finish(AtomicReference<ScrapeJob> job, ScrapeJobStateENUM state, String message) {
+        ScrapeJob current = update(job, j -> {
+            j.setState(state);
+            j.setMessage(message);
+            j.setFinishedAt(Instant.now());
+        });
+        log.info("Scrape job {} finished: {}, movies: {}, failed pages: {}", current.getId(), state,
+                current.getMoviesWritten(), current.getFailedPages());
+    }
+
+    /**
+     * Publish a copy of the job with a change applied
+     *
+     * @param job
+     * @param change
+     * @return the published copy
+     */
+    private ScrapeJob update(AtomicReference<ScrapeJob> job, Consumer<ScrapeJob> change) {
+        return job.updateAndGet(current -> {
+            ScrapeJob next = new ScrapeJob();
+            next.setId(current.getId());
+            next.setState(current.getState());
+            next.setRequestedMovies(current.getRequestedMovies());
+            next.setTotalPages(current.getTotalPages());
+            next.setPagesCompleted(current.getPagesCompleted());
+            next.setMoviesWritten(current.getMoviesWritten());
+            next.setFailedPages(current.getFailedPages());
+            next.setFile(current.getFile());
+            next.setMessage(current.getMessage());
+            next.setStartedAt(current.getStartedAt());
+            next.setFinishedAt(current.getFinishedAt());
+            change.accept(next);
+            return next;
+        });
+    }
+
+    private void closeQuietly(JsonWriter writer) {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.warn("Failed to close scrape output: {}", e.getMessage());
+        }
+    }
+}
@@ -1,51 +1,145 @@
 package io.redis.service;
 
+import io.redis.util.ResponseDiskCache;
+import io.redis.util.TokenBucketRateLimiter;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.util.UriBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
 
+import java.net.URI;
 import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
+/**
+ * TMDB API client
+ * Responses are cached on disk (see ResponseDiskCache) so repeated scrapes & enrichment runs don't refetch them,
+ * requests which miss the cache are throttled by a shared token bucket & retried with jittered exponential backoff
+ * on timeouts, connection errors, 429 and 5xx responses. Other errors (i.e. 401 invalid api key, 404) fail fast.
+ */
+@Slf4j
 @Service
 public class MovieScraperService {
 
     private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(3);
-    private static final String BASE_URL = "https://api.themoviedb.org/3/";
 
     private final WebClient tmdbApiClient;
+    private final TokenBucketRateLimiter rateLimiter;
 
     @Autowired
-    public MovieScraperService(WebClient tmdbApiClient) {
+    ResponseDiskCache responseCache;
+
+    @Value("${spring.redis.movie.scraper.api-key}")
+    private String apiKey;
+
+    @Value("${spring.redis.movie.scraper.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${spring.redis.movie.scraper.retry-backoff-ms:500}")
+    private long retryBackoffMs;
+
+    @Autowired
+    public MovieScraperService(WebClient tmdbApiClient,
+                               @Value("${spring.redis.movie.scraper.rate-per-second:20}") double ratePerSecond,
+                               @Value("${spring.redis.movie.scraper.burst:20}") int burst) {
         this.tmdbApiClient = tmdbApiClient;
+        this.rateLimiter = new TokenBucketRateLimiter(ratePerSecond, burst);
     }
 
     public String getMovies(int page) {
-        return tmdbApiClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path("movie/top_rated")
-                        .queryParam("page", page)
-                        .queryParam("api_key", "8be8e5bc13a1edef7fd11cedcdce8a27")
-                        .build())
-                .accept(MediaType.APPLICATION_JSON)
-                .retrieve()
-                .bodyToMono(String.class)
-                .block(REQUEST_TIMEOUT);
+        return getMoviesAsync(page).block();
+    }
+
+    /**
+     * Get a page of top rated movies
+     * REST: GET movie/top_rated?page=<PAGE>
+     *
+     * @param page
+     * @return
+     */
+    public Mono<String> getMoviesAsync(int page) {
+        return get(uriBuilder -> uriBuilder
+                .path("movie/top_rated")
+                .queryParam("page", page)
+                .queryParam("api_key", apiKey)
+                .build());
     }
     //                        .queryParam("sort_by", "vote_average.desc")
 //                        .queryParam("include_adult", "false")
 //                        .queryParam("vote_count.gte", 200)
 
     public String getMovieById(long id) {
-        return tmdbApiClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path("movie/" + id)
-                        .queryParam("append_to_response", "credits")
-                        .queryParam("api_key", "8be8e5bc13a1edef7fd11cedcdce8a27")
-                        .build())
-                .accept(MediaType.APPLICATION_JSON)
-                .retrieve()
-                .bodyToMono(String.class)
-                .block(REQUEST_TIMEOUT);
+        return getMovieByIdAsync(id).block();
+    }
+
+    /**
+     * Get a movie along with its credits
+     * REST: GET movie/<ID>?append_to_response=credits
+     *
+     * @param id
+     * @return
+     */
+    public Mono<String> getMovieByIdAsync(long id) {
+        return get(uriBuilder -> uriBuilder
+                .path("movie/" + id)
+                .queryParam("append_to_response", "credits")
+                .queryParam("api_key", apiKey)
+                .build());
+    }
+
+    /**
+     * Serve the response from the disk cache when present, otherwise fetch it (spending a rate limit token)
+     * and cache the body
+     *
+     * @param uri
+     * @return
+     */
+    private Mono<String> get(Function<UriBuilder, URI> uri) {
+        if (!responseCache.isEnabled()) {
+            return fetch(uri);
+        }
+
+        String key = responseCache.key(uri.apply(UriComponentsBuilder.newInstance()));
+        return Mono.fromCallable(() -> responseCache.get(key))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(cached -> cached.map(Mono::just)
+                        .orElseGet(() -> fetch(uri)
+                                .publishOn(Schedulers.boundedElastic())
+                                .doOnNext(body -> responseCache.put(key, body))));
+    }
+
+    private Mono<String> fetch(Function<UriBuilder, URI> uri) {
+        // Each attempt (including retries) waits for its own token
+        return rateLimiter.acquire()
+                .then(Mono.defer(() -> tmdbApiClient.get()
+                        .uri(uri)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .retrieve()
+                        .bodyToMono(String.class)
+                        .timeout(REQUEST_TIMEOUT)))
+                .retryWhen(Retry.backoff(maxRetries, Duration.ofMillis(retryBackoffMs))
+                        .jitter(0.5)
+                        .filter(this::isRetryable)
+                        .doBeforeRetry(signal -> log.warn("Retrying TMDB request (attempt {}): {}",
+                                signal.totalRetries() + 1, signal.failure().getMessage()))
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    private boolean isRetryable(Throwable e) {
+        if (e instanceof WebClientResponseException) {
+            WebClientResponseException response = (WebClientResponseException) e;
+            return response.getStatusCode().value() == 429 || response.getStatusCode().is5xxServerError();
+        }
+        return e instanceof TimeoutException || e instanceof WebClientRequestException;
     }
 }
@@ -1,21 +1,49 @@
 package io.redis.service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.redis.om.spring.ops.RedisModulesOperations;
+import io.redis.event.MovieDataReloadedEvent;
+import io.redis.event.MovieRatingsFlushedEvent;
+import io.redis.model.CacheMetrics;
+import io.redis.model.CoalescingMetrics;
+import io.redis.model.CursorPage;
+import io.redis.model.FacetedPage;
 import io.redis.model.Movie;
 
+import io.redis.model.MovieBatch;
+import io.redis.model.MovieCredits;
 import io.redis.model.MovieQueryFilter;
-import io.redis.repository.MovieRepository;
+import io.redis.model.PageCursor;
+import io.redis.model.RawJson;
+import io.redis.model.Suggestion;
+import io.redis.query.Query;
+import io.redis.repository.MovieCreditsRepository;
+import io.redis.repository.MovieProjectionRepository;
+import io.redis.type.FacetENUM;
 import io.redis.type.FieldENUM;
 import io.redis.type.OperatorENUM;
+import io.redis.type.SuggestionTypeENUM;
+import io.redis.util.CursorUtil;
 import io.redis.util.SearchUtil;
+import io.redis.util.SingleFlight;
+import io.redis.util.SuggestionDictionary;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 
 import org.springframework.data.domain.*;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.util.Set;
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 @Slf4j
@@ -23,11 +51,253 @@ import java.util.Set;
 public class MovieService {
 
     @Autowired
-    MovieRepository repository;
+    MovieProjectionRepository projectionRepository;
+
+    @Autowired
+    MovieCreditsRepository creditsRepository;
 
     @Autowired
     SearchUtil searchUtils;
 
+    @Autowired
+    CursorUtil cursorUtil;
+
+    @Autowired
+    MovieIndexService movieIndexService;
+
+    @Autowired
+    MovieNearCache movieNearCache;
+
+    @Autowired
+    MovieIdFilter movieIdFilter;
+
+    @Autowired
+    SuggestionDictionary suggestionDictionary;
+
+    @Autowired
+    MovieTopListService topListService;
+
+    @Autowired
+    RedisModulesOperations<String> modulesOperations;
+
+    @Value("${spring.redis.movie.batch.max-ids:500}")
+    private int batchMaxIds;
+
+    @Value("${spring.redis.movie.response.passthrough:false}")
+    private boolean passthrough;
+
+    @Value("${spring.redis.movie.search.coalescing.enabled:true}")
+    private boolean searchCoalescingEnabled;
+
+    @Value("${spring.redis.movie.search.cache.enabled:true}")
+    private boolean searchCacheEnabled;
+
+    @Value("${spring.redis.movie.search.cache.max-size:1000}")
+    private long searchCacheMaxSize;
+
+    @Value("${spring.redis.movie.search.cache.ttl:60s}")
+    private Duration searchCacheTtl;
+
+    // Search results keyed on the canonical query + page, size & sort
+    private Cache<String, Page<?>> searchCache;
+
+    // Bumped on every invalidation so searches started against the old data aren't cached afterwards
+    private final AtomicLong searchCacheEpoch = new AtomicLong();
+
+    // Identical searches in flight at the same time share a single FT.SEARCH
+    private final SingleFlight<String, Page<?>> searchFlights = new SingleFlight<>("search");
+
+    @PostConstruct
+    public void init() {
+        searchCache = CacheBuilder.newBuilder()
+                .maximumSize(searchCacheMaxSize)
+                .expireAfterWrite(searchCacheTtl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Discard cached search results once the movie data changes
+     *
+     * @param event
+     */
+    @EventListener
+    public void onMovieDataReloaded(MovieDataReloadedEvent event) {
+        searchCacheEpoch.incrementAndGet();
+        searchCache.invalidateAll();
+        log.info("Search cache invalidated, movie data reloaded into '{}'", event.getKeyPrefix());
+    }
+
+    /**
+     * Discard cached search results once a ratings flush changed vote averages & counts, a cached page can't tell
+     * which movies it holds or would now hold, so the whole cache is dropped
+     *
+     * @param event
+     */
+    @EventListener
+    public void onMovieRatingsFlushed(MovieRatingsFlushedEvent event) {
+        searchCacheEpoch.incrementAndGet();
+        searchCache.invalidateAll();
+        log.debug("Search cache invalidated, ratings of {} movies flushed to '{}'", event.getIds().size(), event.getKeyPrefix());
+    }
+
+    public CacheMetrics getSearchCacheMetrics() {
+        return CacheMetrics.of("search", searchCache.size(), searchCache.stats());
+    }
+
+    public CoalescingMetrics getSearchCoalescingMetrics() {
+        return searchFlights.getMetrics();
+    }
+
+    /**
+     * Get a movie from the active index generation, served from the near cache when present
+     * REDIS: JSON.GET io.redis.model.Movie:<ID> (or io.redis.model.Movie.v<N>:<ID> after a reindex)
+     * In the split credits layout the movie's credits document is read in the same round trip
+     * Ids the id filter knows don't exist are rejected with a 404 without calling Redis
+     *
+     * @param id
+     * @return
+     */
+    public Movie getMovieById(String id) {
+        if (!movieIdFilter.mightContain(id)) {
+            throw this.movieNotFound(id);
+        }
+        return movieNearCache.get(movieIndexService.keyFor(id), this::loadMovie)
+                .orElseThrow(() -> {
+                    movieIdFilter.recordMiss(id);
+                    return this.movieNotFound(id);
+                });
+    }
+
+    private ResponseStatusException movieNotFound(String id) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "No movie found with id: " + id);
+    }
+
+    private Movie loadMovie(String key) {
+        return creditsRepository.isSplit()
+                ? creditsRepository.getWithCredits(key)
+                : modulesOperations.opsForJSON().get(key, Movie.class);
+    }
+
+    /**
+     * Get the cast, directors & writers of a movie
+     * REDIS: JSON.GET credits:io.redis.model.Movie:<ID> (split credits layout)
+     *
+     * @param id
+     * @return
+     */
+    public MovieCredits getCreditsById(String id) {
+        if (!creditsRepository.isSplit()) {
+            return MovieCredits.of(this.getMovieById(id));
+        }
+        if (!movieIdFilter.mightContain(id)) {
+            throw this.movieNotFound(id);
+        }
+        return creditsRepository.get(movieIndexService.keyFor(id))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No credits found for movie with id: " + id));
+    }
+
+    /**
+     * Get a movie for the response, with passthrough enabled the stored JSON is returned as is (no Movie mapping)
+     * The split credits layout always maps, the stored movie alone is missing its credits
+     *
+     * @param id
+     * @return Movie or RawJson
+     */
+    public Object getMovieResponseById(String id) {
+        if (!passthrough || creditsRepository.isSplit()) {
+            return this.getMovieById(id);
+        }
+        if (!movieIdFilter.mightContain(id)) {
+            throw this.movieNotFound(id);
+        }
+        RawJson movie = projectionRepository.getRaw(movieIndexService.keyFor(id));
+        if (movie == null) {
+            movieIdFilter.recordMiss(id);
+            throw this.movieNotFound(id);
+        }
+        return movie;
+    }
+
+    /**
+     * Get many movies from the active index generation in one round trip, in the order of the given ids
+     * Whole movies are served from the near cache where present & the rest fetched with a single JSON.MGET,
+     * with fields only those JSON paths are fetched (one pipeline of JSON.GET) & each movie is returned as a map
+     * In the split credits layout movies are returned without credits, like search hits
+     * REDIS: "JSON.MGET" "io.redis.model.Movie:278" "io.redis.model.Movie:238" "$"
+     *
+     * @param ids
+     * @param fields JSON properties to return, empty for the full movie
+     * @return
+     */
+    public MovieBatch getMoviesByIds(List<String> ids, List<String> fields) {
+        if (ids.size() > batchMaxIds) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Too many ids (" + ids.size() + "), at most " + batchMaxIds + " can be requested at once");
+        }
+
+        // Duplicates are fetched once but returned at each position they were requested,
+        // ids the id filter knows don't exist aren't fetched & are listed as missing
+        Map<String, String> keys = new LinkedHashMap<>();
+        for (String id : ids) {
+            if (StringUtils.isNotBlank(id) && movieIdFilter.mightContain(id.trim())) {
+                keys.putIfAbsent(id.trim(), movieIndexService.keyFor(id.trim()));
+            }
+        }
+        List<String> distinctKeys = new ArrayList<>(keys.values());
+
+        // The near cache holds movies with their credits, which batches don't return in the split credits layout
+        Map<String, ?> found;
+        if (!fields.isEmpty()) {
+            found = projectionRepository.getAll(distinctKeys, fields);
+        } else if (creditsRepository.isSplit()) {
+            found = projectionRepository.getAll(distinctKeys);
+        } else {
+            found = movieNearCache.getAll(distinctKeys, projectionRepository::getAll);
+        }
+
+        List<Object> content = new ArrayList<>(ids.size());
+        List<String> missing = new ArrayList<>();
+        for (String id : ids) {
+            if (StringUtils.isBlank(id)) {
+                continue;
+            }
+            Object movie = found.get(keys.get(id.trim()));
+            if (movie != null) {
+                content.add(movie);
+            } else if (!missing.contains(id.trim())) {
+                missing.add(id.trim());
+            }
+        }
+
+        MovieBatch batch = new MovieBatch();
+        batch.setContent(content);
+        batch.setSize(content.size());
+        batch.setMissing(missing);
+        return batch;
+    }
+
+    /**
+     * Autocomplete titles, actors & directors from the dictionaries built at load time, no index is searched
+     * REDIS: "FT.SUGGET" "suggest:io.redis.model.Movie:titles" "aven" "WITHSCORES" "MAX" "5"
+     *
+     * @param prefix
+     * @param types
+     * @param fuzzy
+     * @param max
+     * @return dictionary -> suggestions, best first
+     */
+    public Map<String, List<Suggestion>> suggest(String prefix, List<SuggestionTypeENUM> types, boolean fuzzy, int max) {
+        if (max < 1) {
+            throw new IllegalArgumentException("Max suggestions must not be less than one");
+        }
+        String normalised = StringUtils.normalizeSpace(prefix);
+        if (StringUtils.isEmpty(normalised)) {
+            return Map.of();
+        }
+        return suggestionDictionary.suggest(movieIndexService.keyPrefix(), types, normalised, fuzzy, max);
+    }
+
     /**
      * Search for Movies which exclusively has multiple genres|actors etc.. e.g.
      * OR: @genre:{action|adventure}
@@ -38,10 +308,12 @@ public class MovieService {
      * @param operator
      * @param field
      * @param pageable
+     * @param fields   JSON properties to return, empty for the full movie
      * @return
      * @throws Exception
      */
-    public Page<Movie> getMoviesByCollection(Set<String> tags, OperatorENUM operator, FieldENUM field, Pageable pageable) throws Exception {
+    public Page<?> getMoviesByCollection(Set<String> tags, OperatorENUM operator, FieldENUM field, Pageable pageable,
+                                         List<String> fields) throws Exception {
         log.info("SearchByCollection: Tags '{}', Operator: '{}', Field: '{}'", tags, field.getFieldName(), operator);
 
         String queryString = searchUtils.buildArrayQuery(tags, field.getFieldName(), operator);
@@ -51,7 +323,20 @@ public class MovieService {
         }
 
         log.info("SearchByCollection: generated Query: '{}'", queryString);
-        return repository.search(queryString, pageable);
+        return this.search(queryString, pageable, fields);
+    }
+
+    /**
+     * Movies released between two UTC timestamps (inclusive)
+     * REDIS: "FT.SEARCH" "io.redis.model.MovieIdx.v0" "@releaseDateUTC:[946684800 1104537599]" "SORTBY" "voteAverage" "DESC" "LIMIT" "0" "20"
+     *
+     * @param from
+     * @param to
+     * @param pageable
+     * @return
+     */
+    public Page<?> getMoviesReleasedBetween(long from, long to, Pageable pageable) {
+        return this.search(Query.render(Query.range(FieldENUM.RELEASE_DATE.getFieldName(), from, to)), pageable, List.of());
     }
 
     /**
@@ -59,13 +344,167 @@ public class MovieService {
      *
      * @param filterQuery
      * @param pageable
+     * @param fields      JSON properties to return, empty for the full movie
      * @return
      */
-    public Page<Movie> getMoviesByAdvancedSearch(MovieQueryFilter filterQuery, Pageable pageable) {
+    public Page<?> getMoviesByAdvancedSearch(MovieQueryFilter filterQuery, Pageable pageable, List<String> fields) {
 
         // Build the query string
         String query = searchUtils.advancedMovieQueryBuilder(filterQuery);
         log.info("SearchByAdvancedQuery: generated Query: '{}'", query);
-        return repository.search(query, pageable);
+        return this.search(query, pageable, fields);
+    }
+
+    /**
+     * Advanced search plus per facet counts (genres, decades, language, top directors) under the same filter,
+     * computed by FT.AGGREGATE in the same pipeline as the FT.SEARCH so the UI doesn't need a query per facet
+     *
+     * @param filterQuery
+     * @param pageable
+     * @param fields      JSON properties to return, empty for the full movie
+     * @param facets
+     * @param facetSize   maximum number of values per facet
+     * @return
+     */
+    public FacetedPage<Object> getMoviesByAdvancedSearchWithFacets(MovieQueryFilter filterQuery, Pageable pageable,
+                                                                   List<String> fields, List<FacetENUM> facets,
+                                                                   int facetSize) {
+        if (facetSize < 1) {
+            throw new IllegalArgumentException("Facet size must not be less than one");
+        }
+        String query = searchUtils.advancedMovieQueryBuilder(filterQuery);
+        log.info("SearchByAdvancedQuery (facets: {}): generated Query: '{}'", facets, query);
+        return projectionRepository.searchWithFacets(query, pageable, fields, facets, facetSize);
+    }
+
+    /**
+     * Free text (or raw RediSearch syntax) search, whitespace is normalised so equivalent queries share a cache entry
+     * REDIS: "FT.SEARCH" "io.redis.model.MovieIdx" "Guardians Galaxy" "LIMIT" "0" "20"
+     *
+     * @param query
+     * @param pageable
+     * @param fields   JSON properties to return, empty for the full movie
+     * @return
+     */
+    public Page<?> searchMovies(String query, Pageable pageable, List<String> fields) {
+        String normalised = StringUtils.normalizeSpace(query);
+        return this.search(StringUtils.isEmpty(normalised) ? Query.MATCH_ALL : normalised, pageable, fields);
+    }
+
+    /**
+     * Top movies by a sortable value, optionally within a genre
+     * Served from the materialised top-N lists (a sorted set slice plus a batch fetch of the ids) when the page
+     * falls within them, otherwise (or before the lists are built) by a sorted search over the index
+     * REDIS: "ZRANGE" "top:io.redis.model.Movie:popularity" "0" "19" "REV" & "JSON.MGET" ... "$"
+     *
+     * @param genre    null for every movie
+     * @param pageable sorted by the sortable value
+     * @param fields   JSON properties to return, empty for the full movie
+     * @return
+     */
+    public Page<?> getTopMovies(String genre, Pageable pageable, List<String> fields) {
+        String normalisedGenre = StringUtils.trimToNull(genre);
+        Optional<Page<String>> slice = topListService.slice(movieIndexService.keyPrefix(), normalisedGenre, pageable);
+        if (slice.isPresent()) {
+            MovieBatch batch = this.getMoviesByIds(slice.get().getContent(), fields);
+            return new PageImpl<>(batch.getContent(), pageable, slice.get().getTotalElements());
+        }
+
+        String query = normalisedGenre == null
+                ? Query.MATCH_ALL
+                : Query.render(Query.tag(FieldENUM.GENRE.getFieldName(), List.of(normalisedGenre)));
+        return this.search(query, pageable, fields);
+    }
+
+    /**
+     * Keyset (cursor) paginated search, the cost of a page stays constant however deep the client goes
+     * Not cached, the cursor already makes each page cheap & deep pages are rarely repeated
+     *
+     * @param query
+     * @param sortBy    sortable numeric field
+     * @param ascending
+     * @param size
+     * @param cursor    token from the previous page, blank for the first page
+     * @param fields    JSON properties to return, empty for the full movie
+     * @return
+     */
+    public CursorPage<Object> searchMoviesAfter(String query, String sortBy, boolean ascending, int size,
+                                                String cursor, List<String> fields) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+        String normalised = StringUtils.defaultIfEmpty(StringUtils.normalizeSpace(query), Query.MATCH_ALL);
+        PageCursor after = cursorUtil.decode(cursor, normalised, sortBy, ascending);
+        return projectionRepository.searchAfter(normalised, sortBy, ascending, size, after, fields);
+    }
+
+    /**
+     * Keyset (cursor) paginated advanced search
+     *
+     * @param filterQuery
+     * @param sortBy
+     * @param ascending
+     * @param size
+     * @param cursor
+     * @param fields
+     * @return
+     */
+    public CursorPage<Object> getMoviesByAdvancedSearchAfter(MovieQueryFilter filterQuery, String sortBy, boolean ascending,
+                                                             int size, String cursor, List<String> fields) {
+        String query = searchUtils.advancedMovieQueryBuilder(filterQuery);
+        log.info("SearchByAdvancedQuery (cursor): generated Query: '{}'", query);
+        return this.searchMoviesAfter(query, sortBy, ascending, size, cursor, fields);
+    }
+
+    /**
+     * Run the search through the result cache, concurrent identical searches which miss share one FT.SEARCH
+     * Queries are built canonically (sorted tag values, normalised ranges) so i.e. "Action,Adventure" and
+     * "Adventure,Action" resolve to the same entry
+     * With fields only those JSON paths are fetched (FT.SEARCH ... RETURN) & each hit is returned as a map
+     *
+     * @param query
+     * @param pageable
+     * @param fields
+     * @return
+     */
+    private Page<?> search(String query, Pageable pageable, List<String> fields) {
+        String key = query + '|' + pageable.getPageNumber() + '|' + pageable.getPageSize() + '|' + pageable.getSort()
+                + '|' + String.join(",", fields);
+        if (searchCacheEnabled) {
+            Page<?> cached = searchCache.getIfPresent(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        if (!searchCoalescingEnabled) {
+            return this.searchAndCache(key, query, pageable, fields);
+        }
+        return searchFlights.execute(key, () -> this.searchAndCache(key, query, pageable, fields));
+    }
+
+    /**
+     * Only the caller issuing the search fills the cache, callers sharing its result may have arrived after an
+     * invalidation & must not cache a search which started before it
+     */
+    private Page<?> searchAndCache(String key, String query, Pageable pageable, List<String> fields) {
+        long epoch = searchCacheEpoch.get();
+        Page<?> result = this.searchRedis(query, pageable, fields);
+        if (searchCacheEnabled && epoch == searchCacheEpoch.get()) {
+            searchCache.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Full documents are mapped to Movie with Gson, or with passthrough enabled kept as the stored JSON
+     */
+    private Page<?> searchRedis(String query, Pageable pageable, List<String> fields) {
+        if (!fields.isEmpty()) {
+            return projectionRepository.search(query, pageable, fields);
+        }
+        return passthrough
+                ? projectionRepository.searchRaw(query, pageable)
+                : projectionRepository.searchMovies(query, pageable);
     }
 }
\ No newline at end of file
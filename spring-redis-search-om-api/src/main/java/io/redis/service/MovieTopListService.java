@@ -0,0 +1,250 @@
+package io.redis.service;
+
+import io.redis.event.MovieDataReloadedEvent;
+import io.redis.query.Query;
+import io.redis.type.FieldENUM;
+import io.redis.type.SortValueENUM;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.params.ZAddParams;
+import redis.clients.jedis.resps.ScanResult;
+import redis.clients.jedis.search.Document;
+import redis.clients.jedis.search.SearchResult;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Materialised top-N lists backing /movie/top/{sort}
+ * Whenever the movie data is reloaded the highest & lowest N movies of every sortable value (overall & per genre)
+ * are precomputed into sorted sets of movie id -> sort value i.e.
+ * - "top:io.redis.model.Movie:popularity" : every movie's popularity, or the top & bottom N when there are more
+ * - "top:io.redis.model.Movie:popularity:drama" : the same, for Drama only (genres are lower cased, as FT.TAGVALS returns them)
+ * - "top:io.redis.model.Movie:meta" : HASH of list -> total number of matching movies
+ * A page is then a ZRANGE (ascending) or ZRANGE ... REV (descending) slice plus a batch fetch of the ids,
+ * rather than a SORTBY over the whole index. Pages beyond the materialised N fall back to FT.SEARCH.
+ */
+@Slf4j
+@Service
+public class MovieTopListService {
+
+    private static final String KEY_PREFIX = "top:";
+    private static final String META = "meta";
+    private static final String BUILDING_SUFFIX = ":building";
+
+    @Autowired
+    JedisPooled jedis;
+
+    @Value("${spring.redis.movie.top.enabled:true}")
+    private boolean enabled;
+
+    @Value("${spring.redis.movie.top.size:2000}")
+    private int size;
+
+    @Value("${spring.redis.movie.top.build-lock-seconds:300}")
+    private long buildLockSeconds;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("movie-top-lists-"));
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Rebuild the lists in the background once movies are (re)loaded or the active generation changes,
+     * the slowest instance to notice a change skips the build if another instance is already running it
+     *
+     * @param event
+     */
+    @EventListener
+    public void onMovieDataReloaded(MovieDataReloadedEvent event) {
+        if (enabled) {
+            executor.submit(() -> this.build(event.getKeyPrefix()));
+        }
+    }
+
+    /**
+     * Ids of a page of a materialised list, in order, sorted by the first order of the pageable
+     *
+     * @param keyPrefix keyspace of the active generation
+     * @param genre     null for every movie
+     * @param pageable
+     * @return empty when the list hasn't been built or the page lies beyond the materialised part
+     */
+    public Optional<Page<String>> slice(String keyPrefix, String genre, Pageable pageable) {
+        Sort.Order order = pageable.getSort().stream().findFirst().orElse(null);
+        if (!enabled || order == null) {
+            return Optional.empty();
+        }
+
+        String list = listName(order.getProperty(), genre);
+        String total = jedis.hget(key(keyPrefix, META), list);
+        if (total == null) {
+            return Optional.empty();
+        }
+
+        // Only the top & bottom N are materialised unless the list holds every matching movie
+        long offset = pageable.getOffset();
+        long end = offset + pageable.getPageSize() - 1;
+        long totalElements = Long.parseLong(total);
+        if (end >= size && jedis.zcard(key(keyPrefix, list)) < totalElements) {
+            return Optional.empty();
+        }
+
+        List<String> ids = offset >= totalElements
+                ? List.of()
+                : order.isAscending()
+                ? jedis.zrange(key(keyPrefix, list), offset, end)
+                : jedis.zrevrange(key(keyPrefix, list), offset, end);
+        return Optional.of(new PageImpl<>(ids, pageable, totalElements));
+    }
+
+    /**
+     * Queue score updates of a movie whose values changed since the lists were built, only lists the movie is already
+     * on are touched so the lists never grow past N, movies moving onto a list appear after the next rebuild
+     * REDIS: "ZADD" "top:io.redis.model.Movie:voteAverage" "XX" "7.9" "278" (& the movie's genre lists)
+     *
+     * @param pipeline
+     * @param keyPrefix keyspace of the active generation
+     * @param id
+     * @param genres    genres of the movie
+     * @param values    sort field -> new value
+     */
+    public void update(Pipeline pipeline, String keyPrefix, String id, List<String> genres, Map<String, Double> values) {
+        if (!enabled) {
+            return;
+        }
+        ZAddParams params = ZAddParams.zAddParams().xx();
+        values.forEach((sortBy, value) -> {
+            pipeline.zadd(key(keyPrefix, listName(sortBy, null)), value, id, params);
+            genres.forEach(genre -> pipeline.zadd(key(keyPrefix, listName(sortBy, genre)), value, id, params));
+        });
+    }
+
+    /**
+     * Remove the lists of a keyspace
+     *
+     * @param keyPrefix
+     */
+    public void delete(String keyPrefix) {
+        ScanParams params = new ScanParams().match(KEY_PREFIX + keyPrefix + "*").count(1000);
+        String cursor = ScanParams.SCAN_POINTER_START;
+        do {
+            ScanResult<String> page = jedis.scan(cursor, params);
+            if (!page.getResult().isEmpty()) {
+                jedis.unlink(page.getResult().toArray(String[]::new));
+            }
+            cursor = page.getCursor();
+        } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+    }
+
+    private void build(String keyPrefix) {
+        String lock = key(keyPrefix, "lock");
+        if (jedis.set(lock, "1", SetParams.setParams().nx().ex(buildLockSeconds)) == null) {
+            log.info("Top lists for '{}' are already being built", keyPrefix);
+            return;
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            Set<String> sortFields = new LinkedHashSet<>();
+            Arrays.stream(SortValueENUM.values()).forEach(v -> sortFields.add(v.getSortValue()));
+            Set<String> genres = jedis.ftTagVals(MovieIndexService.indexFor(keyPrefix), FieldENUM.GENRE.getFieldName());
+
+            Map<String, String> totals = new HashMap<>();
+            for (String sortBy : sortFields) {
+                this.materialise(keyPrefix, sortBy, null, totals);
+                for (String genre : genres) {
+                    this.materialise(keyPrefix, sortBy, genre, totals);
+                }
+            }
+
+            // Lists whose meta entry is missing aren't served, so the meta hash is swapped in last
+            String meta = key(keyPrefix, META);
+            try (Connection connection = jedis.getPool().getResource()) {
+                Pipeline pipeline = new Pipeline(connection);
+                pipeline.del(meta + BUILDING_SUFFIX);
+                pipeline.hset(meta + BUILDING_SUFFIX, totals);
+                pipeline.rename(meta + BUILDING_SUFFIX, meta);
+                pipeline.sync();
+            }
+            log.info("Built {} top lists for '{}' in {}ms", totals.size(), keyPrefix, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Failed to build top lists for '{}'", keyPrefix, e);
+        } finally {
+            jedis.del(lock);
+        }
+    }
+
+    /**
+     * REDIS: "FT.SEARCH" "io.redis.model.MovieIdx" "@genres:{Drama}" "RETURN" "1" "popularity" "SORTBY" "popularity" "DESC" "LIMIT" "0" "2000"
+     * (& ASC when there are more than N movies), written into a temporary key which is RENAMEd over the live list
+     */
+    private void materialise(String keyPrefix, String sortBy, String genre, Map<String, String> totals) {
+        String query = genre == null
+                ? Query.MATCH_ALL
+                : Query.render(Query.tag(FieldENUM.GENRE.getFieldName(), List.of(genre)));
+
+        Map<String, Double> scores = new HashMap<>();
+        long total = 0;
+        for (boolean ascending : new boolean[]{false, true}) {
+            redis.clients.jedis.search.Query search = new redis.clients.jedis.search.Query(query)
+                    .returnFields(sortBy)
+                    .setSortBy(sortBy, ascending)
+                    .limit(0, size);
+            SearchResult result = jedis.ftSearch(MovieIndexService.indexFor(keyPrefix), search);
+            total = result.getTotalResults();
+            for (Document document : result.getDocuments()) {
+                Object value = document.get(sortBy);
+                scores.put(StringUtils.substringAfterLast(document.getId(), ":"),
+                        value == null ? 0 : Double.parseDouble(value.toString()));
+            }
+            if (total <= size) {
+                break;
+            }
+        }
+
+        String list = listName(sortBy, genre);
+        String live = key(keyPrefix, list);
+        try (Connection connection = jedis.getPool().getResource()) {
+            Pipeline pipeline = new Pipeline(connection);
+            pipeline.del(live + BUILDING_SUFFIX);
+            if (scores.isEmpty()) {
+                pipeline.del(live);
+            } else {
+                pipeline.zadd(live + BUILDING_SUFFIX, scores);
+                pipeline.rename(live + BUILDING_SUFFIX, live);
+            }
+            pipeline.sync();
+        }
+        totals.put(list, String.valueOf(total));
+    }
+
+    /**
+     * Lists are built from the index's tag values which are lower case, so callers' genres are matched case insensitively
+     */
+    private static String listName(String sortBy, String genre) {
+        return genre == null ? sortBy : sortBy + ":" + genre.toLowerCase(Locale.ROOT);
+    }
+
+    private static String key(String keyPrefix, String name) {
+        return KEY_PREFIX + keyPrefix + name;
+    }
+}
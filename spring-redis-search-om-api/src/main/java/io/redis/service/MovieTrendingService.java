@@ -0,0 +1,382 @@
+package io.redis.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import io.redis.event.MovieDataReloadedEvent;
+import io.redis.model.EventBatchResult;
+import io.redis.model.FacetCount;
+import io.redis.model.Movie;
+import io.redis.model.MovieBatch;
+import io.redis.model.MovieEvent;
+import io.redis.model.TrendingMovie;
+import io.redis.type.EventTypeENUM;
+import io.redis.type.FieldENUM;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.json.JsonProtocol;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Trending movies from streamed view & click events, over a sliding window of time buckets (1 hour by default)
+ * Each bucket holds RedisBloom structures which expire once the bucket leaves the window:
+ * - "trending:io.redis.model.Movie:topk:<BUCKET>" : TOPK of the most viewed movie ids
+ * - "trending:io.redis.model.Movie:topk:<BUCKET>:<GENRE>" : TOPK of the most viewed movie ids of a genre (lower case)
+ * - "trending:io.redis.model.Movie:cms:<BUCKET>" : count-min sketch of views per movie id
+ * - "trending:io.redis.model.Movie:cms:<BUCKET>:genres" : count-min sketch of views per genre, lower cased like the
+ * index's tag values
+ * A batch of events is aggregated in memory & written as one pipeline of TOPK.INCRBY / CMS.INCRBY, so the cost per
+ * event is constant. Trending merges the TOPK candidates of every bucket in the window & ranks them by their summed
+ * count-min sketch counts.
+ * Movie ids are the same in every index generation, so trends survive a reindex.
+ */
+@Slf4j
+@Service
+public class MovieTrendingService {
+
+    private static final String KEY_PREFIX = "trending:" + Movie.class.getName() + ":";
+
+    @Autowired
+    JedisPooled jedis;
+
+    @Autowired
+    MovieService movieService;
+
+    @Autowired
+    MovieIndexService movieIndexService;
+
+    @Autowired
+    MovieIdFilter movieIdFilter;
+
+    @Value("${spring.redis.movie.trending.bucket:1h}")
+    private Duration bucket;
+
+    @Value("${spring.redis.movie.trending.window-buckets:24}")
+    private int windowBuckets;
+
+    @Value("${spring.redis.movie.trending.max-events:10000}")
+    private int maxEvents;
+
+    @Value("${spring.redis.movie.trending.topk:100}")
+    private long topK;
+
+    @Value("${spring.redis.movie.trending.topk-width:1000}")
+    private long topKWidth;
+
+    @Value("${spring.redis.movie.trending.topk-depth:5}")
+    private long topKDepth;
+
+    @Value("${spring.redis.movie.trending.topk-decay:0.9}")
+    private double topKDecay;
+
+    @Value("${spring.redis.movie.trending.cms-width:2000}")
+    private long cmsWidth;
+
+    @Value("${spring.redis.movie.trending.cms-depth:5}")
+    private long cmsDepth;
+
+    // Genres of recently seen movies, so steady state ingestion doesn't need to read the movies
+    private Cache<String, List<String>> genreCache;
+
+    // Bucket structures this instance has already created, reset when the bucket moves on
+    private final Set<String> created = ConcurrentHashMap.newKeySet();
+    private final AtomicLong createdBucket = new AtomicLong(-1);
+
+    @PostConstruct
+    public void init() {
+        genreCache = CacheBuilder.newBuilder()
+                .maximumSize(100_000)
+                .build();
+    }
+
+    @EventListener
+    public void onMovieDataReloaded(MovieDataReloadedEvent event) {
+        genreCache.invalidateAll();
+    }
+
+    /**
+     * Count a batch of events into the current bucket, events for unknown movies are rejected
+     * REDIS: "TOPK.INCRBY" "trending:io.redis.model.Movie:topk:<BUCKET>" "278" "3" "238" "1" ...
+     * REDIS: "CMS.INCRBY" "trending:io.redis.model.Movie:cms:<BUCKET>" "278" "3" "238" "1" ...
+     * (& the same per genre), sent as a single pipeline
+     *
+     * @param events
+     * @return
+     */
+    public EventBatchResult ingest(List<MovieEvent> events) {
+        if (events.size() > maxEvents) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Too many events (" + events.size() + "), at most " + maxEvents + " can be sent at once");
+        }
+
+        long rejected = 0;
+        Map<String, Long> movieCounts = new HashMap<>();
+        Map<String, Long> movieEvents = new HashMap<>();
+        for (MovieEvent event : events) {
+            String id = event == null ? null : StringUtils.trimToNull(event.getMovieId());
+            if (id == null || !movieIdFilter.mightContain(id)) {
+                rejected++;
+                continue;
+            }
+            movieCounts.merge(id, EventTypeENUM.fromString(event.getType()).getWeight(), Long::sum);
+            movieEvents.merge(id, 1L, Long::sum);
+        }
+
+        Map<String, List<String>> genres = this.getGenres(movieCounts.keySet());
+        Map<String, Long> genreCounts = new HashMap<>();
+        Map<String, Map<String, Long>> genreMovieCounts = new HashMap<>();
+        Iterator<Map.Entry<String, Long>> counts = movieCounts.entrySet().iterator();
+        while (counts.hasNext()) {
+            Map.Entry<String, Long> count = counts.next();
+            List<String> movieGenres = genres.get(count.getKey());
+            if (movieGenres == null) {
+                counts.remove();
+                rejected += movieEvents.get(count.getKey());
+                continue;
+            }
+            for (String movieGenre : movieGenres) {
+                String genre = movieGenre.toLowerCase(Locale.ROOT);
+                genreCounts.merge(genre, count.getValue(), Long::sum);
+                genreMovieCounts.computeIfAbsent(genre, g -> new HashMap<>()).put(count.getKey(), count.getValue());
+            }
+        }
+
+        if (!movieCounts.isEmpty()) {
+            long current = this.currentBucket();
+            try (Connection connection = jedis.getPool().getResource()) {
+                Pipeline pipeline = new Pipeline(connection);
+                this.ensureTopK(pipeline, current, topKKey(current, null));
+                this.ensureSketch(pipeline, current, cmsKey(current, null));
+                pipeline.topkIncrBy(topKKey(current, null), movieCounts);
+                pipeline.cmsIncrBy(cmsKey(current, null), movieCounts);
+
+                if (!genreCounts.isEmpty()) {
+                    this.ensureSketch(pipeline, current, cmsKey(current, FieldENUM.GENRE.getFieldName()));
+                    pipeline.cmsIncrBy(cmsKey(current, FieldENUM.GENRE.getFieldName()), genreCounts);
+                }
+                genreMovieCounts.forEach((genre, genreCount) -> {
+                    this.ensureTopK(pipeline, current, topKKey(current, genre));
+                    pipeline.topkIncrBy(topKKey(current, genre), genreCount);
+                });
+                pipeline.sync();
+            }
+        }
+        return new EventBatchResult(events.size() - rejected, rejected);
+    }
+
+    /**
+     * Most viewed movies over the last hours, optionally within a genre
+     * REDIS: "TOPK.LIST" "trending:io.redis.model.Movie:topk:<BUCKET>" per bucket in the window, then
+     * "CMS.QUERY" "trending:io.redis.model.Movie:cms:<BUCKET>" "278" "238" ... per bucket, each as one pipeline
+     *
+     * @param genre  null for every movie
+     * @param hours  window, capped at the configured window
+     * @param size
+     * @param fields JSON properties to return, empty for the full movie
+     * @return highest score first
+     */
+    public List<TrendingMovie> getTrending(String genre, int hours, int size, List<String> fields) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Size must not be less than one");
+        }
+        List<Long> buckets = this.window(hours);
+        String normalisedGenre = StringUtils.isBlank(genre) ? null : genre.trim().toLowerCase(Locale.ROOT);
+
+        Set<String> candidates = new LinkedHashSet<>();
+        try (Connection connection = jedis.getPool().getResource()) {
+            Pipeline pipeline = new Pipeline(connection);
+            List<Response<List<String>>> lists = new ArrayList<>();
+            buckets.forEach(b -> lists.add(pipeline.topkList(topKKey(b, normalisedGenre))));
+            pipeline.sync();
+            lists.forEach(list -> candidates.addAll(getOrEmpty(list)));
+        }
+        candidates.remove(null);
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, Long> scores = this.sumCounts(buckets, null, new ArrayList<>(candidates));
+        List<String> ranked = scores.entrySet().stream()
+                .filter(e -> e.getValue() > 0)
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(size)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+
+        // Movies deleted since they were viewed are left out
+        MovieBatch batch = movieService.getMoviesByIds(ranked, fields);
+        Set<String> missing = new HashSet<>(batch.getMissing());
+        List<TrendingMovie> trending = new ArrayList<>(batch.getSize());
+        Iterator<Object> movies = batch.getContent().iterator();
+        for (String id : ranked) {
+            if (!missing.contains(id) && movies.hasNext()) {
+                trending.add(new TrendingMovie(movies.next(), scores.get(id)));
+            }
+        }
+        return trending;
+    }
+
+    /**
+     * Views per genre over the last hours
+     * REDIS: "FT.TAGVALS" "io.redis.model.MovieIdx" "genres" & "CMS.QUERY" "trending:io.redis.model.Movie:cms:<BUCKET>:genres" ...
+     *
+     * @param hours
+     * @return highest count first
+     */
+    public List<FacetCount> getTrendingGenres(int hours) {
+        List<String> genres = new ArrayList<>(jedis.ftTagVals(movieIndexService.getActiveIndexName(), FieldENUM.GENRE.getFieldName()));
+        if (genres.isEmpty()) {
+            return List.of();
+        }
+        // Tag values are lower cased by the index, as are the genres counted in the sketch
+        Map<String, Long> counts = this.sumCounts(this.window(hours), FieldENUM.GENRE.getFieldName(), genres);
+        return counts.entrySet().stream()
+                .filter(e -> e.getValue() > 0)
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .map(e -> new FacetCount(e.getKey(), e.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    private Map<String, Long> sumCounts(List<Long> buckets, String sketch, List<String> items) {
+        Map<String, Long> sums = new LinkedHashMap<>();
+        items.forEach(item -> sums.put(item, 0L));
+
+        String[] args = items.toArray(String[]::new);
+        try (Connection connection = jedis.getPool().getResource()) {
+            Pipeline pipeline = new Pipeline(connection);
+            List<Response<List<Long>>> responses = new ArrayList<>();
+            buckets.forEach(b -> responses.add(pipeline.cmsQuery(cmsKey(b, sketch), args)));
+            pipeline.sync();
+
+            for (Response<List<Long>> response : responses) {
+                List<Long> counts = getOrEmpty(response);
+                for (int i = 0; i < counts.size() && i < args.length; i++) {
+                    sums.merge(args[i], counts.get(i), Long::sum);
+                }
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Genres of each movie, from the cache or one JSON.MGET of the rest
+     * REDIS: "JSON.MGET" "io.redis.model.Movie:278" "io.redis.model.Movie:238" "$.genres"
+     *
+     * @param ids
+     * @return id -> genres, movies which don't exist are left out
+     */
+    private Map<String, List<String>> getGenres(Collection<String> ids) {
+        Map<String, List<String>> genres = new HashMap<>(genreCache.getAllPresent(ids));
+        List<String> toLoad = ids.stream().filter(id -> !genres.containsKey(id)).collect(Collectors.toList());
+        if (toLoad.isEmpty()) {
+            return genres;
+        }
+
+        String[] args = new String[toLoad.size() + 1];
+        for (int i = 0; i < toLoad.size(); i++) {
+            args[i] = movieIndexService.keyFor(toLoad.get(i));
+        }
+        args[toLoad.size()] = "$.genres";
+
+        List<?> replies = (List<?>) jedis.sendCommand(JsonProtocol.JsonCommand.MGET, args);
+        for (int i = 0; i < toLoad.size(); i++) {
+            Object reply = replies.get(i);
+            if (reply == null) {
+                continue;
+            }
+            JsonArray matches = JsonParser.parseString(new String((byte[]) reply, StandardCharsets.UTF_8)).getAsJsonArray();
+            List<String> movieGenres = new ArrayList<>();
+            if (matches.size() > 0 && matches.get(0).isJsonArray()) {
+                matches.get(0).getAsJsonArray().forEach(g -> movieGenres.add(g.getAsString()));
+            }
+            genres.put(toLoad.get(i), movieGenres);
+            genreCache.put(toLoad.get(i), movieGenres);
+        }
+        return genres;
+    }
+
+    /**
+     * Queue a TOPK.RESERVE (& expiry) the first time this instance writes to a bucket's list, an existing list
+     * rejects the reserve which is ignored
+     */
+    private void ensureTopK(Pipeline pipeline, long current, String key) {
+        if (this.firstUse(current, key)) {
+            pipeline.topkReserve(key, topK, topKWidth, topKDepth, topKDecay);
+            pipeline.pexpire(key, this.retentionMillis());
+        }
+    }
+
+    private void ensureSketch(Pipeline pipeline, long current, String key) {
+        if (this.firstUse(current, key)) {
+            pipeline.cmsInitByDim(key, cmsWidth, cmsDepth);
+            pipeline.pexpire(key, this.retentionMillis());
+        }
+    }
+
+    private boolean firstUse(long current, String key) {
+        long previous = createdBucket.get();
+        if (previous != current && createdBucket.compareAndSet(previous, current)) {
+            created.clear();
+        }
+        return created.add(key);
+    }
+
+    private long retentionMillis() {
+        return bucket.toMillis() * (windowBuckets + 1);
+    }
+
+    private long currentBucket() {
+        return System.currentTimeMillis() / bucket.toMillis();
+    }
+
+    private List<Long> window(int hours) {
+        if (hours < 1) {
+            throw new IllegalArgumentException("Hours must not be less than one");
+        }
+        long count = Math.min(windowBuckets, Math.max(1, Duration.ofHours(hours).toMillis() / bucket.toMillis()));
+        long current = this.currentBucket();
+        List<Long> buckets = new ArrayList<>();
+        for (long b = current; b > current - count; b--) {
+            buckets.add(b);
+        }
+        return buckets;
+    }
+
+    private String topKKey(long bucket, String genre) {
+        return KEY_PREFIX + "topk:" + bucket + (genre == null ? "" : ":" + genre);
+    }
+
+    private String cmsKey(long bucket, String sketch) {
+        return KEY_PREFIX + "cms:" + bucket + (sketch == null ? "" : ":" + sketch);
+    }
+
+    /**
+     * Buckets nothing was written to have no structures, their replies are errors
+     */
+    private static <T> List<T> getOrEmpty(Response<List<T>> response) {
+        try {
+            List<T> value = response.get();
+            return value == null ? List.of() : value;
+        } catch (Exception e) {
+            return List.of();
+        }
+    }
+}
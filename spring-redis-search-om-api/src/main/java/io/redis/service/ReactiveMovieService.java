@@ -0,0 +1,85 @@
+package io.redis.service;
+
+import io.redis.model.Movie;
+import io.redis.model.MovieQueryFilter;
+import io.redis.query.Query;
+import io.redis.repository.ReactiveMovieRepository;
+import io.redis.util.SearchUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of MovieService for the "reactive" profile
+ * Nothing in here may block the event loop: documents come from the near cache or the reactive repository &
+ * query strings are built in memory. Search results aren't cached (MovieService's cache is filled synchronously).
+ */
+@Slf4j
+@Profile("reactive")
+@Service
+public class ReactiveMovieService {
+
+    @Autowired
+    ReactiveMovieRepository repository;
+
+    @Autowired
+    MovieIndexService movieIndexService;
+
+    @Autowired
+    MovieNearCache movieNearCache;
+
+    @Autowired
+    MovieIdFilter movieIdFilter;
+
+    @Autowired
+    SearchUtil searchUtils;
+
+    /**
+     * Get a movie from the active index generation, served from the near cache when present
+     * REDIS: JSON.GET io.redis.model.Movie:<ID>
+     *
+     * @param id
+     * @return empty when the movie doesn't exist, without calling Redis when the id filter knows it doesn't
+     */
+    public Mono<Movie> getMovieById(String id) {
+        if (!movieIdFilter.mightContain(id)) {
+            return Mono.empty();
+        }
+        return movieNearCache.getAsync(movieIndexService.keyFor(id), repository::findByKey)
+                .switchIfEmpty(Mono.fromRunnable(() -> movieIdFilter.recordMiss(id)));
+    }
+
+    /**
+     * Free text (or raw RediSearch syntax) search
+     *
+     * @param query
+     * @param pageable
+     * @param fields   JSON properties to return, empty for the full movie
+     * @return
+     */
+    public Mono<Page<Object>> searchMovies(String query, Pageable pageable, List<String> fields) {
+        String normalised = StringUtils.normalizeSpace(query);
+        return repository.search(StringUtils.isEmpty(normalised) ? Query.MATCH_ALL : normalised, pageable, fields);
+    }
+
+    /**
+     * Advanced search, see MovieService.getMoviesByAdvancedSearch
+     *
+     * @param filterQuery
+     * @param pageable
+     * @param fields
+     * @return
+     */
+    public Mono<Page<Object>> getMoviesByAdvancedSearch(MovieQueryFilter filterQuery, Pageable pageable, List<String> fields) {
+        String query = searchUtils.advancedMovieQueryBuilder(filterQuery);
+        log.info("SearchByAdvancedQuery (reactive): generated Query: '{}'", query);
+        return repository.search(query, pageable, fields);
+    }
+}
@@ -0,0 +1,27 @@
+package io.redis.type;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Kinds of user interaction counted towards trending, weighted by how much interest each shows
+ */
+@Getter
+@AllArgsConstructor
+public enum EventTypeENUM {
+
+    VIEW("view", 1),
+    CLICK("click", 2);
+
+    private String type;
+    private long weight;
+
+    public static EventTypeENUM fromString(String s) {
+        return Arrays.stream(EventTypeENUM.values())
+                .filter(v -> v.type.equalsIgnoreCase(s) || v.name().equalsIgnoreCase(s))
+                .findFirst()
+                .orElse(EventTypeENUM.VIEW);
+    }
+}
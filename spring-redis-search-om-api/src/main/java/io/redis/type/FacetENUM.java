@@ -0,0 +1,34 @@
+package io.redis.type;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Facets counted alongside a search, each one is a single FT.AGGREGATE ... GROUPBY
+ * - path: JSON path loaded for the facet (null when computed from a sortable field)
+ * - multiValued: JSON arrays (genres, directors), every element is loaded & counted
+ * - orderByValue: ordered by the facet value (highest first) rather than by count (i.e. decades, most recent first)
+ */
+@Getter
+@AllArgsConstructor
+public enum FacetENUM {
+
+    GENRES("genres", "$.genres[*]", true, false),
+    DECADES("decades", null, false, true),
+    LANGUAGE("language", "$.language", false, false),
+    DIRECTORS("directors", "$.directors[*]", true, false);
+
+    private String facetName;
+    private String path;
+    private boolean multiValued;
+    private boolean orderByValue;
+
+    public static FacetENUM fromString(String s) {
+        return Arrays.stream(FacetENUM.values())
+                .filter(v -> v.facetName.equalsIgnoreCase(s) || v.name().equalsIgnoreCase(s))
+                .findFirst()
+                .orElse(null);
+    }
+}
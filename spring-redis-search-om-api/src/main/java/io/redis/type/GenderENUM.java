@@ -3,7 +3,9 @@ package io.redis.type;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
-import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
 
 @Getter
 @AllArgsConstructor
@@ -15,10 +17,24 @@ public enum GenderENUM {
 
     private String gender;
 
+    private static final Map<String, GenderENUM> BY_GENDER = new HashMap<>();
+
+    static {
+        for (GenderENUM value : values()) {
+            BY_GENDER.put(value.gender.toLowerCase(Locale.ROOT), value);
+        }
+    }
+
+    /**
+     * Case insensitive lookup, called once per cast & crew member when movies are deserialised
+     *
+     * @param s
+     * @return
+     */
     public static GenderENUM fromString(String s) throws IllegalArgumentException {
-        return Arrays.stream(GenderENUM.values())
-                .filter(v -> v.gender.equalsIgnoreCase(s))
-                .findFirst()
-                .orElse(GenderENUM.UNKNOWN);
+        if (s == null) {
+            return GenderENUM.UNKNOWN;
+        }
+        return BY_GENDER.getOrDefault(s.toLowerCase(Locale.ROOT), GenderENUM.UNKNOWN);
     }
 }
\ No newline at end of file
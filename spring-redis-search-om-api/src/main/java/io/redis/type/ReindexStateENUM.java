@@ -0,0 +1,13 @@
+package io.redis.type;
+
+public enum ReindexStateENUM {
+
+    IDLE,
+    LOADING,
+    INDEXING,
+    SWAPPING,
+    CLEANUP,
+    COMPLETED,
+    FAILED
+
+}
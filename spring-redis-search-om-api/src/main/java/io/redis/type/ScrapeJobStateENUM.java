@@ -0,0 +1,10 @@
+package io.redis.type;
+
+public enum ScrapeJobStateENUM {
+
+    RUNNING,
+    COMPLETED,
+    COMPLETED_WITH_ERRORS,
+    FAILED
+
+}
@@ -0,0 +1,24 @@
+package io.redis.type;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+@Getter
+@AllArgsConstructor
+public enum SuggestionTypeENUM {
+
+    TITLES("titles"),
+    ACTORS("actors"),
+    DIRECTORS("directors");
+
+    private String dictionary;
+
+    public static SuggestionTypeENUM fromString(String s) {
+        return Arrays.stream(SuggestionTypeENUM.values())
+                .filter(v -> v.dictionary.equalsIgnoreCase(s) || v.name().equalsIgnoreCase(s))
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -0,0 +1,67 @@
+package io.redis.util;
+
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import io.redis.model.PageCursor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encode & decode keyset pagination cursors as url safe base64 JSON tokens
+ */
+@Slf4j
+@Component
+public class CursorUtil {
+
+    @Autowired
+    Gson gson;
+
+    public String encode(PageCursor cursor) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(gson.toJson(cursor).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token, checking it was issued for the same query & sort order
+     *
+     * @param token
+     * @param query
+     * @param sortBy
+     * @param ascending
+     * @return the cursor, null for the first page
+     */
+    public PageCursor decode(String token, String query, String sortBy, boolean ascending) {
+        if (StringUtils.isBlank(token)) {
+            return null;
+        }
+
+        PageCursor cursor;
+        try {
+            cursor = gson.fromJson(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8), PageCursor.class);
+        } catch (Exception e) {
+            log.debug("Invalid cursor '{}': {}", token, e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+
+        if (cursor == null || !sortBy.equals(cursor.getSortBy()) || ascending != cursor.isAscending()
+                || !hashQuery(query).equals(cursor.getQueryHash())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor was issued for a different query or sort order");
+        }
+        // The id ends up quoted in an FT.AGGREGATE FILTER expression
+        if (StringUtils.isBlank(cursor.getLastId()) || StringUtils.containsAny(cursor.getLastId(), '\'', '\\')) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+        return cursor;
+    }
+
+    public String hashQuery(String query) {
+        return Hashing.murmur3_32_fixed().hashString(query, StandardCharsets.UTF_8).toString();
+    }
+}
@@ -0,0 +1,60 @@
+package io.redis.util;
+
+import io.redis.model.InternerMetrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process wide dictionary of the names repeated across movies i.e. actors, directors, writers, genres, jobs & languages
+ * Deserialised movies share one String instance per distinct name instead of one copy per occurrence, for
+ * movies parsed by the loaders as well as those held in the search & near caches.
+ * Static because the Gson TypeAdapters which use it are created by Gson, not by Spring.
+ * Once MAX_SIZE distinct names are held, new names are passed through un-interned.
+ */
+public final class NameInterner {
+
+    public static final int MAX_SIZE = 500_000;
+
+    private static final ConcurrentMap<String, String> NAMES = new ConcurrentHashMap<>();
+
+    private static final AtomicLong total = new AtomicLong();
+    private static final AtomicLong deduplicated = new AtomicLong();
+
+    private NameInterner() {
+    }
+
+    /**
+     * The canonical instance of the name
+     *
+     * @param name
+     * @return
+     */
+    public static String intern(String name) {
+        if (name == null) {
+            return null;
+        }
+        total.incrementAndGet();
+
+        String canonical = NAMES.get(name);
+        if (canonical != null) {
+            deduplicated.incrementAndGet();
+            return canonical;
+        }
+        if (NAMES.size() >= MAX_SIZE) {
+            return name;
+        }
+
+        canonical = NAMES.putIfAbsent(name, name);
+        if (canonical != null) {
+            deduplicated.incrementAndGet();
+            return canonical;
+        }
+        return name;
+    }
+
+    public static InternerMetrics getMetrics() {
+        return InternerMetrics.of("names", NAMES.size(), total.get(), deduplicated.get());
+    }
+}
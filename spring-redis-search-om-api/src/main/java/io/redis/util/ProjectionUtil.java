@@ -0,0 +1,85 @@
+package io.redis.util;
+
+import io.redis.model.Movie;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PostConstruct;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Sparse fieldsets for movie list endpoints
+ * A "fields" request parameter is resolved to the JSON properties of a Movie to return i.e.
+ * - fields=title,voteAverage,year -> [title, voteAverage, year]
+ * - fields=summary               -> [id, title, posterImage, voteAverage, year] (grid & card views)
+ */
+@Slf4j
+@Component
+public class ProjectionUtil {
+
+    public static final String SUMMARY = "summary";
+    public static final List<String> SUMMARY_FIELDS = List.of("id", "title", "posterImage", "voteAverage", "year");
+
+    private static final Pattern COMMA = Pattern.compile(",");
+
+    @Autowired
+    SchemaUtil schemaUtil;
+
+    // JSON property name -> declared type
+    private final Map<String, Type> movieFields = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (Field field : Movie.class.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+                movieFields.put(schemaUtil.getJsonName(field), field.getGenericType());
+            }
+        }
+    }
+
+    /**
+     * Resolve the fields parameter, an empty list means the full document
+     *
+     * @param fields
+     * @return
+     */
+    public List<String> parseFields(String fields) {
+        if (StringUtils.isBlank(fields)) {
+            return List.of();
+        }
+        if (SUMMARY.equalsIgnoreCase(fields.trim())) {
+            return SUMMARY_FIELDS;
+        }
+
+        Set<String> parsed = new TreeSet<>();
+        for (String field : COMMA.split(fields)) {
+            if (StringUtils.isBlank(field)) {
+                continue;
+            }
+            if (!movieFields.containsKey(field.trim())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unknown field '" + field.trim() + "', available fields: " + movieFields.keySet());
+            }
+            parsed.add(field.trim());
+        }
+        return List.copyOf(parsed);
+    }
+
+    /**
+     * Declared type of a movie JSON property, used to decode projected values
+     *
+     * @param field
+     * @return
+     */
+    public Type getFieldType(String field) {
+        return movieFields.getOrDefault(field, String.class);
+    }
+}
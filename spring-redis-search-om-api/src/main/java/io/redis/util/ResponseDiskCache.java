@@ -0,0 +1,227 @@
+package io.redis.util;
+
+import com.google.common.hash.Hashing;
+import io.redis.model.CacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import javax.annotation.PostConstruct;
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content addressed, on-disk cache of HTTP response bodies
+ * Each response is stored as "<SHA-256 of the normalised request URI>.gz" in the cache directory, the file holds
+ * the time it was stored (8 bytes) followed by the gzipped body. Entries older than the TTL are treated as a miss,
+ * once the total size on disk exceeds the cap the least recently used entries are evicted.
+ * The LRU order is tracked in memory & rebuilt from file modification times on startup.
+ */
+@Slf4j
+@Component
+public class ResponseDiskCache {
+
+    private static final String SUFFIX = ".gz";
+    private static final Set<String> IGNORED_PARAMS = Set.of("api_key");
+
+    @Value("${spring.redis.movie.scraper.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${spring.redis.movie.scraper.cache.dir:src/main/resources/movies/cache}")
+    private String dir;
+
+    @Value("${spring.redis.movie.scraper.cache.ttl:7d}")
+    private Duration ttl;
+
+    @Value("${spring.redis.movie.scraper.cache.max-size-mb:512}")
+    private long maxSizeMb;
+
+    // Entry name -> size on disk, in access order (eldest first)
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        Path cacheDir = Paths.get(dir);
+        if (!Files.isDirectory(cacheDir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            files.filter(f -> f.getFileName().toString().endsWith(SUFFIX))
+                    .map(Path::toFile)
+                    .sorted(Comparator.comparingLong(File::lastModified))
+                    .forEach(f -> {
+                        entries.put(f.getName(), f.length());
+                        totalBytes += f.length();
+                    });
+        }
+        log.info("Response cache '{}' holds {} entries ({}KB)", dir, entries.size(), totalBytes / 1024);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Cache key for a request, the SHA-256 of its path & query parameters sorted by name (credentials excluded)
+     * i.e. "movie/278?api_key=...&append_to_response=credits" -> sha256("movie/278?append_to_response=credits")
+     *
+     * @param uri
+     * @return
+     */
+    public String key(URI uri) {
+        UriComponents components = UriComponentsBuilder.fromUri(uri).build();
+        MultiValueMap<String, String> params = components.getQueryParams();
+
+        String query = params.keySet().stream()
+                .filter(name -> !IGNORED_PARAMS.contains(name))
+                .sorted()
+                .flatMap(name -> params.get(name).stream().sorted().map(value -> name + "=" + value))
+                .collect(Collectors.joining("&"));
+
+        String normalised = Objects.toString(components.getPath(), "").replaceAll("^/+", "") + "?" + query;
+        return Hashing.sha256().hashString(normalised, StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * Cached body for the key, empty if missing or expired
+     *
+     * @param key
+     * @return
+     */
+    public Optional<String> get(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        File file = file(key);
+        synchronized (entries) {
+            if (entries.get(file.getName()) == null) {
+                misses.incrementAndGet();
+                return Optional.empty();
+            }
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            long storedAt = in.readLong();
+            if (System.currentTimeMillis() - storedAt > ttl.toMillis()) {
+                remove(file);
+                misses.incrementAndGet();
+                return Optional.empty();
+            }
+            try (Reader reader = new InputStreamReader(new GZIPInputStream(in), StandardCharsets.UTF_8)) {
+                StringWriter body = new StringWriter();
+                reader.transferTo(body);
+                hits.incrementAndGet();
+                return Optional.of(body.toString());
+            }
+        } catch (IOException e) {
+            log.warn("Discarding unreadable cache entry {}: {}", file.getName(), e.getMessage());
+            remove(file);
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Store a body under the key, evicting least recently used entries beyond the size cap
+     *
+     * @param key
+     * @param body
+     */
+    public void put(String key, String body) {
+        if (!enabled) {
+            return;
+        }
+
+        File file = file(key);
+        try {
+            file.getParentFile().mkdirs();
+            File temp = File.createTempFile(key, ".tmp", file.getParentFile());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeLong(System.currentTimeMillis());
+                try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(out), StandardCharsets.UTF_8)) {
+                    writer.write(body);
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+            synchronized (entries) {
+                Long previous = entries.put(file.getName(), file.length());
+                totalBytes += file.length() - (previous == null ? 0 : previous);
+                evict();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to cache response {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Entries on disk, hits & misses (including expired entries) and entries evicted by the size cap
+     *
+     * @return
+     */
+    public CacheMetrics getMetrics() {
+        CacheMetrics metrics = new CacheMetrics();
+        metrics.setName("tmdb-responses");
+        synchronized (entries) {
+            metrics.setSize(entries.size());
+        }
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        metrics.setHitCount(hitCount);
+        metrics.setMissCount(missCount);
+        metrics.setHitRate(hitCount + missCount == 0 ? 1.0 : (double) hitCount / (hitCount + missCount));
+        metrics.setEvictionCount(evictions.get());
+        return metrics;
+    }
+
+    private void evict() {
+        long maxBytes = maxSizeMb * 1024 * 1024;
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            new File(dir, entry.getKey()).delete();
+            totalBytes -= entry.getValue();
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(File file) {
+        synchronized (entries) {
+            Long size = entries.remove(file.getName());
+            if (size != null) {
+                totalBytes -= size;
+            }
+        }
+        file.delete();
+    }
+
+    private File file(String key) {
+        return new File(dir, key + SUFFIX);
+    }
+}
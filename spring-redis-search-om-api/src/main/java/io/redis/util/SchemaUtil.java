@@ -0,0 +1,140 @@
+package io.redis.util;
+
+import com.google.gson.annotations.SerializedName;
+import com.redis.om.spring.annotations.Indexed;
+import com.redis.om.spring.annotations.NumericIndexed;
+import com.redis.om.spring.annotations.Searchable;
+import com.redis.om.spring.annotations.TagIndexed;
+import io.redis.model.IndexProfile;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.annotation.Id;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.search.schemafields.NumericField;
+import redis.clients.jedis.search.schemafields.SchemaField;
+import redis.clients.jedis.search.schemafields.TagField;
+import redis.clients.jedis.search.schemafields.TextField;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.util.*;
+
+@Slf4j
+@Component
+public class SchemaUtil {
+
+    private static final char TAG_SEPARATOR = '|';
+
+    /**
+     * Build a JSON index schema from the Redis OM annotations of an entity
+     * Mirrors the index Redis OM creates on startup so versioned indexes can be created for the same entity i.e.
+     * - @Searchable String title        -> "$.title" AS title TEXT WEIGHT 3.0 SORTABLE
+     * - @TagIndexed List<String> genres -> "$.genres[*]" AS genres TAG SEPARATOR |
+     * - @NumericIndexed long budget     -> "$.budget" AS budget NUMERIC SORTABLE
+     * - @Indexed List<CrewMember>       -> "$.directorList[*].name" AS directorList_name TEXT
+     *
+     * @param entity
+     * @return
+     */
+    public List<SchemaField> buildSchema(Class<?> entity) {
+        return buildSchema(entity, null);
+    }
+
+    /**
+     * Build a JSON index schema from the Redis OM annotations, restricted to the fields of an index profile
+     * Fields the profile doesn't list are left out (return-only) & SORTABLE is set from the profile's sortable
+     * list instead of the annotations, i.e. a profile which only sorts by popularity drops the sorting vectors
+     * of budget, revenue & runtime
+     *
+     * @param entity
+     * @param profile null for every annotated field
+     * @return
+     */
+    public List<SchemaField> buildSchema(Class<?> entity, IndexProfile profile) {
+        Map<String, SchemaField> schema = new LinkedHashMap<>();
+
+        for (Field field : entity.getDeclaredFields()) {
+            String path = "$." + getJsonName(field);
+            String alias = field.getName();
+
+            if (field.isAnnotationPresent(Id.class) && isIndexed(profile, alias)) {
+                schema.putIfAbsent(alias, TagField.of(path).as(alias).separator(TAG_SEPARATOR));
+            }
+
+            Searchable searchable = field.getAnnotation(Searchable.class);
+            if (searchable != null && isIndexed(profile, alias)) {
+                TextField text = TextField.of(path).as(alias).weight(searchable.weight());
+                schema.putIfAbsent(alias, isSortable(profile, alias, searchable.sortable()) ? text.sortable() : text);
+            }
+
+            NumericIndexed numeric = field.getAnnotation(NumericIndexed.class);
+            String numericName = numeric == null ? alias : StringUtils.defaultIfBlank(numeric.fieldName(), alias);
+            if (numeric != null && isIndexed(profile, numericName)) {
+                NumericField number = NumericField.of(path).as(numericName);
+                schema.putIfAbsent(numericName, isSortable(profile, numericName, numeric.sortable()) ? number.sortable() : number);
+            }
+
+            if ((field.isAnnotationPresent(TagIndexed.class) || isIndexedTag(field)) && isIndexed(profile, alias)) {
+                String tagPath = Collection.class.isAssignableFrom(field.getType()) ? path + "[*]" : path;
+                schema.putIfAbsent(alias, TagField.of(tagPath).as(alias).separator(TAG_SEPARATOR));
+            }
+
+            // Nested objects i.e. List<CrewMember> index the @Searchable fields of the element type
+            Class<?> elementType = getElementType(field);
+            if (field.isAnnotationPresent(Indexed.class) && elementType != null && elementType != String.class) {
+                for (Field nested : elementType.getDeclaredFields()) {
+                    Searchable nestedSearchable = nested.getAnnotation(Searchable.class);
+                    String nestedAlias = alias + "_" + nested.getName();
+                    if (nestedSearchable != null && isIndexed(profile, nestedAlias)) {
+                        schema.putIfAbsent(nestedAlias, TextField.of(path + "[*]." + getJsonName(nested))
+                                .as(nestedAlias).weight(nestedSearchable.weight()));
+                    }
+                }
+            }
+        }
+
+        if (profile != null) {
+            List<String> unknown = new ArrayList<>(profile.getFilterable());
+            unknown.addAll(profile.getSortable());
+            unknown.removeAll(schema.keySet());
+            if (!unknown.isEmpty()) {
+                log.warn("Index profile fields {} are not indexable fields of {}", unknown, entity.getSimpleName());
+            }
+        }
+
+        log.debug("Built schema for {} with fields: {}", entity.getSimpleName(), schema.keySet());
+        return new ArrayList<>(schema.values());
+    }
+
+    private boolean isIndexed(IndexProfile profile, String alias) {
+        return profile == null || profile.isIndexed(alias);
+    }
+
+    private boolean isSortable(IndexProfile profile, String alias, boolean annotated) {
+        return profile == null ? annotated : profile.isSortable(alias);
+    }
+
+    /**
+     * JSON property name as written by Gson i.e. the @SerializedName value if present
+     *
+     * @param field
+     * @return
+     */
+    public String getJsonName(Field field) {
+        SerializedName serializedName = field.getAnnotation(SerializedName.class);
+        return serializedName != null ? serializedName.value() : field.getName();
+    }
+
+    private boolean isIndexedTag(Field field) {
+        return field.isAnnotationPresent(Indexed.class)
+                && (field.getType() == String.class || getElementType(field) == String.class);
+    }
+
+    private Class<?> getElementType(Field field) {
+        if (!Collection.class.isAssignableFrom(field.getType())
+                || !(field.getGenericType() instanceof ParameterizedType)) {
+            return null;
+        }
+        return (Class<?>) ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+    }
+}
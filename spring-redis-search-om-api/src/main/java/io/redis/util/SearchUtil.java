@@ -1,21 +1,20 @@
 package io.redis.util;
 
-import com.google.gson.Gson;
 import io.redis.model.Field;
-import io.redis.model.Movie;
 import io.redis.model.MovieQueryFilter;
+import io.redis.query.Query;
+import io.redis.query.QueryEscaper;
+import io.redis.query.QueryNode;
+import io.redis.query.TextNode;
 import io.redis.type.FieldENUM;
 import io.redis.type.FieldTypeENUM;
 import io.redis.type.OperatorENUM;
-//import io.redisearch.SearchResult;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Component
@@ -23,85 +22,69 @@ public class SearchUtil {
 
     private static final Pattern COMMA = Pattern.compile(",");
 
-    @Autowired
-    Gson gson;
-
     /**
      * Add escape symbols for 'Special Characters' in Strings
-     * NOTE: This is built into Jedis 4.x so should be removed soon..
      *
      * @param inputString
      * @return
      */
     public String escapeMetaCharacters(String inputString) {
-        final String[] metaCharacters = {"\\", "^", "$", "{", "}", "[", "]", "(", ")", ".", "*", "+", "?", "|", "<", ">", "-", "&", "%"};
+        return QueryEscaper.escape(inputString);
+    }
 
-        for (int i = 0; i < metaCharacters.length; i++) {
-            if (inputString.contains(metaCharacters[i])) {
-                inputString = inputString.replace(metaCharacters[i], "\\" + metaCharacters[i]);
-            }
-        }
-        return inputString;
+    /**
+     * Numeric range filter, values <= 0 are treated as unbounded i.e.
+     * - gte only: "@voteAverage:[7.0 inf]"
+     * - lte only: "@runtime:[-inf 300]"
+     * - both: "@runtime:[100 300]", "@year:[2014 2014]"
+     *
+     * @param gte
+     * @param lte
+     * @param field
+     * @return
+     */
+    public QueryNode buildRangeNode(Number gte, Number lte, FieldENUM field) {
+        Number min = gte != null && gte.doubleValue() > 0 ? gte : null;
+        Number max = lte != null && lte.doubleValue() > 0 ? lte : null;
+
+        log.debug("Field: {} :: GTE Val: {} , LTE: {}", field.getFieldName(), min, max);
+        return Query.range(field.getFieldName(), min, max);
     }
 
     /**
-     * Manage Query Building
+     * Filter on a collection of TAG or TEXT values i.e.
+     * OR: "@genres:{Action|Adventure}"
+     * AND: "@genres:{Action} @genres:{Adventure}"
+     * NOT: "-@genres:{Action|Adventure}"
      *
      * @param collection
      * @param field
-     * @param joiner
      * @return
      */
-    public StringJoiner addToQuery(String collection, Field field, StringJoiner joiner) {
-        if (StringUtils.isBlank(collection)) {
-            return joiner;
-        } else {
-            return joiner.add(this.buildQuery(collection, field).trim());
-        }
+    public QueryNode buildCollectionNode(Collection<String> collection, Field field) {
+        return this.buildCollectionNode(collection, field.getName().getFieldName(), field.getType(), field.getFilter());
     }
 
-    public StringJoiner addRangeToQuery(Number gte, Number lte, FieldENUM field, StringJoiner joiner) {
-
-        // Null check
-        gte = getNumberValue(gte);
-        lte = getNumberValue(lte);
+    private QueryNode buildCollectionNode(Collection<String> collection, String fieldName, FieldTypeENUM type, OperatorENUM operator) {
+        QueryNode any = type == FieldTypeENUM.TEXT ? Query.text(fieldName, collection) : Query.tag(fieldName, collection);
 
-        // no query to be made
-        if (gte.longValue() <= 0 && lte.longValue() <= 0){
-            return joiner;
+        switch (operator) {
+            case AND:
+                if (type == FieldTypeENUM.TEXT) {
+                    List<QueryNode> nodes = new ArrayList<>();
+                    ((TextNode) any).getTerms().forEach(t -> nodes.add(Query.text(fieldName, List.of(t))));
+                    return Query.and(nodes);
+                }
+                return Query.allTags(fieldName, collection);
+            case NOT:
+                return Query.not(any);
+            case OR:
+            default:
+                return any;
         }
-
-        log.debug("Field: {} :: GTE Val: {} , LTE: {}", field.getFieldName(), gte.longValue(), lte.longValue());
-
-        // Range matrix
-        boolean range = gte.longValue() > 0 && lte.longValue() > 0 ? true : false;
-        boolean exact = range && (gte.equals(lte)) ? true : false;
-        boolean lessThan = lte.longValue() > 0 && gte.longValue() <= 0 ? true : false;
-        boolean greaterThan = gte.longValue() > 0 && lte.longValue() <= 0 ? true : false;
-
-        log.debug("field: {}, {}, {}, {}, {}", field.getFieldName(), range, exact, lessThan, greaterThan);
-
-        // Search for an exact value i.e. "@rating:[(2014]"
-        if (exact) return joiner.add("@" + field.getFieldName() + ":[(" + gte + "]");
-
-        // Search for an exact value i.e. @rating:[-inf (5]
-        if (lessThan) return joiner.add("@" + field.getFieldName() + ":[-inf (" + lte + "]");
-
-        // "@rating:[4 inf]"
-        if (greaterThan) return joiner.add("@" + field.getFieldName() + ":[" + gte + " inf]");
-
-        // Search between a range value i.e. @rating:[-inf (5]
-        if (range && !exact) return joiner.add("@" + field.getFieldName() + ":[" + gte + " " + lte + "]");
-
-        return joiner;
-    }
-
-    private Number getNumberValue(Number val){
-        return Optional.ofNullable(val).orElse(0);
     }
 
     /**
-     * TODO: Build Fluent Query builder
      * Iterates over an array of fields to help build the query
      *
      * @param collection
@@ -110,135 +93,76 @@ public class SearchUtil {
      */
     public String buildArrayQuery(Set<String> collection, String fieldName, OperatorENUM operator) {
 
-        // Build Query String i.e. "@actors:{Chris Evans} @actors:{Scarlett Johansson} "
-        StringBuilder sb = new StringBuilder();
-        switch (operator) {
-            case OR:
-                sb.append("@" + fieldName + ":{");
-                sb.append(collection.stream().collect(Collectors.joining("|")));
-                sb.append("} ");
-                break;
-            case AND:
-                collection.stream().forEach(c -> {
-                    sb.append("@" + fieldName + ":{").append(c.trim()).append("} ");
-                });
-                break;
-            case NOT:
-                sb.append("-@" + fieldName + ":{");
-                sb.append(collection.stream().collect(Collectors.joining("|")));
-                sb.append("} ");
-                break;
-        }
+        // Build Query String i.e. "@actors:{Chris Evans} @actors:{Scarlett Johansson}"
+        QueryNode node = this.buildCollectionNode(collection, fieldName, FieldTypeENUM.TAG, operator);
+        String query = node.isEmpty() ? "" : Query.render(node);
 
-            log.debug("Returning query string '{}' , for field '{}' ", sb, fieldName);
-            return sb.toString();
-   }
+        log.debug("Returning query string '{}' , for field '{}' ", query, fieldName);
+        return query;
+    }
 
     /**
-     * Builds query for TEXT,TAG & NUMERIC fields using AND,OR operators
+     * Builds query for TEXT & TAG fields from a comma separated list using AND,OR,NOT operators
      *
      * @param collection
      * @param field
      * @return
      */
     public String buildQuery(String collection, Field field) {
-
-        // Build Query String
-        StringBuilder sb = new StringBuilder();
-
-        // Example:  "@actors:{Chris Evans} @actors:{Scarlett Johansson} "
-        if (field.getFilter().equals(OperatorENUM.AND)) {
-            COMMA.splitAsStream(collection).forEach(c -> {
-                sb.append("@" + field.getName().getFieldName() + ":");
-                sb.append(field.getType().getDelimiterStart());
-                sb.append(c.trim()).append(field.getType().getDelimiterEnd()).append(" ");
-            });
+        if (StringUtils.isBlank(collection)) {
+            return "";
         }
 
-        // Example: "@actors:{Chris Evans|Scarlett Johansson} "
-        if (field.getFilter().equals(OperatorENUM.OR)) {
-            sb.append("@" + field.getName().getFieldName() + ":");
-            sb.append(field.getType().getDelimiterStart());
-            sb.append(COMMA.splitAsStream(collection)
-                    .map(String::trim).map(this::escapeMetaCharacters)
-                    .collect(Collectors.joining("|")));
-            sb.append(field.getType().getDelimiterEnd()).append(" ");
-        }
+        // Example: "@actors:{Chris Evans|Scarlett Johansson}"
+        QueryNode node = this.buildCollectionNode(Arrays.asList(COMMA.split(collection)), field);
+        String query = node.isEmpty() ? "" : Query.render(node);
 
-        log.debug("Returning query string '{}' , for field '{}' ", sb, field.getName().getFieldName());
-        return sb.toString();
+        log.debug("Returning query string '{}' , for field '{}' ", query, field.getName().getFieldName());
+        return query;
     }
 
     /**
-     * Basic util to convert search results to Spring Pageable object
-     *
-     * @param searchResult
-     * @return
-     */
-/*    public List<Movie> convertToPageableObject(SearchResult searchResult) {
-        List<Movie> movies = new ArrayList<>();
-        searchResult.docs.stream().forEach(d -> {
-            d.getProperties().forEach(e -> {
-                if (e.getValue().toString().substring(0,1).equals("{")){
-                    movies.add(gson.fromJson(e.getValue().toString(), Movie.class));
-                }
-            });
-        });
-        return movies;
-    }*/
-
-    /**
-     * Really Basic Redis Search Query Builder
-     * Where field filters are not null, the query filter is appended to the query
-     * TODO: Make one thats doesnt suck.
+     * Redis Search Query Builder
+     * Where field filters are not null, the query filter is added to the query
      *
      * @param filterQuery
      * @return
      */
-    public String advancedMovieQueryBuilder(MovieQueryFilter filterQuery) {
-
-        log.info("Using Movie Filter: {}", filterQuery);
-        StringJoiner joiner = new StringJoiner(" ");
+    public QueryNode buildMovieQuery(MovieQueryFilter filterQuery) {
+        List<QueryNode> nodes = new ArrayList<>();
 
         // Add Generic Search Criteria
-        if (StringUtils.isNotBlank(filterQuery.getQuery())) {
-            joiner.add(filterQuery.getQuery());
-        }
-
-        // Add Actors Criteria
-        this.addToQuery(filterQuery.getActors(), new Field(FieldENUM.ACTORS, FieldTypeENUM.TAG,
-                OperatorENUM.fromString(filterQuery.getActorOperator())), joiner);
-
-        // Add Directors Criteria
-        this.addToQuery(filterQuery.getDirectors(), new Field(FieldENUM.DIRECTOR, FieldTypeENUM.TAG,
-                OperatorENUM.fromString(filterQuery.getDirectorOperator())), joiner);
-
-        // Add Genre Criteria
-        this.addToQuery(filterQuery.getGenres(), new Field(FieldENUM.GENRE, FieldTypeENUM.TAG,
-                OperatorENUM.fromString(filterQuery.getGenreOperator())), joiner);
-
-        // Add Writer Criteria
-        this.addToQuery(filterQuery.getWriters(), new Field(FieldENUM.WRITERS, FieldTypeENUM.TAG,
-                OperatorENUM.fromString(filterQuery.getWriterOperator())), joiner);
+        nodes.add(Query.text(filterQuery.getQuery()));
 
-        // Add Rating / Vote Average (GTE) Criteria
-        this.addRangeToQuery(filterQuery.getVoteAverageGTE(), 0.0, FieldENUM.RATING, joiner);
+        // Add Actors, Directors, Genre & Writer Criteria
+        nodes.add(this.buildCollectionNode(filterQuery.getActors(), FieldENUM.ACTORS, filterQuery.getActorOperator()));
+        nodes.add(this.buildCollectionNode(filterQuery.getDirectors(), FieldENUM.DIRECTOR, filterQuery.getDirectorOperator()));
+        nodes.add(this.buildCollectionNode(filterQuery.getGenres(), FieldENUM.GENRE, filterQuery.getGenreOperator()));
+        nodes.add(this.buildCollectionNode(filterQuery.getWriters(), FieldENUM.WRITERS, filterQuery.getWriterOperator()));
 
-        // Add Vote Count (GTE)
-        this.addRangeToQuery(filterQuery.getVoteCountGTE(), 0l, FieldENUM.VOTE_COUNT, joiner);
+        // Add Rating / Vote Average, Vote Count & Budget (GTE) Criteria
+        nodes.add(this.buildRangeNode(filterQuery.getVoteAverageGTE(), null, FieldENUM.RATING));
+        nodes.add(this.buildRangeNode(filterQuery.getVoteCountGTE(), null, FieldENUM.VOTE_COUNT));
+        nodes.add(this.buildRangeNode(filterQuery.getBudgetGTE(), null, FieldENUM.BUDGET));
 
-        // Add Budget Criteria
-        this.addRangeToQuery(filterQuery.getBudgetGTE(), 0l, FieldENUM.BUDGET, joiner);
+        // Add Runtime Length, Release Date & Popularity Criteria
+        nodes.add(this.buildRangeNode(filterQuery.getRuntimeGTE(), filterQuery.getRuntimeLTE(), FieldENUM.RUNTIME));
+        nodes.add(this.buildRangeNode(filterQuery.getReleaseDateGTE(), filterQuery.getReleaseDateLTE(), FieldENUM.RELEASE_DATE));
+        nodes.add(this.buildRangeNode(filterQuery.getPopularityGTE(), filterQuery.getPopularityLTE(), FieldENUM.POPULARITY));
 
-        // Add Runtime Length Criteria
-        this.addRangeToQuery(filterQuery.getRuntimeGTE(), filterQuery.getRuntimeLTE(), FieldENUM.RUNTIME, joiner);
-
-        // Add Runtime Release Year Criteria
-        this.addRangeToQuery(filterQuery.getReleaseDateGTE(), filterQuery.getReleaseDateLTE(), FieldENUM.RELEASE_DATE, joiner);
+        return Query.and(nodes);
+    }
 
-        // Add Runtime Meta Rating Criteria
-        this.addRangeToQuery(filterQuery.getPopularityGTE(), filterQuery.getPopularityLTE(), FieldENUM.POPULARITY, joiner);
+    public String advancedMovieQueryBuilder(MovieQueryFilter filterQuery) {
+        log.info("Using Movie Filter: {}", filterQuery);
+        return Query.render(this.buildMovieQuery(filterQuery));
+    }
 
-        return joiner.toString();
+    private QueryNode buildCollectionNode(String collection, FieldENUM field, String operator) {
+        if (StringUtils.isBlank(collection)) {
+            return null;
+        }
+        return this.buildCollectionNode(Arrays.asList(COMMA.split(collection)),
+                new Field(field, FieldTypeENUM.TAG, OperatorENUM.fromString(operator)));
     }
 }
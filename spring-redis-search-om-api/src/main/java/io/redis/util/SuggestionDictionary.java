@@ -0,0 +1,189 @@
+package io.redis.util;
+
+import io.redis.model.Movie;
+import io.redis.model.Suggestion;
+import io.redis.type.SuggestionTypeENUM;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.resps.Tuple;
+
+import java.util.*;
+
+/**
+ * Autocomplete dictionaries (FT.SUGADD / FT.SUGGET) of movie titles, actors & directors, one set per keyspace i.e.
+ * - "suggest:io.redis.model.Movie:titles" : titles weighted by the movie's popularity
+ * - "suggest:io.redis.model.Movie:actors" : actors weighted by the summed popularity of their movies
+ * - "suggest:io.redis.model.Movie:directors" : directors, weighted as actors
+ * Dictionaries are accumulated in memory while the movies file is read, then written into a temporary key which is
+ * RENAMEd over the live dictionary, so lookups never see a half built (or stale merged) dictionary.
+ */
+@Slf4j
+@Component
+public class SuggestionDictionary {
+
+    private static final String KEY_PREFIX = "suggest:";
+    private static final String BUILDING_SUFFIX = ":building";
+
+    @Autowired
+    JedisPooled jedis;
+
+    @Value("${spring.redis.movie.suggest.enabled:true}")
+    private boolean enabled;
+
+    @Value("${spring.redis.movie.data.loader.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Start building the dictionaries of a keyspace, add every movie then publish
+     *
+     * @param keyPrefix
+     * @return
+     */
+    public Builder builder(String keyPrefix) {
+        return new Builder(keyPrefix);
+    }
+
+    /**
+     * Whether the dictionaries of a keyspace have been built
+     *
+     * @param keyPrefix
+     * @return
+     */
+    public boolean exists(String keyPrefix) {
+        return !enabled || jedis.exists(key(keyPrefix, SuggestionTypeENUM.TITLES));
+    }
+
+    /**
+     * Complete a prefix against the given dictionaries, all lookups are sent as one pipeline
+     * REDIS: "FT.SUGGET" "suggest:io.redis.model.Movie:titles" "aven" "WITHSCORES" "MAX" "5"
+     *
+     * @param keyPrefix
+     * @param types
+     * @param prefix
+     * @param fuzzy     allow a Levenshtein distance of one
+     * @param max
+     * @return dictionary -> suggestions, best first
+     */
+    public Map<String, List<Suggestion>> suggest(String keyPrefix, List<SuggestionTypeENUM> types, String prefix,
+                                                 boolean fuzzy, int max) {
+        Map<SuggestionTypeENUM, Response<List<Tuple>>> responses = new EnumMap<>(SuggestionTypeENUM.class);
+        try (Connection connection = jedis.getPool().getResource()) {
+            Pipeline pipeline = new Pipeline(connection);
+            for (SuggestionTypeENUM type : types) {
+                responses.put(type, pipeline.ftSugGetWithScores(key(keyPrefix, type), prefix, fuzzy, max));
+            }
+            pipeline.sync();
+        }
+
+        Map<String, List<Suggestion>> suggestions = new LinkedHashMap<>();
+        responses.forEach((type, response) -> {
+            List<Suggestion> values = new ArrayList<>();
+            for (Tuple tuple : response.get()) {
+                values.add(new Suggestion(tuple.getElement(), tuple.getScore()));
+            }
+            suggestions.put(type.getDictionary(), values);
+        });
+        return suggestions;
+    }
+
+    /**
+     * Remove the dictionaries of a keyspace
+     *
+     * @param keyPrefix
+     */
+    public void delete(String keyPrefix) {
+        String[] keys = Arrays.stream(SuggestionTypeENUM.values())
+                .map(type -> key(keyPrefix, type))
+                .toArray(String[]::new);
+        jedis.del(keys);
+    }
+
+    private static String key(String keyPrefix, SuggestionTypeENUM type) {
+        return KEY_PREFIX + keyPrefix + type.getDictionary();
+    }
+
+    /**
+     * Not thread safe, movies are added from the thread reading the file
+     */
+    public class Builder {
+
+        private final String keyPrefix;
+        private final Map<SuggestionTypeENUM, Map<String, Double>> scores = new EnumMap<>(SuggestionTypeENUM.class);
+
+        private Builder(String keyPrefix) {
+            this.keyPrefix = keyPrefix;
+            for (SuggestionTypeENUM type : SuggestionTypeENUM.values()) {
+                scores.put(type, new HashMap<>());
+            }
+        }
+
+        public void add(Movie movie) {
+            if (!enabled) {
+                return;
+            }
+
+            // Popularity can be 0, keep every entry suggestible
+            double weight = Math.max(movie.getPopularity(), 0) + 1;
+            if (StringUtils.isNotBlank(movie.getTitle())) {
+                scores.get(SuggestionTypeENUM.TITLES).merge(movie.getTitle().trim(), weight, Math::max);
+            }
+            addAll(SuggestionTypeENUM.ACTORS, movie.getActors(), weight);
+            addAll(SuggestionTypeENUM.DIRECTORS, movie.getDirectors(), weight);
+        }
+
+        private void addAll(SuggestionTypeENUM type, List<String> names, double weight) {
+            if (names == null) {
+                return;
+            }
+            for (String name : names) {
+                if (StringUtils.isNotBlank(name)) {
+                    scores.get(type).merge(name.trim(), weight, Double::sum);
+                }
+            }
+        }
+
+        /**
+         * Write each dictionary with pipelined FT.SUGADD into a temporary key, then swap it in
+         * REDIS: "FT.SUGADD" "suggest:io.redis.model.Movie:titles:building" "The Avengers" "145.8"
+         * REDIS: "RENAME" "suggest:io.redis.model.Movie:titles:building" "suggest:io.redis.model.Movie:titles"
+         */
+        public void publish() {
+            if (!enabled) {
+                return;
+            }
+
+            for (SuggestionTypeENUM type : SuggestionTypeENUM.values()) {
+                String live = key(keyPrefix, type);
+                String building = live + BUILDING_SUFFIX;
+                Map<String, Double> entries = scores.get(type);
+
+                try (Connection connection = jedis.getPool().getResource()) {
+                    Pipeline pipeline = new Pipeline(connection);
+                    pipeline.del(building);
+                    int pending = 0;
+                    for (Map.Entry<String, Double> entry : entries.entrySet()) {
+                        pipeline.ftSugAdd(building, entry.getKey(), entry.getValue());
+                        if (++pending >= batchSize) {
+                            pipeline.sync();
+                            pending = 0;
+                        }
+                    }
+                    if (entries.isEmpty()) {
+                        pipeline.del(live);
+                    } else {
+                        pipeline.rename(building, live);
+                    }
+                    pipeline.sync();
+                }
+                log.info("Published {} {} suggestions to '{}'", entries.size(), type.getDictionary(), live);
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package io.redis.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+import io.redis.model.Movie;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Movie (de)serialisation of a whole data file, the streaming TypeAdapters (MovieTypeAdapter, CastMemberTypeAdapter,
+ * CrewMemberTypeAdapter) against Gson's reflective mapping they replaced
+ * The file is the one DataLoader reads (a JSON array of movies, ~10k in the full data set), given by the
+ * "movie.data.file" system property or the MOVIE_DATA_FILE environment variable
+ * Run with the GC profiler for allocation/op (gc.alloc.rate.norm):
+ * MOVIE_DATA_FILE=/path/to/movies.json mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=io.redis.benchmark.MovieSerialisationBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MovieSerialisationBenchmark {
+
+    private final Gson gson = new Gson();
+
+    private String json;
+    private Movie[] movies;
+    private BaselineMovie[] baselineMovies;
+
+    @Setup
+    public void setUp() throws IOException {
+        String file = StringUtils.firstNonBlank(System.getProperty("movie.data.file"), System.getenv("MOVIE_DATA_FILE"));
+        if (file == null) {
+            throw new IllegalStateException("Set the movie.data.file property or MOVIE_DATA_FILE to the movie data file");
+        }
+        json = Files.readString(Path.of(file), StandardCharsets.UTF_8);
+        movies = gson.fromJson(json, Movie[].class);
+        baselineMovies = gson.fromJson(json, BaselineMovie[].class);
+    }
+
+    @Benchmark
+    public Movie[] readTypeAdapter() {
+        return gson.fromJson(json, Movie[].class);
+    }
+
+    @Benchmark
+    public BaselineMovie[] readReflective() {
+        return gson.fromJson(json, BaselineMovie[].class);
+    }
+
+    @Benchmark
+    public String writeTypeAdapter() {
+        return gson.toJson(movies);
+    }
+
+    @Benchmark
+    public String writeReflective() {
+        return gson.toJson(baselineMovies);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MovieSerialisationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+    /**
+     * The models' reflective mapping before the TypeAdapters, copied so the benchmark keeps a fixed point of comparison
+     */
+    public static class BaselineMovie {
+        String id;
+        @SerializedName(value = "imdbId", alternate = "imdb_id")
+        String imdbId;
+        @SerializedName(value = "language", alternate = "original_language")
+        String language;
+        String title;
+        String overview;
+        String status;
+        String tagline;
+        double popularity;
+        @SerializedName(value = "voteAverage", alternate = "vote_average")
+        double voteAverage;
+        @SerializedName(value = "voteCount", alternate = "vote_count")
+        long voteCount;
+        long budget;
+        int runtime;
+        long revenue;
+        @SerializedName(value = "posterImage", alternate = "poster_path")
+        String posterImage;
+        long releaseDateUTC;
+        long year;
+        List<String> genres;
+        List<String> actors;
+        List<String> directors;
+        List<String> writers;
+        @SerializedName(value = "castList", alternate = "cast")
+        List<BaselineCastMember> castList;
+        @SerializedName(value = "directorList", alternate = "director")
+        List<BaselineCrewMember> directorList;
+        @SerializedName(value = "writerList", alternate = "writer")
+        List<BaselineCrewMember> writerList;
+    }
+
+    static class BaselineCastMember {
+        String id;
+        String character;
+        String name;
+        @JsonAdapter(BaselineGenderDeserialiser.class)
+        BaselineGender gender;
+        @SerializedName(value = "profileImage", alternate = "profile_path")
+        String profileImage;
+    }
+
+    static class BaselineCrewMember {
+        String id;
+        String job;
+        String name;
+        @JsonAdapter(BaselineGenderDeserialiser.class)
+        BaselineGender gender;
+        @SerializedName(value = "profileImage", alternate = "profile_path")
+        String profileImage;
+    }
+
+    enum BaselineGender {
+        MALE("Male"),
+        FEMALE("Female"),
+        UNKNOWN("Unknown");
+
+        private final String gender;
+
+        BaselineGender(String gender) {
+            this.gender = gender;
+        }
+
+        static BaselineGender fromString(String s) {
+            return Arrays.stream(values())
+                    .filter(v -> v.gender.equalsIgnoreCase(s))
+                    .findFirst()
+                    .orElse(UNKNOWN);
+        }
+    }
+
+    static class BaselineGenderDeserialiser implements JsonDeserializer<BaselineGender> {
+
+        @Override
+        public BaselineGender deserialize(JsonElement json, Type type, JsonDeserializationContext context) {
+            return BaselineGender.fromString(json.getAsString());
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package io.redis.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import io.redis.model.Field;
+import io.redis.model.MovieQueryFilter;
+import io.redis.query.Query;
+import io.redis.type.FieldENUM;
+import io.redis.type.FieldTypeENUM;
+import io.redis.type.OperatorENUM;
+import io.redis.util.SearchUtil;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Advanced search query building, the query AST (SearchUtil.buildMovieQuery + Query.render) against the string
+ * concatenation builder it replaced
+ * Run with the GC profiler for allocation/op (gc.alloc.rate.norm):
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=io.redis.benchmark.QueryBuilderBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBuilderBenchmark {
+
+    @Param({"simple", "full"})
+    private String filter;
+
+    private MovieQueryFilter movieQueryFilter;
+    private SearchUtil searchUtil;
+    private BaselineQueryBuilder baseline;
+
+    @Setup
+    public void setUp() {
+        // Both builders log at debug, which would otherwise dominate the measurement
+        ((Logger) LoggerFactory.getLogger("io.redis")).setLevel(Level.INFO);
+
+        movieQueryFilter = new MovieQueryFilter();
+        movieQueryFilter.setQuery("guardians");
+        movieQueryFilter.setGenres("Action,Adventure,Sci-Fi");
+        movieQueryFilter.setGenreOperator("OR");
+        if ("full".equals(filter)) {
+            movieQueryFilter.setActors("Chris Pratt,Zoe Saldana");
+            movieQueryFilter.setActorOperator("AND");
+            movieQueryFilter.setDirectors("James Gunn");
+            movieQueryFilter.setDirectorOperator("OR");
+            movieQueryFilter.setWriters("Nicole Perlman");
+            movieQueryFilter.setWriterOperator("OR");
+            movieQueryFilter.setVoteAverageGTE(7.0);
+            movieQueryFilter.setVoteCountGTE(1000L);
+            movieQueryFilter.setBudgetGTE(50_000_000L);
+            movieQueryFilter.setRuntimeGTE(90L);
+            movieQueryFilter.setRuntimeLTE(180L);
+            movieQueryFilter.setReleaseDateGTE(1262304000L);
+            movieQueryFilter.setReleaseDateLTE(1577836800L);
+            movieQueryFilter.setPopularityGTE(10L);
+        }
+
+        searchUtil = new SearchUtil();
+        baseline = new BaselineQueryBuilder();
+    }
+
+    @Benchmark
+    public String queryAst() {
+        return Query.render(searchUtil.buildMovieQuery(movieQueryFilter));
+    }
+
+    @Benchmark
+    public String baseline() {
+        return baseline.advancedMovieQueryBuilder(movieQueryFilter);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(QueryBuilderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+    /**
+     * SearchUtil's query building before the query AST, copied without its logging so the benchmark keeps
+     * a fixed point of comparison
+     */
+    static class BaselineQueryBuilder {
+
+        private static final Pattern COMMA = Pattern.compile(",");
+
+        String escapeMetaCharacters(String inputString) {
+            final String[] metaCharacters = {"\\", "^", "$", "{", "}", "[", "]", "(", ")", ".", "*", "+", "?", "|", "<", ">", "-", "&", "%"};
+
+            for (int i = 0; i < metaCharacters.length; i++) {
+                if (inputString.contains(metaCharacters[i])) {
+                    inputString = inputString.replace(metaCharacters[i], "\\" + metaCharacters[i]);
+                }
+            }
+            return inputString;
+        }
+
+        StringJoiner addToQuery(String collection, Field field, StringJoiner joiner) {
+            if (StringUtils.isBlank(collection)) {
+                return joiner;
+            } else {
+                return joiner.add(this.buildQuery(collection, field).trim());
+            }
+        }
+
+        StringJoiner addRangeToQuery(Number gte, Number lte, FieldENUM field, StringJoiner joiner) {
+            gte = Optional.ofNullable(gte).orElse(0);
+            lte = Optional.ofNullable(lte).orElse(0);
+
+            if (gte.longValue() <= 0 && lte.longValue() <= 0) {
+                return joiner;
+            }
+
+            boolean range = gte.longValue() > 0 && lte.longValue() > 0;
+            boolean exact = range && (gte.equals(lte));
+            boolean lessThan = lte.longValue() > 0 && gte.longValue() <= 0;
+            boolean greaterThan = gte.longValue() > 0 && lte.longValue() <= 0;
+
+            if (exact) return joiner.add("@" + field.getFieldName() + ":[(" + gte + "]");
+            if (lessThan) return joiner.add("@" + field.getFieldName() + ":[-inf (" + lte + "]");
+            if (greaterThan) return joiner.add("@" + field.getFieldName() + ":[" + gte + " inf]");
+            if (range) return joiner.add("@" + field.getFieldName() + ":[" + gte + " " + lte + "]");
+            return joiner;
+        }
+
+        String buildQuery(String collection, Field field) {
+            StringBuilder sb = new StringBuilder();
+
+            if (field.getFilter().equals(OperatorENUM.AND)) {
+                COMMA.splitAsStream(collection).forEach(c -> {
+                    sb.append("@" + field.getName().getFieldName() + ":");
+                    sb.append(field.getType().getDelimiterStart());
+                    sb.append(c.trim()).append(field.getType().getDelimiterEnd()).append(" ");
+                });
+            }
+
+            if (field.getFilter().equals(OperatorENUM.OR)) {
+                sb.append("@" + field.getName().getFieldName() + ":");
+                sb.append(field.getType().getDelimiterStart());
+                sb.append(COMMA.splitAsStream(collection)
+                        .map(String::trim).map(this::escapeMetaCharacters)
+                        .collect(Collectors.joining("|")));
+                sb.append(field.getType().getDelimiterEnd()).append(" ");
+            }
+            return sb.toString();
+        }
+
+        String advancedMovieQueryBuilder(MovieQueryFilter filterQuery) {
+            StringJoiner joiner = new StringJoiner(" ");
+
+            if (StringUtils.isNotBlank(filterQuery.getQuery())) {
+                joiner.add(filterQuery.getQuery());
+            }
+
+            this.addToQuery(filterQuery.getActors(), new Field(FieldENUM.ACTORS, FieldTypeENUM.TAG,
+                    OperatorENUM.fromString(filterQuery.getActorOperator())), joiner);
+            this.addToQuery(filterQuery.getDirectors(), new Field(FieldENUM.DIRECTOR, FieldTypeENUM.TAG,
+                    OperatorENUM.fromString(filterQuery.getDirectorOperator())), joiner);
+            this.addToQuery(filterQuery.getGenres(), new Field(FieldENUM.GENRE, FieldTypeENUM.TAG,
+                    OperatorENUM.fromString(filterQuery.getGenreOperator())), joiner);
+            this.addToQuery(filterQuery.getWriters(), new Field(FieldENUM.WRITERS, FieldTypeENUM.TAG,
+                    OperatorENUM.fromString(filterQuery.getWriterOperator())), joiner);
+
+            this.addRangeToQuery(filterQuery.getVoteAverageGTE(), 0.0, FieldENUM.RATING, joiner);
+            this.addRangeToQuery(filterQuery.getVoteCountGTE(), 0L, FieldENUM.VOTE_COUNT, joiner);
+            this.addRangeToQuery(filterQuery.getBudgetGTE(), 0L, FieldENUM.BUDGET, joiner);
+            this.addRangeToQuery(filterQuery.getRuntimeGTE(), filterQuery.getRuntimeLTE(), FieldENUM.RUNTIME, joiner);
+            this.addRangeToQuery(filterQuery.getReleaseDateGTE(), filterQuery.getReleaseDateLTE(), FieldENUM.RELEASE_DATE, joiner);
+            this.addRangeToQuery(filterQuery.getPopularityGTE(), filterQuery.getPopularityLTE(), FieldENUM.POPULARITY, joiner);
+
+            return joiner.toString();
+        }
+    }
+}
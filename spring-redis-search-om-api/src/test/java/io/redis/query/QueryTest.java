@@ -0,0 +1,92 @@
+package io.redis.query;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryTest {
+
+    @Test
+    void escapesPunctuationButNotSpaces() {
+        assertEquals("Sci\\-Fi", QueryEscaper.escape("Sci-Fi"));
+        assertEquals("Robert Downey Jr\\.", QueryEscaper.escape("Robert Downey Jr."));
+        assertEquals("a\\|b\\{c\\}\\\\", QueryEscaper.escape("a|b{c}\\"));
+        assertEquals("Chris Evans", QueryEscaper.escape("Chris Evans"));
+    }
+
+    @Test
+    void tagValuesAreTrimmedDeduplicatedSortedAndEscaped() {
+        assertEquals("@genres:{Action|Sci\\-Fi}",
+                Query.render(Query.tag("genres", List.of(" Sci-Fi", "Action", "Sci-Fi ", " "))));
+    }
+
+    @Test
+    void everyTagMustMatch() {
+        assertEquals("@actors:{Chris Evans} @actors:{Scarlett Johansson}",
+                Query.render(Query.allTags("actors", List.of("Scarlett Johansson", "Chris Evans"))));
+    }
+
+    @Test
+    void textOnAFieldOrAcrossFields() {
+        assertEquals("@title:(Avengers|Matrix)", Query.render(Query.text("title", List.of("Matrix", "Avengers"))));
+        assertEquals("Guardians Galaxy", Query.render(Query.text("Guardians Galaxy")));
+    }
+
+    @Test
+    void textIsPassedThroughUnescaped() {
+        assertEquals("spider-man", Query.render(Query.text("spider-man")));
+        assertEquals("@title:(Spider-Man|X-Men)", Query.render(Query.text("title", List.of("X-Men", "Spider-Man"))));
+        assertEquals("matrix -@genres:{Drama} @genres:{Sci\\-Fi}",
+                Query.render(Query.and(Query.text("matrix -@genres:{Drama}"), Query.tag("genres", List.of("Sci-Fi")))));
+    }
+
+    @Test
+    void rangesWithOpenAndClosedBounds() {
+        assertEquals("@voteAverage:[7.5 inf]", Query.render(Query.atLeast("voteAverage", 7.5)));
+        assertEquals("@runtime:[-inf 300]", Query.render(Query.atMost("runtime", 300L)));
+        assertEquals("@year:[2014 2014]", Query.render(Query.range("year", 2014, 2014)));
+    }
+
+    @Test
+    void emptyNodesAreSkippedAndAnEmptyQueryMatchesAll() {
+        assertEquals("*", Query.render(null));
+        assertEquals("*", Query.render(Query.and(Query.tag("genres", List.of()), Query.range("budget", null, null))));
+        assertEquals("@genres:{Drama}", Query.render(Query.and(Query.text((String) null), Query.tag("genres", List.of("Drama")))));
+    }
+
+    @Test
+    void negationOfASingleClause() {
+        assertEquals("-@genres:{Action|Adventure}", Query.render(Query.not(Query.tag("genres", List.of("Adventure", "Action")))));
+    }
+
+    @Test
+    void negationGroupsCompoundChildren() {
+        QueryNode both = Query.and(Query.tag("genres", List.of("Action")), Query.tag("genres", List.of("Adventure")));
+        assertEquals("-(@genres:{Action} @genres:{Adventure})", Query.render(Query.not(both)));
+        assertEquals("-(Guardians Galaxy)", Query.render(Query.not(Query.text("Guardians Galaxy"))));
+        assertEquals("Avengers -(@genres:{Action} @genres:{Adventure})",
+                Query.render(Query.and(Query.text("Avengers"), Query.not(both))));
+    }
+
+    @Test
+    void negationOfAnIntersectionWithOneChildIsNotGrouped() {
+        QueryNode one = Query.and(Query.tag("genres", List.of("Action")), Query.tag("genres", List.of()));
+        assertEquals("-@genres:{Action}", Query.render(Query.not(one)));
+    }
+
+    @Test
+    void reusedBufferDoesNotLeakBetweenRenders() {
+        String first = Query.render(Query.tag("genres", List.of("Drama")));
+        String second = Query.render(Query.atLeast("budget", 1L));
+        assertEquals("@genres:{Drama}", first);
+        assertEquals("@budget:[1 inf]", second);
+
+        // An oversized render isn't retained, the next render still works
+        String large = Query.render(Query.text("title", List.of("x".repeat(10_000))));
+        assertTrue(large.length() > 10_000);
+        assertEquals("@genres:{Drama}", Query.render(Query.tag("genres", List.of("Drama"))));
+    }
+}
@@ -0,0 +1,145 @@
+package io.redis.serialisation;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.redis.model.CastMember;
+import io.redis.model.CrewMember;
+import io.redis.model.Movie;
+import io.redis.type.GenderENUM;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieTypeAdapterTest {
+
+    private final Gson gson = new Gson();
+
+    @Test
+    void roundTrip() {
+        Movie movie = movie();
+
+        String json = gson.toJson(movie);
+        Movie read = gson.fromJson(json, Movie.class);
+
+        assertEquals(movie, read);
+        assertEquals(json, gson.toJson(read));
+    }
+
+    @Test
+    void writesTheStoredNamesInFieldOrder() {
+        CastMember member = castMember("504", "Andy Dufresne", "Tim Robbins", "Male");
+        member.setProfileImage("/hO3xA6Y2nDvCmVqR7hLrYpTGgfV.jpg");
+
+        assertEquals("{\"id\":\"504\",\"character\":\"Andy Dufresne\",\"name\":\"Tim Robbins\",\"gender\":\"MALE\","
+                + "\"profileImage\":\"/hO3xA6Y2nDvCmVqR7hLrYpTGgfV.jpg\"}", gson.toJson(member));
+
+        JsonObject json = JsonParser.parseString(gson.toJson(movie())).getAsJsonObject();
+        assertEquals(List.of("id", "imdbId", "language", "title", "overview", "status", "tagline", "popularity",
+                        "voteAverage", "voteCount", "budget", "runtime", "revenue", "posterImage", "releaseDateUTC",
+                        "year", "genres", "actors", "directors", "writers", "castList", "directorList", "writerList"),
+                List.copyOf(json.keySet()));
+    }
+
+    @Test
+    void readsTmdbNamesAndSkipsUnknownFields() {
+        String json = "{\"id\":278,\"imdb_id\":\"tt0111161\",\"original_language\":\"en\",\"title\":\"The Shawshank Redemption\","
+                + "\"vote_average\":8.7,\"vote_count\":24000,\"poster_path\":\"/q6y0Go1tsGEsmtFryDOJo3dEmqu.jpg\","
+                + "\"adult\":false,\"belongs_to_collection\":{\"id\":1,\"parts\":[{\"id\":2}]},"
+                + "\"cast\":[{\"id\":504,\"character\":\"Andy Dufresne\",\"name\":\"Tim Robbins\",\"gender\":\"Male\","
+                + "\"profile_path\":\"/a.jpg\",\"order\":0}],"
+                + "\"director\":[{\"id\":4027,\"job\":\"Director\",\"name\":\"Frank Darabont\",\"gender\":\"male\"}]}";
+
+        Movie movie = gson.fromJson(json, Movie.class);
+
+        assertEquals("278", movie.getId());
+        assertEquals("tt0111161", movie.getImdbId());
+        assertEquals("en", movie.getLanguage());
+        assertEquals(8.7, movie.getVoteAverage());
+        assertEquals(24000, movie.getVoteCount());
+        assertEquals("/q6y0Go1tsGEsmtFryDOJo3dEmqu.jpg", movie.getPosterImage());
+
+        CastMember cast = movie.getCastList().get(0);
+        assertEquals("504", cast.getId());
+        assertEquals("Tim Robbins", cast.getName());
+        assertEquals(GenderENUM.MALE, cast.getGender());
+        assertEquals("/a.jpg", cast.getProfileImage());
+
+        CrewMember director = movie.getDirectorList().get(0);
+        assertEquals("Director", director.getJob());
+        assertEquals(GenderENUM.MALE, director.getGender());
+    }
+
+    @Test
+    void genderIsCaseInsensitiveAndNullIsLeftUnset() {
+        assertEquals(GenderENUM.FEMALE, gson.fromJson("{\"gender\":\"FEMALE\"}", CastMember.class).getGender());
+        assertEquals(GenderENUM.FEMALE, gson.fromJson("{\"gender\":\"Female\"}", CrewMember.class).getGender());
+        assertEquals(GenderENUM.UNKNOWN, gson.fromJson("{\"gender\":\"2\"}", CastMember.class).getGender());
+        assertNull(gson.fromJson("{\"gender\":null}", CastMember.class).getGender());
+        assertNull(gson.fromJson("{}", CrewMember.class).getGender());
+    }
+
+    @Test
+    void nullsKeepDefaultsAndAreNotWritten() {
+        Movie movie = gson.fromJson("{\"id\":\"1\",\"popularity\":null,\"genres\":null,\"castList\":null}", Movie.class);
+
+        assertEquals(0, movie.getPopularity());
+        assertNull(movie.getGenres());
+        assertNull(movie.getCastList());
+
+        JsonObject json = JsonParser.parseString(gson.toJson(movie)).getAsJsonObject();
+        assertFalse(json.has("genres"));
+        assertFalse(json.has("castList"));
+        assertFalse(json.has("title"));
+    }
+
+    private static Movie movie() {
+        Movie movie = new Movie();
+        movie.setId("278");
+        movie.setImdbId("tt0111161");
+        movie.setLanguage("en");
+        movie.setTitle("The Shawshank Redemption");
+        movie.setOverview("Framed in the 1940s for the double murder of his wife and her lover, ...");
+        movie.setStatus("Released");
+        movie.setTagline("Fear can hold you prisoner. Hope can set you free.");
+        movie.setPopularity(88.5);
+        movie.setVoteAverage(8.7);
+        movie.setVoteCount(24000);
+        movie.setBudget(25_000_000);
+        movie.setRuntime(142);
+        movie.setRevenue(28_341_469);
+        movie.setPosterImage("/q6y0Go1tsGEsmtFryDOJo3dEmqu.jpg");
+        movie.setReleaseDateUTC(780278400);
+        movie.setYear(1994);
+        movie.setGenres(List.of("Drama", "Crime"));
+        movie.setActors(List.of("Tim Robbins", "Morgan Freeman"));
+        movie.setDirectors(List.of("Frank Darabont"));
+        movie.setWriters(List.of("Stephen King", "Frank Darabont"));
+        movie.setCastList(List.of(castMember("504", "Andy Dufresne", "Tim Robbins", "Male"),
+                castMember("192", "Ellis Boyd 'Red' Redding", "Morgan Freeman", "Male")));
+        movie.setDirectorList(List.of(crewMember("4027", "Director", "Frank Darabont")));
+        movie.setWriterList(List.of(crewMember("3027", "Novel", "Stephen King"),
+                crewMember("4027", "Screenplay", "Frank Darabont")));
+        return movie;
+    }
+
+    private static CastMember castMember(String id, String character, String name, String gender) {
+        CastMember member = new CastMember();
+        member.setId(id);
+        member.setCharacter(character);
+        member.setName(name);
+        member.setGender(gender);
+        return member;
+    }
+
+    private static CrewMember crewMember(String id, String job, String name) {
+        CrewMember member = new CrewMember();
+        member.setId(id);
+        member.setJob(job);
+        member.setName(name);
+        member.setGender("Male");
+        return member;
+    }
+}
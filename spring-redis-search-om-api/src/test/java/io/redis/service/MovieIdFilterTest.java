@@ -0,0 +1,119 @@
+package io.redis.service;
+
+import io.redis.configuration.MovieBulkLoader;
+import io.redis.event.MoviesWrittenEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.resps.ScanResult;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class MovieIdFilterTest {
+
+    private static final String KEY_PREFIX = MovieBulkLoader.MOVIE_KEYSPACE;
+    private static final String WRITES_KEY = MovieBulkLoader.writesKey(KEY_PREFIX);
+
+    private MovieIdFilter idFilter;
+    private JedisPooled jedis;
+
+    @BeforeEach
+    void setUp() {
+        jedis = mock(JedisPooled.class);
+        when(jedis.ftInfo(anyString())).thenReturn(Map.of("num_docs", "2"));
+
+        MovieIndexService movieIndexService = mock(MovieIndexService.class);
+        when(movieIndexService.keyPrefix()).thenReturn(KEY_PREFIX);
+
+        idFilter = new MovieIdFilter();
+        idFilter.jedis = jedis;
+        idFilter.movieIndexService = movieIndexService;
+        ReflectionTestUtils.setField(idFilter, "enabled", true);
+        ReflectionTestUtils.setField(idFilter, "expectedInsertions", 1000L);
+        ReflectionTestUtils.setField(idFilter, "fpp", 0.001);
+    }
+
+    @AfterEach
+    void tearDown() {
+        idFilter.destroy();
+    }
+
+    @Test
+    void deletesPlusAddsElsewhereAreDetectedByTheWriteCount() throws InterruptedException {
+        this.stored(1, "278", "238");
+        idFilter.init();
+        awaitReady();
+        assertFalse(idFilter.mightContain("424"));
+
+        // Another instance deleted 238 & added 424, the number of movies is unchanged
+        this.stored(2, "278", "424");
+        idFilter.refresh();
+
+        assertTrue(idFilter.mightContain("424"));
+        awaitReady();
+        assertTrue(idFilter.mightContain("424"));
+    }
+
+    @Test
+    void localWritesAreAddedWithoutARebuild() throws InterruptedException {
+        this.stored(1, "278");
+        idFilter.init();
+        awaitReady();
+
+        when(jedis.get(WRITES_KEY)).thenReturn("2");
+        idFilter.onMoviesWritten(new MoviesWrittenEvent(this, KEY_PREFIX, List.of("424"), 2));
+        idFilter.refresh();
+
+        assertTrue(idFilter.getMetrics().isReady());
+        assertTrue(idFilter.mightContain("424"));
+        verify(jedis, times(1)).scan(anyString(), any(ScanParams.class));
+    }
+
+    @Test
+    void writesInAnotherKeyspaceAreIgnored() throws InterruptedException {
+        this.stored(1, "278");
+        idFilter.init();
+        awaitReady();
+
+        idFilter.onMoviesWritten(new MoviesWrittenEvent(this, "io.redis.model.Movie.v1:", List.of("424"), 2));
+
+        assertFalse(idFilter.mightContain("424"));
+    }
+
+    @Test
+    void rebuildIsNotInstalledWhenWritesHappenedDuringTheScan() throws InterruptedException {
+        when(jedis.get(WRITES_KEY)).thenReturn("1", "2");
+        when(jedis.scan(anyString(), any(ScanParams.class))).thenReturn(new ScanResult<>("0", List.of(KEY_PREFIX + "278")));
+
+        idFilter.init();
+        TimeUnit.MILLISECONDS.sleep(200);
+
+        assertFalse(idFilter.getMetrics().isReady());
+        assertTrue(idFilter.mightContain("424"));
+    }
+
+    private void stored(long writes, String... ids) {
+        when(jedis.get(WRITES_KEY)).thenReturn(String.valueOf(writes));
+        when(jedis.scan(anyString(), any(ScanParams.class))).thenReturn(new ScanResult<>("0",
+                List.of(ids).stream().map(id -> KEY_PREFIX + id).collect(Collectors.toList())));
+    }
+
+    private void awaitReady() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (!idFilter.getMetrics().isReady() && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertTrue(idFilter.getMetrics().isReady(), "Id filter wasn't built in time");
+    }
+}
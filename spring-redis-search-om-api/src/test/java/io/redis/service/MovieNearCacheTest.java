@@ -0,0 +1,94 @@
+package io.redis.service;
+
+import io.redis.model.Movie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class MovieNearCacheTest {
+
+    private static final String KEY = "io.redis.model.Movie:278";
+    private static final String OTHER_KEY = "io.redis.model.Movie:238";
+
+    private MovieNearCache nearCache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        nearCache = new MovieNearCache();
+        nearCache.listenerContainer = mock(RedisMessageListenerContainer.class);
+        ReflectionTestUtils.setField(nearCache, "enabled", true);
+        ReflectionTestUtils.setField(nearCache, "maxSize", 100L);
+        ReflectionTestUtils.setField(nearCache, "ttl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(nearCache, "configureNotifications", false);
+        nearCache.init();
+    }
+
+    @Test
+    void evictionOfAnotherKeyDuringALoadStillCaches() {
+        nearCache.get(KEY, k -> {
+            evict(OTHER_KEY);
+            return load(k);
+        });
+        nearCache.get(KEY, this::load);
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void evictionOfTheLoadedKeyDuringALoadIsNotCached() {
+        nearCache.get(KEY, k -> {
+            evict(KEY);
+            return load(k);
+        });
+        nearCache.get(KEY, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void batchLoadOnlySkipsTheEvictedKeys() {
+        nearCache.getAll(List.of(KEY, OTHER_KEY), keys -> {
+            evict(OTHER_KEY);
+            return Map.of(KEY, load(KEY), OTHER_KEY, load(OTHER_KEY));
+        });
+        loads.set(0);
+
+        nearCache.get(KEY, this::load);
+        nearCache.get(OTHER_KEY, this::load);
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void evictionAfterALoadDropsTheEntry() {
+        nearCache.get(KEY, this::load);
+        evict(KEY);
+        nearCache.get(KEY, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    private Movie load(String key) {
+        loads.incrementAndGet();
+        Movie movie = new Movie();
+        movie.setId(key.substring(key.lastIndexOf(':') + 1));
+        return movie;
+    }
+
+    private void evict(String key) {
+        nearCache.onMessage(new DefaultMessage(("__keyspace@0__:" + key).getBytes(StandardCharsets.UTF_8),
+                "json.set".getBytes(StandardCharsets.UTF_8)), null);
+    }
+}
@@ -0,0 +1,198 @@
+package io.redis.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.redis.model.ScrapeJob;
+import io.redis.type.ScrapeJobStateENUM;
+import io.redis.util.ResponseDiskCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs scrape jobs against a local stub of TMDB's "movie/top_rated" endpoint
+ */
+class MovieScraperJobServiceTest {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int TOTAL_PAGES = 5;
+
+    @TempDir
+    Path dir;
+
+    private HttpServer server;
+    private MovieScraperJobService jobService;
+
+    // page -> requests received
+    private final Map<Integer, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/3/movie/top_rated", this::topRated);
+        server.start();
+
+        MovieScraperService scraperService = new MovieScraperService(
+                WebClient.create("http://localhost:" + server.getAddress().getPort() + "/3/"), 1000, 100);
+        scraperService.responseCache = new ResponseDiskCache();
+        ReflectionTestUtils.setField(scraperService, "apiKey", "test");
+        ReflectionTestUtils.setField(scraperService, "maxRetries", 2);
+        ReflectionTestUtils.setField(scraperService, "retryBackoffMs", 10L);
+
+        jobService = new MovieScraperJobService();
+        jobService.movieScraperService = scraperService;
+        jobService.gson = new Gson();
+        ReflectionTestUtils.setField(jobService, "concurrency", 4);
+        ReflectionTestUtils.setField(jobService, "outputFile", dir.resolve("new-movies.json").toString());
+        ReflectionTestUtils.setField(jobService, "jobTtl", Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void writesPagesInOrderRetryingServerErrorsAndSkippingFailedPages() throws Exception {
+        ScrapeJob job = awaitFinished(jobService.startJob(4 * PAGE_SIZE));
+
+        assertEquals(ScrapeJobStateENUM.COMPLETED_WITH_ERRORS, job.getState());
+        assertEquals(4, job.getTotalPages());
+        assertEquals(List.of(3), job.getFailedPages());
+        assertEquals(3 * PAGE_SIZE, job.getMoviesWritten());
+
+        // Page 2 answers 503 on its first request, page 3 is a 404 which isn't retried
+        assertEquals(2, requests.get(2).get());
+        assertEquals(1, requests.get(3).get());
+        assertNull(requests.get(5));
+
+        JsonArray movies = JsonParser.parseString(Files.readString(dir.resolve("new-movies.json"))).getAsJsonArray();
+        List<Integer> ids = new ArrayList<>();
+        for (JsonElement movie : movies) {
+            ids.add(movie.getAsJsonObject().get("id").getAsInt());
+        }
+        List<Integer> expected = new ArrayList<>();
+        for (int page : new int[]{1, 2, 4}) {
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                expected.add(page * 100 + i);
+            }
+        }
+        assertEquals(expected, ids);
+        assertFalse(Files.exists(dir.resolve("new-movies.json.part")));
+    }
+
+    @Test
+    void onlyOneJobRunsAtATime() throws Exception {
+        release = new CountDownLatch(1);
+
+        ScrapeJob first = jobService.startJob(PAGE_SIZE);
+        ScrapeJob second = jobService.startJob(PAGE_SIZE);
+        assertEquals(first.getId(), second.getId());
+
+        release.countDown();
+        assertEquals(ScrapeJobStateENUM.COMPLETED, awaitFinished(first).getState());
+
+        ScrapeJob third = jobService.startJob(PAGE_SIZE);
+        assertNotEquals(first.getId(), third.getId());
+        awaitFinished(third);
+    }
+
+    @Test
+    void publishedJobsAreNeverModified() throws Exception {
+        ScrapeJob started = jobService.startJob(2 * PAGE_SIZE);
+        ScrapeJob finished = awaitFinished(started);
+
+        assertEquals(ScrapeJobStateENUM.RUNNING, started.getState());
+        assertEquals(0, started.getMoviesWritten());
+        assertEquals(2 * PAGE_SIZE, finished.getMoviesWritten());
+        assertThrows(UnsupportedOperationException.class, () -> finished.getFailedPages().add(1));
+    }
+
+    @Test
+    void finishedJobsAreEvictedAfterTheTtl() throws Exception {
+        ScrapeJob job = awaitFinished(jobService.startJob(PAGE_SIZE));
+        assertTrue(jobService.getJob(job.getId()).isPresent());
+
+        ReflectionTestUtils.setField(jobService, "jobTtl", Duration.ZERO);
+        TimeUnit.MILLISECONDS.sleep(5);
+        assertTrue(jobService.getJob(job.getId()).isEmpty());
+    }
+
+    private void topRated(HttpExchange exchange) throws IOException {
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        String query = exchange.getRequestURI().getQuery();
+        int page = Integer.parseInt(query.replaceAll(".*page=(\\d+).*", "$1"));
+        int request = requests.computeIfAbsent(page, p -> new AtomicInteger()).incrementAndGet();
+
+        if (page == 2 && request == 1) {
+            respond(exchange, 503, "{}");
+        } else if (page == 3) {
+            respond(exchange, 404, "{}");
+        } else {
+            JsonArray results = new JsonArray();
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                JsonObject movie = new JsonObject();
+                movie.addProperty("id", page * 100 + i);
+                movie.addProperty("title", "Movie " + (page * 100 + i));
+                results.add(movie);
+            }
+            JsonObject body = new JsonObject();
+            body.addProperty("page", page);
+            body.addProperty("total_pages", TOTAL_PAGES);
+            body.add("results", results);
+            respond(exchange, 200, body.toString());
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private ScrapeJob awaitFinished(ScrapeJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        ScrapeJob current = jobService.getJob(job.getId()).orElseThrow();
+        while (current.getState() == ScrapeJobStateENUM.RUNNING && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(20);
+            current = jobService.getJob(job.getId()).orElseThrow();
+        }
+        assertNotEquals(ScrapeJobStateENUM.RUNNING, current.getState(), "Job didn't finish in time");
+        return current;
+    }
+}
@@ -0,0 +1,82 @@
+package io.redis.util;
+
+import com.google.gson.Gson;
+import io.redis.model.PageCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorUtilTest {
+
+    private static final String QUERY = "@genres:{Drama}";
+
+    private CursorUtil cursorUtil;
+
+    @BeforeEach
+    void setUp() {
+        cursorUtil = new CursorUtil();
+        cursorUtil.gson = new Gson();
+    }
+
+    @Test
+    void roundTrip() {
+        String token = cursorUtil.encode(cursor("popularity", false, QUERY, 152.3, "278"));
+        assertFalse(token.contains("="));
+
+        PageCursor decoded = cursorUtil.decode(token, QUERY, "popularity", false);
+        assertEquals(152.3, decoded.getValue());
+        assertEquals("278", decoded.getLastId());
+    }
+
+    @Test
+    void blankTokenIsTheFirstPage() {
+        assertNull(cursorUtil.decode(null, QUERY, "popularity", false));
+        assertNull(cursorUtil.decode(" ", QUERY, "popularity", false));
+    }
+
+    @Test
+    void cursorForAnotherQueryOrSortIsRejected() {
+        String token = cursorUtil.encode(cursor("popularity", false, QUERY, 152.3, "278"));
+
+        assertBadRequest(() -> cursorUtil.decode(token, "@genres:{Action}", "popularity", false));
+        assertBadRequest(() -> cursorUtil.decode(token, QUERY, "budget", false));
+        assertBadRequest(() -> cursorUtil.decode(token, QUERY, "popularity", true));
+    }
+
+    @Test
+    void malformedTokenIsRejected() {
+        assertBadRequest(() -> cursorUtil.decode("not a cursor!", QUERY, "popularity", false));
+        String notJson = Base64.getUrlEncoder().encodeToString("[1,2".getBytes(StandardCharsets.UTF_8));
+        assertBadRequest(() -> cursorUtil.decode(notJson, QUERY, "popularity", false));
+    }
+
+    @Test
+    void idWhichWouldBreakOutOfTheFilterIsRejected() {
+        String quoted = cursorUtil.encode(cursor("popularity", false, QUERY, 1, "278') || ('1"));
+        assertBadRequest(() -> cursorUtil.decode(quoted, QUERY, "popularity", false));
+
+        String missing = cursorUtil.encode(cursor("popularity", false, QUERY, 1, null));
+        assertBadRequest(() -> cursorUtil.decode(missing, QUERY, "popularity", false));
+    }
+
+    private PageCursor cursor(String sortBy, boolean ascending, String query, double value, String lastId) {
+        PageCursor cursor = new PageCursor();
+        cursor.setSortBy(sortBy);
+        cursor.setAscending(ascending);
+        cursor.setQueryHash(cursorUtil.hashQuery(query));
+        cursor.setValue(value);
+        cursor.setLastId(lastId);
+        return cursor;
+    }
+
+    private static void assertBadRequest(Runnable decode) {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, decode::run);
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+}
@@ -0,0 +1,62 @@
+package io.redis.util;
+
+import com.google.gson.Gson;
+import io.redis.model.InternerMetrics;
+import io.redis.model.Movie;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The interner is process wide, so names are unique to each test & metrics are compared as deltas
+ */
+class NameInternerTest {
+
+    @Test
+    void equalNamesShareOneInstance() {
+        String first = new String("NameInternerTest Tim Robbins");
+        String second = new String("NameInternerTest Tim Robbins");
+        assertNotSame(first, second);
+
+        assertSame(first, NameInterner.intern(first));
+        assertSame(first, NameInterner.intern(second));
+    }
+
+    @Test
+    void nullIsPassedThroughUncounted() {
+        long total = NameInterner.getMetrics().getTotal();
+
+        assertNull(NameInterner.intern(null));
+        assertEquals(total, NameInterner.getMetrics().getTotal());
+    }
+
+    @Test
+    void metricsCountDeduplicatedNames() {
+        InternerMetrics before = NameInterner.getMetrics();
+
+        NameInterner.intern(new String("NameInternerTest Morgan Freeman"));
+        NameInterner.intern(new String("NameInternerTest Morgan Freeman"));
+        NameInterner.intern(new String("NameInternerTest Morgan Freeman"));
+
+        InternerMetrics after = NameInterner.getMetrics();
+        assertEquals(before.getUnique() + 1, after.getUnique());
+        assertEquals(before.getTotal() + 3, after.getTotal());
+        assertEquals(before.getDeduplicated() + 2, after.getDeduplicated());
+    }
+
+    @Test
+    void moviesDeserialisedSeparatelyShareNames() {
+        Gson gson = new Gson();
+        String json = "{\"id\":\"278\",\"genres\":[\"NameInternerTest Drama\"],\"actors\":[\"NameInternerTest Bob Gunton\"],"
+                + "\"castList\":[{\"name\":\"NameInternerTest Bob Gunton\"}]}";
+
+        Movie first = gson.fromJson(json, Movie.class);
+        Movie second = gson.fromJson(json, Movie.class);
+
+        assertNotSame(first, second);
+        assertSame(first.getGenres().get(0), second.getGenres().get(0));
+        assertSame(first.getActors().get(0), second.getActors().get(0));
+        assertSame(first.getActors().get(0), second.getCastList().get(0).getName());
+        assertEquals(first, second);
+    }
+}
@@ -0,0 +1,130 @@
+package io.redis.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>("test");
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneResult() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = this.callConcurrently("278", () -> {
+            calls.incrementAndGet();
+            await(release);
+            return "The Shawshank Redemption";
+        });
+
+        release.countDown();
+        for (Future<String> result : results) {
+            assertEquals("The Shawshank Redemption", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(1, singleFlight.getMetrics().getIssued());
+        assertEquals(CALLERS - 1, singleFlight.getMetrics().getCoalesced());
+    }
+
+    @Test
+    void exceptionIsRethrownToEveryCaller() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = this.callConcurrently("278", () -> {
+            calls.incrementAndGet();
+            await(release);
+            throw new IllegalStateException("Redis unavailable");
+        });
+
+        release.countDown();
+        for (Future<String> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+            assertEquals("Redis unavailable", e.getCause().getMessage());
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void keyIsRemovedOnceTheCallCompletes() {
+        assertEquals("first", singleFlight.execute("278", () -> "first"));
+        assertEquals(0, singleFlight.getMetrics().getInFlight());
+        assertEquals("second", singleFlight.execute("278", () -> "second"));
+
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("278", () -> {
+            throw new IllegalStateException();
+        }));
+        assertEquals(0, singleFlight.getMetrics().getInFlight());
+        assertEquals("third", singleFlight.execute("278", () -> "third"));
+
+        assertEquals(4, singleFlight.getMetrics().getIssued());
+        assertEquals(0, singleFlight.getMetrics().getCoalesced());
+    }
+
+    @Test
+    void differentKeysAreNotCoalesced() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> first = executor.submit(() -> singleFlight.execute("278", () -> {
+            await(release);
+            return "278";
+        }));
+        waitUntil(() -> singleFlight.getMetrics().getInFlight() == 1);
+
+        assertEquals("238", singleFlight.execute("238", () -> "238"));
+        release.countDown();
+        assertEquals("278", first.get(5, TimeUnit.SECONDS));
+        assertEquals(0, singleFlight.getMetrics().getCoalesced());
+    }
+
+    /**
+     * Start the leader, then the other callers once it is in flight, returning when they are all waiting on it
+     */
+    private List<Future<String>> callConcurrently(String key, Supplier<String> call) {
+        List<Future<String>> results = new ArrayList<>();
+        results.add(executor.submit(() -> singleFlight.execute(key, call)));
+        waitUntil(() -> calls.get() == 1);
+        for (int i = 1; i < CALLERS; i++) {
+            results.add(executor.submit(() -> singleFlight.execute(key, call)));
+        }
+        waitUntil(() -> singleFlight.getMetrics().getCoalesced() == CALLERS - 1);
+        return results;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.onSpinWait();
+        }
+    }
+}